@@ -0,0 +1,90 @@
+package froggy.game.doomsdaytrainer;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The process-wide answer log, opened on first use.
+ *
+ * All methods do file I/O and must be called from a background thread. They are synchronized
+ * so that every activity instance can share the one open log.
+ */
+public final class AnswerHistory {
+
+    private static final String TAG = "AnswerHistory";
+    private static final String FILE_NAME = "answers.log";
+
+    private static AnswerHistory instance;
+
+    private final File path;
+    private AnswerLog log; // Guarded by this
+    private boolean failed; // Guarded by this; don't retry opening a broken log on every answer
+
+    private AnswerHistory(Context context) {
+        path = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * Get the process-wide history
+     *
+     * @param context Any context; the application context is kept
+     * @return The history
+     */
+    public static synchronized AnswerHistory getInstance(Context context) {
+        if (instance == null) {
+            instance = new AnswerHistory(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Record an answer. Failures are logged and the answer is dropped.
+     *
+     * @see AnswerLog#append
+     */
+    public synchronized void append(long timestampMillis, long sessionId, long thinkNanos, int year, int month,
+                                    int day, int guessedDay, int actualDay) {
+        AnswerLog answerLog = open();
+        if (answerLog == null) {
+            return;
+        }
+        try {
+            answerLog.append(timestampMillis, sessionId, thinkNanos, year, month, day, guessedDay, actualDay);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not record answer", e);
+        }
+    }
+
+    /**
+     * Get the open log for queries. Callers must hold the lock on this history while using it.
+     *
+     * @return The log, or null if it could not be opened
+     */
+    public synchronized AnswerLog getLog() {
+        return open();
+    }
+
+    /**
+     * Push recorded answers to the disk, e.g. when the app goes to the background
+     */
+    public synchronized void sync() {
+        if (log != null) {
+            log.sync();
+        }
+    }
+
+    private AnswerLog open() {
+        if (log == null && !failed) {
+            try {
+                log = AnswerLog.open(path);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not open answer log", e);
+                failed = true;
+            }
+        }
+        return log;
+    }
+}
@@ -0,0 +1,246 @@
+package froggy.game.doomsdaytrainer;
+
+import android.app.Activity;
+import android.content.res.ColorStateList;
+import android.os.SystemClock;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.widget.Button;
+import android.widget.TextView;
+
+import androidx.appcompat.content.res.AppCompatResources;
+
+/**
+ * The seven day buttons and the result line below them. Views, day names, result texts and tint
+ * lists are looked up once, when the activity is created for a configuration; after that,
+ * showing an answer or resetting the buttons allocates nothing and only touches the buttons
+ * whose tint or enabled state actually changes.
+ *
+ * Answers are committed on click, or optionally as soon as a finger touches a button, which saves
+ * the time the finger rests on the glass. A touch-down is ignored as accidental if another day
+ * button is already being touched (a palm or a second finger), or if it lands within
+ * {@link #TOUCH_LOCKOUT_MILLIS} of the buttons being enabled for a new question (a finger still
+ * on its way down from the last answer). An accepted touch-down answers by clicking the button,
+ * so every answer, including clicks from TalkBack or switch access, goes through the click
+ * handler and its lockout.
+ *
+ * Main thread only.
+ */
+final class DayButtonController {
+
+    /**
+     * Told which day was tapped
+     */
+    interface Listener {
+        /**
+         * @param dayOfWeek The WeekdayEngine constant of the button
+         * @param eventUptimeMillis When the input event that gave the answer happened,
+         *                          on the {@link SystemClock#uptimeMillis()} clock
+         */
+        void onDaySelected(int dayOfWeek, long eventUptimeMillis);
+    }
+
+    /** How soon after the buttons are enabled a tap counts as an answer */
+    static final long TOUCH_LOCKOUT_MILLIS = 120;
+
+    private static final int TINT_NORMAL = 0;
+    private static final int TINT_CORRECT = 1;
+    private static final int TINT_INCORRECT = 2;
+
+    // Indexed by WeekdayEngine constant, SUNDAY = 1 ... SATURDAY = 7
+    private final Button[] buttons = new Button[8];
+    private final String[] dayNames = new String[8];
+    private final String[] correctTexts = new String[8];
+    private final String[] incorrectTexts = new String[8];
+    private final int[] tints = new int[8];
+
+    private final ColorStateList[] tintLists = new ColorStateList[3];
+    private final TextView resultView;
+    private final Listener listener;
+    private boolean enabled = true;
+    private boolean commitOnTouchDown;
+    private long enabledUptimeMillis;   // when the buttons were last enabled for a new question
+    private long releaseUptimeMillis;   // when the last touch on a button ended, for clicks
+    private long touchDownUptimeMillis = -1; // the touch-down being answered by a click, or -1
+    private int touchesDown;            // fingers on day buttons
+
+    /**
+     * @param activity The activity with the buttons
+     * @param resultView Shows whether the answer was right
+     * @param listener Told about taps
+     */
+    DayButtonController(Activity activity, TextView resultView, Listener listener) {
+        this.resultView = resultView;
+        this.listener = listener;
+        bind(activity, WeekdayEngine.SUNDAY, R.id.buttonSunday, R.string.day_sunday);
+        bind(activity, WeekdayEngine.MONDAY, R.id.buttonMonday, R.string.day_monday);
+        bind(activity, WeekdayEngine.TUESDAY, R.id.buttonTuesday, R.string.day_tuesday);
+        bind(activity, WeekdayEngine.WEDNESDAY, R.id.buttonWednesday, R.string.day_wednesday);
+        bind(activity, WeekdayEngine.THURSDAY, R.id.buttonThursday, R.string.day_thursday);
+        bind(activity, WeekdayEngine.FRIDAY, R.id.buttonFriday, R.string.day_friday);
+        bind(activity, WeekdayEngine.SATURDAY, R.id.buttonSaturday, R.string.day_saturday);
+        tintLists[TINT_NORMAL] = AppCompatResources.getColorStateList(activity, R.color.colorPrimary);
+        tintLists[TINT_CORRECT] = AppCompatResources.getColorStateList(activity, R.color.colorCorrect);
+        tintLists[TINT_INCORRECT] = AppCompatResources.getColorStateList(activity, R.color.colorIncorrect);
+        for (int day = WeekdayEngine.SUNDAY; day <= WeekdayEngine.SATURDAY; day++) {
+            buttons[day].setBackgroundTintList(tintLists[TINT_NORMAL]);
+        }
+    }
+
+    private void bind(Activity activity, int day, int buttonId, int nameId) {
+        Button button = activity.findViewById(buttonId);
+        button.setOnClickListener(v -> onClick(day));
+        button.setOnTouchListener((v, event) -> {
+            if (onTouch(event)) {
+                v.performClick();
+            }
+            // When answering on touch-down, the release mustn't click again
+            return commitOnTouchDown;
+        });
+        buttons[day] = button;
+        dayNames[day] = activity.getString(nameId);
+        correctTexts[day] = activity.getString(R.string.correct_guess, dayNames[day]);
+        incorrectTexts[day] = activity.getString(R.string.incorrect_guess, dayNames[day]);
+    }
+
+    /**
+     * Choose whether answers are committed when a button is touched or when it is clicked
+     */
+    void setCommitOnTouchDown(boolean commitOnTouchDown) {
+        this.commitOnTouchDown = commitOnTouchDown;
+    }
+
+    private void onClick(int day) {
+        long eventUptimeMillis;
+        if (touchDownUptimeMillis >= 0) {
+            eventUptimeMillis = touchDownUptimeMillis;
+            touchDownUptimeMillis = -1;
+        } else if (releaseUptimeMillis >= enabledUptimeMillis) {
+            eventUptimeMillis = releaseUptimeMillis;
+        } else {
+            // A click from accessibility has no touch of its own this question
+            eventUptimeMillis = SystemClock.uptimeMillis();
+        }
+        if (!enabled || eventUptimeMillis - enabledUptimeMillis < TOUCH_LOCKOUT_MILLIS) {
+            return;
+        }
+        listener.onDaySelected(day, eventUptimeMillis);
+    }
+
+    /**
+     * Keep track of the touches on the day buttons. Runs before the click handling, which it
+     * replaces when answers are committed on touch-down.
+     *
+     * @return true if the touch is a touch-down that should answer now
+     */
+    private boolean onTouch(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                boolean accidental = touchesDown > 0;
+                touchesDown++;
+                if (commitOnTouchDown && !accidental) {
+                    touchDownUptimeMillis = event.getEventTime();
+                    return true;
+                }
+                return false;
+            case MotionEvent.ACTION_UP:
+                releaseUptimeMillis = event.getEventTime();
+                touchesDown = Math.max(0, touchesDown - 1);
+                return false;
+            case MotionEvent.ACTION_CANCEL:
+                touchesDown = Math.max(0, touchesDown - 1);
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get the day a key stands for: 1-7 for Monday to Sunday, or the letters M, T, W, R (Thursday),
+     * F, S and U (Sunday)
+     *
+     * @param keyCode The key
+     * @return The WeekdayEngine constant, or 0 if the key isn't a day
+     */
+    static int dayForKey(int keyCode) {
+        if (keyCode >= KeyEvent.KEYCODE_1 && keyCode <= KeyEvent.KEYCODE_7) {
+            return isoDay(keyCode - KeyEvent.KEYCODE_1 + 1);
+        }
+        if (keyCode >= KeyEvent.KEYCODE_NUMPAD_1 && keyCode <= KeyEvent.KEYCODE_NUMPAD_7) {
+            return isoDay(keyCode - KeyEvent.KEYCODE_NUMPAD_1 + 1);
+        }
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_M: return WeekdayEngine.MONDAY;
+            case KeyEvent.KEYCODE_T: return WeekdayEngine.TUESDAY;
+            case KeyEvent.KEYCODE_W: return WeekdayEngine.WEDNESDAY;
+            case KeyEvent.KEYCODE_R: return WeekdayEngine.THURSDAY;
+            case KeyEvent.KEYCODE_F: return WeekdayEngine.FRIDAY;
+            case KeyEvent.KEYCODE_S: return WeekdayEngine.SATURDAY;
+            case KeyEvent.KEYCODE_U: return WeekdayEngine.SUNDAY;
+            default: return 0;
+        }
+    }
+
+    /**
+     * @return The WeekdayEngine constant for an ISO day number, 1 = Monday ... 7 = Sunday
+     */
+    private static int isoDay(int number) {
+        return number == 7 ? WeekdayEngine.SUNDAY : WeekdayEngine.MONDAY + number - 1;
+    }
+
+    /**
+     * Show the feedback for an answer: the correct day in green, a wrong guess in red, the result
+     * line, and the buttons disabled until {@link #reset()}
+     *
+     * @param guessedDay The answer given, as a WeekdayEngine constant
+     * @param actualDay The correct answer
+     */
+    void showAnswer(int guessedDay, int actualDay) {
+        boolean correct = guessedDay == actualDay;
+        setEnabled(false);
+        setTint(actualDay, TINT_CORRECT);
+        if (!correct) {
+            setTint(guessedDay, TINT_INCORRECT);
+        }
+        resultView.setText(correct ? correctTexts[actualDay] : incorrectTexts[actualDay]);
+        resultView.setTextColor(tintLists[correct ? TINT_CORRECT : TINT_INCORRECT]);
+    }
+
+    /**
+     * Put the highlighted buttons back to normal and enable all of them, for the next answer.
+     * The result line is left as it is.
+     */
+    void reset() {
+        enabledUptimeMillis = SystemClock.uptimeMillis();
+        // Disabled buttons don't report their touches ending, so start counting afresh
+        touchesDown = 0;
+        for (int day = WeekdayEngine.SUNDAY; day <= WeekdayEngine.SATURDAY; day++) {
+            setTint(day, TINT_NORMAL);
+        }
+        setEnabled(true);
+    }
+
+    /**
+     * Enable or disable all buttons
+     */
+    void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        for (int day = WeekdayEngine.SUNDAY; day <= WeekdayEngine.SATURDAY; day++) {
+            buttons[day].setEnabled(enabled);
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    private void setTint(int day, int tint) {
+        if (tints[day] != tint) {
+            tints[day] = tint;
+            buttons[day].setBackgroundTintList(tintLists[tint]);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package froggy.game.doomsdaytrainer;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Keeps the think-time histogram of all series ever played in a small file.
+ * Does disk I/O, so only use it from a background thread.
+ */
+public class LifetimeLatencyStore {
+
+    private static final String TAG = "LifetimeLatencyStore";
+    private static final String FILE_NAME = "lifetime_think_times.bin";
+
+    private final AtomicFile file;
+
+    public LifetimeLatencyStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    /**
+     * Load the lifetime histogram
+     *
+     * @return The histogram, empty if nothing was saved yet or the file is unreadable
+     */
+    public LatencyHistogram load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            return LatencyHistogram.readFrom(in);
+        } catch (FileNotFoundException e) {
+            return new LatencyHistogram();
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable lifetime statistics", e);
+            return new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Replace the saved lifetime histogram
+     *
+     * @param histogram The histogram to save
+     */
+    public void save(LatencyHistogram histogram) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            histogram.writeTo(out);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save lifetime statistics", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+}
@@ -1,124 +1,261 @@
 package froggy.game.doomsdaytrainer;
 
+import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.res.Resources;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
 import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.KeyEvent;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.core.content.ContextCompat;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Locale;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
+    private static final String STATE_SESSION = "session";
+
     private TextView textViewDate;
     private TextView textViewResult;
-    private Calendar currentDate;
+    private DayButtonController dayButtons;
+    private QuizSession session; // The question, answers, series progress and timing
+    private YearAnchorTable anchorTable; // Covers the configured year range, in the configured calendar
+    private QuestionStrategy questionStrategy; // Chooses the dates; uniform or weighted by weak spots
+    private String questionStrategyName;
+    // Drill filters: the index being built or last built, for this range and filter
+    private int indexStartYear;
+    private int indexEndYear;
+    private DateFilter indexFilter;
+    private CalendarSystem indexCalendar;
+    private FilteredDateSampler filteredSampler; // null while the index is being built or if it's unusable
+    private DateFormatter dateFormatter; // Recompiled only when the format or locale changes
+    private final StringBuilder dateText = new StringBuilder(32);
+    private boolean keepQuestion; // The date on screen was restored; the drill index must not replace it
     private final Random random = new Random();
-    private SharedPreferences preferences;
-    
-    // Series mode SharedPreferences keys
-    private static final String KEY_IN_SERIES_MODE = "in_series_mode";
-    private static final String KEY_SERIES_COUNT = "series_count_current";
-    private static final String KEY_CURRENT_INDEX = "current_series_index";
-    private static final String KEY_CORRECT_COUNT = "correct_guess_count";
-    private static final String KEY_ELAPSED_TIME = "elapsed_time";
-    private static final String KEY_TIMER_RUNNING = "timer_running";
-    
-    // Series mode variables
-    private boolean inSeriesMode = false;
-    private int seriesCount = 0;
-    private int currentSeriesIndex = 0;
-    private int correctGuessCount = 0;
-    private long elapsedTimeMillis = 0; // Total elapsed time so far
-    private long timeWhenPaused = 0;    // Time checkpoint for pausing
-    private boolean timerRunning = false;
+    // The stores read the disk when opened, so they are opened in the background and are null until then
+    private SettingsStore settingsStore;
+    private TrainerSettings settings; // Swapped by the store's listener; read per question
+    private final SettingsStore.Listener settingsListener = this::onSettingsChanged;
+    private SeriesCheckpointStore checkpointStore;
+    private Button buttonNewDate;
     private Button buttonStartSeries;
     
-    // Define day of week constants to match Calendar class
-    private static final int SUNDAY = 1;
-    private static final int MONDAY = 2;
-    private static final int TUESDAY = 3;
-    private static final int WEDNESDAY = 4;
-    private static final int THURSDAY = 5;
-    private static final int FRIDAY = 6;
-    private static final int SATURDAY = 7;
+    // A sprint asks free practice questions until its time runs out; null when none is running.
+    // Its countdown runs on the frame clock, System.nanoTime().
+    private static final long SPRINT_DURATION_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private Sprint sprint;
+    private TextView textViewCountdown;
+    private SprintCountdown sprintCountdown;
+    
+    // The feedback for an answer is shown for a while, then the session moves on
+    private static final int TRANSITION_NEXT_QUESTION = 0;
+    private static final int TRANSITION_FINISH_SERIES = 1;
+    private static final int TRANSITION_RETRY = 2;
+    private static final int TRANSITION_NEXT_SPRINT_QUESTION = 3;
+    private SessionScheduler scheduler;
+    
+    // Series questions are generated ahead of time on a background thread,
+    // which also collects the answers and their think times
+    private static final int PREFETCH_QUESTIONS = 3;
+    private HandlerThread backgroundThread;
+    // Posts through the thread's looper, whose pooled messages make the per-answer drain allocation-free
+    private Executor backgroundExecutor;
+    private QuestionPrefetcher prefetcher;
+    private final ThinkTimeRecorder thinkTimeRecorder = new ThinkTimeRecorder(SettingsActivity.MAX_SERIES_COUNT);
+    // From each series answer's touch or key event to its commit; main thread only
+    private final LatencyHistogram inputLatency = new LatencyHistogram();
+    // The stores behind the statistics open their files when created, so they are only
+    // created and used on the background thread
+    private ThinkTimeCollector thinkTimeCollector;
+    private final Runnable drainThinkTimes = () -> thinkTimeRecorder.drain(thinkTimeCollector);
+    private CalendarSystem answerCalendar; // The calendar last handed to the collector; main thread only
+    private LifetimeLatencyStore lifetimeLatencyStore;
+    private AnswerHistory answerHistory;
+    private WeakSpotStore weakSpotStore;
+    
+    private StartupTimer startupTimer;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        startupTimer = new StartupTimer(this);
         super.onCreate(savedInstanceState);
+        
+        startupTimer.beginPhase("inflate");
         setContentView(R.layout.activity_main);
+        startupTimer.endPhase();
+        startupTimer.watchFirstFrame();
 
-        // Initialize preferences
-        preferences = getSharedPreferences(SettingsActivity.PREFS_NAME, MODE_PRIVATE);
+        // The first date is shown without waiting for the disk: on the settings already in
+        // memory, e.g. when recreated after a rotation, or else on the defaults until the saved
+        // settings and any saved series have been read in the background
+        startupTimer.beginPhase("session");
+        SettingsStore knownSettings = SettingsStore.peekInstance();
+        settings = knownSettings != null ? knownSettings.peek() : null;
+        if (settings == null) {
+            settings = TrainerSettings.DEFAULTS;
+        }
+        backgroundThread = new HandlerThread("trainer-background", Process.THREAD_PRIORITY_BACKGROUND);
+        backgroundThread.start();
+        Handler backgroundHandler = new Handler(backgroundThread.getLooper());
+        backgroundExecutor = backgroundHandler::post;
+        prefetcher = new QuestionPrefetcher(backgroundExecutor, PREFETCH_QUESTIONS);
+        // Usually warmed up by TrainerApplication. The statistics aren't needed for the first
+        // date, so their stores are opened after the settings.
+        Context context = getApplicationContext();
+        backgroundExecutor.execute(() -> {
+            Trace.beginSection("loadSettings");
+            SettingsStore loadedSettingsStore = SettingsStore.getInstance(context);
+            loadedSettingsStore.get();
+            SeriesCheckpointStore loadedCheckpointStore = SeriesCheckpointStore.getInstance(context);
+            SeriesCheckpoint checkpoint = loadedCheckpointStore.load();
+            Trace.endSection();
+            runOnUiThread(() -> onStartupLoaded(loadedSettingsStore, loadedCheckpointStore, checkpoint));
+            
+            Trace.beginSection("initStores");
+            lifetimeLatencyStore = new LifetimeLatencyStore(context);
+            answerHistory = AnswerHistory.getInstance(context);
+            weakSpotStore = WeakSpotStore.getInstance(context);
+            thinkTimeCollector = new ThinkTimeCollector(answerHistory, weakSpotStore);
+            Trace.endSection();
+            runOnUiThread(startupTimer::deferredWorkDone);
+        });
+        syncDateRange();
+        session = new QuizSession(new DeviceClock(), thinkTimeRecorder, questionStrategy, anchorTable);
+        scheduler = new SessionScheduler(this::onTransition);
+        startupTimer.endPhase();
         
+        startupTimer.beginPhase("views");
         textViewDate = findViewById(R.id.textViewDate);
         textViewResult = findViewById(R.id.textViewResult);
+        textViewCountdown = findViewById(R.id.textViewCountdown);
+        sprintCountdown = new SprintCountdown(textViewCountdown, this::finishSprint);
 
-        // Set up day of week buttons
-        setupDayButton(R.id.buttonMonday, MONDAY);
-        setupDayButton(R.id.buttonTuesday, TUESDAY);
-        setupDayButton(R.id.buttonWednesday, WEDNESDAY);
-        setupDayButton(R.id.buttonThursday, THURSDAY);
-        setupDayButton(R.id.buttonFriday, FRIDAY);
-        setupDayButton(R.id.buttonSaturday, SATURDAY);
-        setupDayButton(R.id.buttonSunday, SUNDAY);
-        
-        // Initialize button appearances
-        resetDayButtonAppearances();
+        // Set up day of week buttons; their views, names and colours are looked up once here
+        dayButtons = new DayButtonController(this, textViewResult, this::checkGuess);
+        dayButtons.setCommitOnTouchDown(settings.isTouchDownAnswers());
 
         // Set up new date button
-        Button buttonNewDate = findViewById(R.id.buttonNewDate);
+        buttonNewDate = findViewById(R.id.buttonNewDate);
         buttonNewDate.setOnClickListener(v -> {
+            // Skip the rest of the feedback for the old date
+            scheduler.cancel();
+            dayButtons.reset();
             generateRandomDate();
             textViewResult.setText("");
         });
         
-        // Set up series mode button
+        // Set up series mode button; a series saves its progress, so it can only be started
+        // once the saved one has been read
         buttonStartSeries = findViewById(R.id.buttonStartSeries);
-        buttonStartSeries.setOnClickListener(v -> startSeriesMode());
+        buttonStartSeries.setOnClickListener(v -> startSeriesMode(newSeriesPlan(settings.getSeriesCount())));
+        buttonStartSeries.setEnabled(false);
+        startupTimer.endPhase();
         
-        // Check if we were in series mode when app was closed
-        restoreSeriesState();
-
-        // If not resuming a series, generate a new date
-        if (!inSeriesMode) {
+        // Recreated by this process, e.g. on rotation: carry on with the same date from memory.
+        // Otherwise start on a new date; a series saved when the app was closed is resumed once
+        // it has been read.
+        startupTimer.beginPhase("firstDate");
+        SessionSnapshot snapshot = savedInstanceState != null
+                ? savedInstanceState.getParcelable(STATE_SESSION) : null;
+        if (snapshot != null && snapshot.isFromThisProcess()) {
+            restoreSnapshot(snapshot);
+        } else {
             generateRandomDate();
         }
+        startupTimer.endPhase();
+    }
+    
+    /**
+     * Take up the settings and the series checkpoint read in the background during startup
+     * 
+     * @param loadedSettingsStore The settings store, done with its first read
+     * @param loadedCheckpointStore The checkpoint store, now open
+     * @param checkpoint The saved series, or null if none was running
+     */
+    private void onStartupLoaded(SettingsStore loadedSettingsStore, SeriesCheckpointStore loadedCheckpointStore,
+                                 SeriesCheckpoint checkpoint) {
+        if (isDestroyed()) {
+            return;
+        }
+        settingsStore = loadedSettingsStore;
+        checkpointStore = loadedCheckpointStore;
+        
+        // From now on the settings are only read when they change. The first date was shown
+        // on the settings known at the start; one drawn from another range is replaced.
+        settingsStore.addListener(settingsListener);
+        TrainerSettings loadedSettings = settingsStore.peek();
+        TrainerSettings startSettings = settings;
+        if (!loadedSettings.equals(startSettings)) {
+            onSettingsChanged(startSettings, loadedSettings);
+        }
+        if (!loadedSettings.sameQuestions(startSettings) && !session.isInSeries() && sprint == null
+                && !keepQuestion) {
+            scheduler.cancel();
+            dayButtons.reset();
+            generateRandomDate();
+            textViewResult.setText("");
+        }
+        
+        // Resume the saved series, unless a series or sprint was started meanwhile, e.g. one
+        // restored after a rotation
+        if (checkpoint != null) {
+            restoreSeriesState(checkpoint);
+        } else if (!session.isInSeries() && sprint == null) {
+            buttonStartSeries.setEnabled(true);
+        }
+    }
+    
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // Called after onPause, so the clocks already stand still
+        outState.putParcelable(STATE_SESSION,
+                new SessionSnapshot(session, scheduler.isPending(), sprint, System.nanoTime()));
     }
     
     @Override
     protected void onResume() {
         super.onResume();
-        // Refresh the date when returning from settings
-        // (in case date format or range has changed)
-        if (currentDate != null) {
-            displayFormattedDate();
-        }
-        
-        // Resume timer if we're in series mode
-        if (inSeriesMode && !timerRunning) {
-            timeWhenPaused = SystemClock.elapsedRealtime();
-            timerRunning = true;
-            saveSeriesState();
+        // Resume the clocks stopped in onPause, then the rest of any feedback
+        session.resume();
+        if (sprint != null) {
+            sprint.resume(System.nanoTime());
+            sprintCountdown.start();
         }
+        scheduler.start();
     }
     
     @Override
     protected void onPause() {
         super.onPause();
-        // Pause the timer when app goes to background
-        if (inSeriesMode && timerRunning) {
-            pauseTimer();
+        // Pause the timer when app goes to background, and hold any pending transition
+        scheduler.stop();
+        session.pause();
+        sprintCountdown.stop();
+        if (sprint != null) {
+            sprint.pause(System.nanoTime());
+        }
+        if (session.isInSeries()) {
             saveSeriesState();
         }
     }
@@ -126,10 +263,32 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onStop() {
         super.onStop();
-        // Save series state when app is about to be closed
-        if (inSeriesMode) {
+        // Save series state when app is about to be closed, and make sure it reaches the disk
+        if (session.isInSeries()) {
             saveSeriesState();
         }
+        if (checkpointStore != null) {
+            checkpointStore.flush();
+        }
+        backgroundExecutor.execute(() -> {
+            answerHistory.sync();
+            weakSpotStore.save();
+        });
+    }
+    
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Leave nothing on the looper that refers to this activity; a new one restores the series
+        scheduler.cancel();
+        sprintCountdown.stop();
+        if (settingsStore != null) {
+            settingsStore.removeListener(settingsListener);
+        }
+        startupTimer.release();
+        prefetcher.stop();
+        // Runs the tasks already posted, e.g. saving the statistics, then ends the thread
+        backgroundThread.quitSafely();
     }
     
     @Override
@@ -146,385 +305,868 @@ public class MainActivity extends AppCompatActivity {
             startActivity(intent);
             return true;
         }
+        if (item.getItemId() == R.id.action_weak_spots) {
+            startActivity(new Intent(this, WeakSpotsActivity.class));
+            return true;
+        }
+        if (item.getItemId() == R.id.action_start_sprint) {
+            startSprint();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_startup_report) {
+            showStartupReport();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_share_challenge) {
+            shareChallenge();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_enter_challenge) {
+            enterChallenge();
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 
     /**
-     * Set up a button for a day of the week
-     * 
-     * @param buttonId The resource ID for the button
-     * @param dayOfWeek The Calendar constant for the day (e.g., Calendar.MONDAY)
+     * Generate a random date using the date range from settings
      */
-    private void setupDayButton(int buttonId, final int dayOfWeek) {
-        Button button = findViewById(buttonId);
-        button.setOnClickListener(v -> checkGuess(dayOfWeek));
+    private void generateRandomDate() {
+        session.nextQuestion();
+        keepQuestion = false;
+        
+        // Display the date in the selected format
+        displayFormattedDate();
     }
     
     /**
-     * Set the enabled state of all day of week buttons
-     * 
-     * @param enabled true to enable buttons, false to disable
+     * Rebuild what depends on the settings that changed, e.g. after the settings screen saved
      */
-    private void setDayButtonsEnabled(boolean enabled) {
-        findViewById(R.id.buttonMonday).setEnabled(enabled);
-        findViewById(R.id.buttonTuesday).setEnabled(enabled);
-        findViewById(R.id.buttonWednesday).setEnabled(enabled);
-        findViewById(R.id.buttonThursday).setEnabled(enabled);
-        findViewById(R.id.buttonFriday).setEnabled(enabled);
-        findViewById(R.id.buttonSaturday).setEnabled(enabled);
-        findViewById(R.id.buttonSunday).setEnabled(enabled);
+    private void onSettingsChanged(TrainerSettings previous, TrainerSettings current) {
+        settings = current;
+        dayButtons.setCommitOnTouchDown(current.isTouchDownAnswers());
+        
+        // A series keeps its plan; free practice draws from the new range, calendar and filter
+        if (!current.sameQuestions(previous)) {
+            syncDateRange();
+        }
+        
+        // Show the date in the new format, and throw away questions prefetched in the old one
+        if (!current.getDateFormat().equals(previous.getDateFormat()) && session.hasQuestion()) {
+            displayFormattedDate();
+            if (session.isInSeries()) {
+                startPrefetching();
+            }
+        }
     }
     
     /**
-     * Reset all day button appearances to their default state
+     * Bring the anchor table and question strategy in line with the date range, calendar and
+     * strategy from settings
      */
-    private void resetDayButtonAppearances() {
-        Button[] buttons = {
-            findViewById(R.id.buttonMonday),
-            findViewById(R.id.buttonTuesday),
-            findViewById(R.id.buttonWednesday),
-            findViewById(R.id.buttonThursday),
-            findViewById(R.id.buttonFriday),
-            findViewById(R.id.buttonSaturday),
-            findViewById(R.id.buttonSunday)
-        };
+    private void syncDateRange() {
+        int startYear = settings.getStartYear();
+        int endYear = settings.getEndYear();
+        CalendarSystem calendar = settings.getCalendar();
+        
+        // Keep the anchor table in sync with the range; only newly added years are computed,
+        // unless the calendar changed
+        boolean calendarChanged = anchorTable != null && !calendar.equals(anchorTable.getCalendar());
+        if (anchorTable == null || calendarChanged) {
+            anchorTable = YearAnchorTable.build(startYear, endYear, calendar);
+        } else {
+            anchorTable = anchorTable.withRange(startYear, endYear);
+        }
+        questionStrategy = chooseQuestionStrategy(startYear, endYear, calendar, calendarChanged);
         
-        for (Button button : buttons) {
-            // Reset to default material button style (purple)
-            button.setBackgroundTintList(androidx.appcompat.content.res.AppCompatResources.getColorStateList(this, R.color.colorPrimary));
+        // Not yet created during the first sync in onCreate
+        if (session != null) {
+            session.setAnchorTable(anchorTable);
+            session.setStrategy(questionStrategy);
         }
     }
     
     /**
-     * Get the button ID for a given day of week constant
-     * 
-     * @param dayOfWeek The Calendar constant for the day
-     * @return The resource ID of the corresponding button
+     * Get the question strategy for the settings, reusing the current one where possible
      */
-    private int getButtonIdForDay(int dayOfWeek) {
-        switch (dayOfWeek) {
-            case SUNDAY: return R.id.buttonSunday;
-            case MONDAY: return R.id.buttonMonday;
-            case TUESDAY: return R.id.buttonTuesday;
-            case WEDNESDAY: return R.id.buttonWednesday;
-            case THURSDAY: return R.id.buttonThursday;
-            case FRIDAY: return R.id.buttonFriday;
-            case SATURDAY: return R.id.buttonSaturday;
-            default: return R.id.buttonMonday; // fallback
+    private QuestionStrategy chooseQuestionStrategy(int startYear, int endYear, CalendarSystem calendar,
+                                                    boolean calendarChanged) {
+        // Drill filters take precedence over the question selection, once their index is ready
+        DateFilter filter = settings.getFilter();
+        if (!filter.isUnfiltered()) {
+            FilteredDateSampler sampler = getFilteredSampler(startYear, endYear, filter, calendar);
+            if (sampler != null) {
+                return sampler;
+            }
         }
+        
+        // Either draw a day uniformly from the whole range, so every date is equally likely,
+        // or favour the kinds of dates the user gets wrong
+        String strategyName = settings.getQuestionStrategy();
+        if (questionStrategy == null || questionStrategy instanceof FilteredDateSampler
+                || calendarChanged || !strategyName.equals(questionStrategyName)) {
+            questionStrategyName = strategyName;
+            if (SettingsActivity.STRATEGY_WEAK_SPOTS.equals(strategyName)) {
+                WeakSpotSampler sampler = new WeakSpotSampler(random, startYear, endYear, calendar);
+                backgroundExecutor.execute(() -> sampler.seed(weakSpotStore.snapshot()));
+                return sampler;
+            }
+            return new DateSampler(random, startYear, endYear, calendar);
+        }
+        questionStrategy.setRange(startYear, endYear);
+        return questionStrategy;
     }
     
     /**
-     * Highlight a button with the specified color
+     * Get the sampler for filtered drills, starting to build its index in the background
+     * if the range, filter or calendar changed
      * 
-     * @param buttonId The resource ID of the button to highlight
-     * @param colorRes The color resource ID to use for highlighting
+     * @return The sampler, or null if the index isn't ready or no date matches the filter
      */
-    private void highlightButton(int buttonId, int colorRes) {
-        Button button = findViewById(buttonId);
-        button.setBackgroundTintList(androidx.appcompat.content.res.AppCompatResources.getColorStateList(this, colorRes));
+    private FilteredDateSampler getFilteredSampler(int startYear, int endYear, DateFilter filter,
+                                                   CalendarSystem calendar) {
+        if (startYear == indexStartYear && endYear == indexEndYear && filter.equals(indexFilter)
+                && calendar.equals(indexCalendar)) {
+            return filteredSampler;
+        }
+        indexStartYear = startYear;
+        indexEndYear = endYear;
+        indexFilter = filter;
+        indexCalendar = calendar;
+        filteredSampler = null;
+        
+        if ((long) endYear - startYear + 1 > DateIndex.MAX_YEARS) {
+            Toast.makeText(this, getString(R.string.filter_range_too_wide, DateIndex.MAX_YEARS), Toast.LENGTH_LONG).show();
+            return null;
+        }
+        backgroundExecutor.execute(() -> {
+            long buildStart = SystemClock.elapsedRealtimeNanos();
+            DateIndex index = DateIndex.build(startYear, endYear, filter, calendar);
+            long buildMillis = (SystemClock.elapsedRealtimeNanos() - buildStart) / 1_000_000;
+            Log.i(TAG, "Indexed " + index.count() + " dates in " + buildMillis + " ms ("
+                    + index.footprintBytes() + " bytes)");
+            runOnUiThread(() -> onDateIndexBuilt(index, buildMillis));
+        });
+        return null;
     }
-
+    
     /**
-     * Generate a random date using the date range from settings
+     * Start using a freshly built drill index, unless the settings changed again meanwhile
      */
-    private void generateRandomDate() {
-        currentDate = Calendar.getInstance();
-        
-        // Get date range from preferences
-        int startYear = preferences.getInt(SettingsActivity.KEY_START_YEAR, SettingsActivity.DEFAULT_START_YEAR);
-        int endYear = preferences.getInt(SettingsActivity.KEY_END_YEAR, SettingsActivity.DEFAULT_END_YEAR);
-        
-        // Calculate the range
-        int yearRange = endYear - startYear + 1;
-        
-        // Generate random year between startYear and endYear
-        int year = startYear + random.nextInt(yearRange);
-        
-        // Generate random month (0-11 in Calendar)
-        int month = random.nextInt(12);
-        
-        // Determine maximum day for the month
-        currentDate.set(year, month, 1);
-        int maxDay = currentDate.getActualMaximum(Calendar.DAY_OF_MONTH);
-        
-        // Generate random day (1-maxDay)
-        int day = 1 + random.nextInt(maxDay);
-        
-        // Set the random date
-        currentDate.set(year, month, day);
+    private void onDateIndexBuilt(DateIndex index, long buildMillis) {
+        if (isDestroyed() || index.getStartYear() != indexStartYear || index.getEndYear() != indexEndYear
+                || !index.getFilter().equals(indexFilter) || !index.getCalendar().equals(indexCalendar)) {
+            return;
+        }
+        if (index.count() == 0) {
+            Toast.makeText(this, R.string.filter_no_dates, Toast.LENGTH_LONG).show();
+            return;
+        }
+        filteredSampler = new FilteredDateSampler(random, index);
+        Toast.makeText(this, getString(R.string.filter_index_ready, index.count(), buildMillis), Toast.LENGTH_SHORT).show();
         
-        // Display the date in the selected format
-        displayFormattedDate();
+        // Replace the unfiltered questions asked while the index was being built; a series
+        // keeps asking the questions of its plan
+        syncDateRange();
+        if (!session.isInSeries() && !keepQuestion) {
+            generateRandomDate();
+            textViewResult.setText("");
+        }
+    }
+    
+    /**
+     * Show a question that was generated ahead of time
+     * 
+     * @param question The question to show
+     */
+    private void showQuestion(Question question) {
+        // Text measured on the prefetch thread can be applied without another layout pass,
+        // as long as the view's text settings haven't changed since
+        CharSequence text = question.getDisplayText();
+        if (text instanceof PrecomputedTextCompat
+                && ((PrecomputedTextCompat) text).getParams().equals(TextViewCompat.getTextMetricsParams(textViewDate))) {
+            TextViewCompat.setPrecomputedText(textViewDate, (PrecomputedTextCompat) text);
+        } else {
+            textViewDate.setText(text);
+        }
+        session.showQuestion(question.getYear(), question.getMonth(), question.getDay());
     }
     
     /**
-     * Format and display the date according to settings
+     * (Re)start prefetching the rest of the series, unless the prefetcher is already
+     * working from the current settings
+     */
+    private void startPrefetching() {
+        SeriesPlan plan = session.getSeriesPlan();
+        QuestionPrefetcher.QuestionFactory current = prefetcher.getFactory();
+        if (current instanceof SeriesQuestionFactory
+                && ((SeriesQuestionFactory) current).matches(plan, dateFormatter)) {
+            return;
+        }
+        SeriesQuestionFactory factory = new SeriesQuestionFactory(getResources(), plan, dateFormatter,
+                TextViewCompat.getTextMetricsParams(textViewDate));
+        prefetcher.start(factory, session.getSeriesIndex() + 1, session.getSeriesCount());
+    }
+    
+    /**
+     * Format and display the date according to settings, followed by the progress in series mode
      */
     private void displayFormattedDate() {
-        // Get selected date format from preferences
-        String formatPattern = preferences.getString(
-                SettingsActivity.KEY_DATE_FORMAT, 
-                SettingsActivity.DEFAULT_FORMAT
-        );
+        String formatPattern = settings.getDateFormat();
+        
+        // Compile the pattern once and reuse it until the format or locale changes
+        Locale locale = Locale.getDefault();
+        if (dateFormatter == null || !dateFormatter.matches(formatPattern, locale)) {
+            dateFormatter = DateFormatter.compile(formatPattern, locale);
+        }
         
         // Format the date
-        SimpleDateFormat dateFormat = new SimpleDateFormat(formatPattern, Locale.getDefault());
-        String dateString = dateFormat.format(currentDate.getTime());
-        textViewDate.setText(dateString);
+        dateText.setLength(0);
+        dateFormatter.format(session.getYear(), session.getMonth(), session.getDay(), dateText);
+        
+        // Set the whole text at once so the view is only measured once
+        if (session.isInSeries()) {
+            String progressText = getString(R.string.series_progress, session.getSeriesIndex() + 1,
+                    session.getSeriesCount());
+            textViewDate.setText(getString(R.string.date_with_progress, dateText, progressText));
+        } else {
+            textViewDate.setText(dateText);
+        }
+    }
+
+    /**
+     * Answer with the keyboard: 1-7 for Monday to Sunday, or M T W R F S U, e.g. on tablets and
+     * Chromebooks. Answers on key down, and only to the first event of a key held down.
+     */
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event) {
+        int day = DayButtonController.dayForKey(keyCode);
+        if (day != 0 && event.getRepeatCount() == 0 && event.hasNoModifiers()) {
+            if (dayButtons.isEnabled()) {
+                checkGuess(day, event.getEventTime());
+            }
+            return true;
+        }
+        return super.onKeyDown(keyCode, event);
     }
 
     /**
      * Check if the guessed day matches the actual day of the week
      * 
      * @param guessedDay The Calendar constant for the guessed day
+     * @param eventUptimeMillis When the touch or key event that gave the answer happened
      */
-    private void checkGuess(int guessedDay) {
-        int actualDay = currentDate.get(Calendar.DAY_OF_WEEK);
-        
-        // Get the name of the day for display
-        String[] dayNames = new String[] {
-                "", // Calendar days are 1-based
-                getString(R.string.day_sunday),
-                getString(R.string.day_monday),
-                getString(R.string.day_tuesday),
-                getString(R.string.day_wednesday),
-                getString(R.string.day_thursday),
-                getString(R.string.day_friday),
-                getString(R.string.day_saturday)
-        };
-        
-        String actualDayName = dayNames[actualDay];
-        boolean isCorrect = (guessedDay == actualDay);
-        
-        // Disable day buttons during the result display (both modes)
-        setDayButtonsEnabled(false);
-        
-        // Always highlight the correct answer in green
-        int correctButtonId = getButtonIdForDay(actualDay);
-        highlightButton(correctButtonId, R.color.colorCorrect);
-        
-        // If the guess was wrong, also highlight the selected button in red
-        if (!isCorrect) {
-            int selectedButtonId = getButtonIdForDay(guessedDay);
-            highlightButton(selectedButtonId, R.color.colorIncorrect);
+    private void checkGuess(int guessedDay, long eventUptimeMillis) {
+        // The think time ends when the finger or key went down, not when the event got here;
+        // the session moves the series on to the next question
+        long latencyNanos = Math.max(0, SystemClock.uptimeMillis() - eventUptimeMillis) * 1_000_000;
+        syncAnswerCalendar();
+        session.answer(guessedDay, SystemClock.elapsedRealtimeNanos() - latencyNanos);
+        if (session.isInSeries()) {
+            inputLatency.record(latencyNanos);
         }
+        int actualDay = session.getLastActualDay();
         
-        // Pause the timer while showing result (only in series mode)
-        if (inSeriesMode && timerRunning) {
-            pauseTimer();
-        }
+        // Hand the answer to the background thread for the statistics and the answer log
+        backgroundExecutor.execute(drainThinkTimes);
         
-        if (isCorrect) {
-            // Correct guess
-            textViewResult.setText(getString(R.string.correct_guess, actualDayName));
-            textViewResult.setTextColor(ContextCompat.getColor(this, R.color.colorCorrect));
-            if (inSeriesMode) correctGuessCount++;
-        } else {
-            // Incorrect guess
-            textViewResult.setText(getString(R.string.incorrect_guess, actualDayName));
-            textViewResult.setTextColor(ContextCompat.getColor(this, R.color.colorIncorrect));
-        }
+        // Highlight the correct answer in green and a wrong guess in red, and disable the
+        // buttons while the result is shown (both modes)
+        dayButtons.showAnswer(guessedDay, actualDay);
         
-        // Handle series mode progression
-        if (inSeriesMode) {
-            currentSeriesIndex++;
+        // Move on once the feedback has been shown: to the next date or the results in series
+        // mode, or to another try at the same date in normal mode
+        if (session.isInSeries()) {
             saveSeriesState();
-            
-            if (currentSeriesIndex >= seriesCount) {
-                // Series complete - show results after delay
-                textViewResult.postDelayed(() -> {
-                    finishSeriesMode();
-                }, 1500); // 1.5 second delay
-            } else {
-                // Continue with next date after a brief delay
-                textViewResult.postDelayed(() -> {
-                    generateRandomDate();
-                    textViewResult.setText("");
-                    // Update progress
-                    String dateText = textViewDate.getText().toString().split("\n")[0]; // Get just the date part
-                    String progressText = getString(R.string.series_progress, currentSeriesIndex + 1, seriesCount);
-                    textViewDate.setText(getString(R.string.date_with_progress, dateText, progressText));
-                    
-                    // Reset button appearances and re-enable day buttons for the next date
-                    resetDayButtonAppearances();
-                    setDayButtonsEnabled(true);
-                    
-                    // Resume timer for the new date
-                    resumeTimer();
-                }, 1500); // 1.5 second delay
+            scheduler.schedule(session.isSeriesComplete() ? TRANSITION_FINISH_SERIES : TRANSITION_NEXT_QUESTION,
+                    settings.getFeedbackDelayMillis());
+        } else if (sprint != null) {
+            // Answers in the last frame before the countdown ends don't count
+            if (!sprint.isOver(System.nanoTime())) {
+                sprint.record(guessedDay == actualDay);
             }
+            scheduler.schedule(TRANSITION_NEXT_SPRINT_QUESTION, settings.getFeedbackDelayMillis());
         } else {
-            // Normal mode - just reset buttons after delay
-            textViewResult.postDelayed(() -> {
-                resetDayButtonAppearances();
-                setDayButtonsEnabled(true);
-            }, 1500); // 1.5 second delay
+            scheduler.schedule(TRANSITION_RETRY, settings.getFeedbackDelayMillis());
+        }
+    }
+    
+    /**
+     * Tell the statistics which calendar the answers are checked in, when it changed. Queued
+     * behind the answers already handed over, so each answer is counted in its own calendar.
+     */
+    private void syncAnswerCalendar() {
+        YearAnchorTable table = session.isInSeries()
+                ? session.getSeriesPlan().getAnchorTable() : session.getAnchorTable();
+        CalendarSystem calendar = table.getCalendar();
+        if (!calendar.equals(answerCalendar)) {
+            answerCalendar = calendar;
+            backgroundExecutor.execute(() -> thinkTimeCollector.setCalendar(calendar));
+        }
+    }
+    
+    /**
+     * Carry out a transition scheduled after an answer
+     * 
+     * @param transition One of the TRANSITION constants
+     */
+    private void onTransition(int transition) {
+        switch (transition) {
+            case TRANSITION_FINISH_SERIES:
+                finishSeriesMode();
+                break;
+            case TRANSITION_NEXT_QUESTION:
+                // Use the prefetched question; only generate one here if it isn't ready yet
+                Question next = prefetcher.poll(session.getSeriesIndex());
+                if (next != null) {
+                    showQuestion(next);
+                } else {
+                    generateRandomDate();
+                }
+                // In rapid fire the result stays up until the next answer, as it was never seen
+                if (settings.getFeedbackDelayMillis() > 0) {
+                    textViewResult.setText("");
+                }
+                
+                // Reset button appearances and re-enable day buttons for the next date
+                dayButtons.reset();
+                
+                // Resume timer for the new date
+                session.continueSeries();
+                break;
+            case TRANSITION_NEXT_SPRINT_QUESTION:
+                generateRandomDate();
+                if (settings.getFeedbackDelayMillis() > 0) {
+                    textViewResult.setText("");
+                }
+                dayButtons.reset();
+                break;
+            case TRANSITION_RETRY:
+                // Time the next try at the same date
+                dayButtons.reset();
+                session.retryQuestion();
+                break;
+            default:
+                break;
         }
     }
     
     /**
      * Start a new series session
+     * 
+     * @param plan The questions of the series
      */
-    private void startSeriesMode() {
-        // Get series count from preferences
-        seriesCount = preferences.getInt(SettingsActivity.KEY_SERIES_COUNT, SettingsActivity.DEFAULT_SERIES_COUNT);
+    private void startSeriesMode(SeriesPlan plan) {
+        // Drop the feedback of a free practice answer
+        scheduler.cancel();
         
-        // Reset counters
-        currentSeriesIndex = 0;
-        correctGuessCount = 0;
-        inSeriesMode = true;
-        elapsedTimeMillis = 0;
-        timerRunning = true;
-        timeWhenPaused = SystemClock.elapsedRealtime();
+        // Reset counters and start the timer
+        session.startSeries(plan);
+        backgroundExecutor.execute(() -> thinkTimeCollector.reset());
+        inputLatency.clear();
         
-        // Generate first date
+        // Generate first date (with the progress indicator, as we are now in series mode)
         generateRandomDate();
         textViewResult.setText("");
         
         // Update UI for series mode
-        String dateText = textViewDate.getText().toString();
-        String progressText = getString(R.string.series_progress, currentSeriesIndex + 1, seriesCount);
-        textViewDate.setText(getString(R.string.date_with_progress, dateText, progressText));
         buttonStartSeries.setEnabled(false);
         
         // Ensure day buttons are enabled and reset appearances
-        resetDayButtonAppearances();
-        setDayButtonsEnabled(true);
+        dayButtons.reset();
         
-        // Save the state to SharedPreferences
+        // Prepare the following dates in the background
+        startPrefetching();
+        
+        // Save the state to the checkpoint store
         saveSeriesState();
     }
     
     /**
-     * Save the current series mode state to SharedPreferences
+     * Save the current series mode state to the checkpoint store. Cheap to call often:
+     * the store coalesces saves into a single background write.
      */
     private void saveSeriesState() {
-        if (!inSeriesMode) {
+        if (!session.isInSeries()) {
             // If not in series mode, just clear any existing state
-            SharedPreferences.Editor editor = preferences.edit();
-            editor.remove(KEY_IN_SERIES_MODE);
-            editor.remove(KEY_SERIES_COUNT);
-            editor.remove(KEY_CURRENT_INDEX);
-            editor.remove(KEY_CORRECT_COUNT);
-            editor.remove(KEY_ELAPSED_TIME);
-            editor.remove(KEY_TIMER_RUNNING);
-            editor.apply();
+            checkpointStore.clear();
             return;
         }
         
-        // Update elapsed time if timer is running
-        if (timerRunning) {
-            updateElapsedTime();
-        }
+        checkpointStore.save(session.getSeriesCount(), session.getSeriesIndex(), session.getCorrectCount(),
+                session.getElapsedMillis(), session.isTimerRunning(), session.getSeriesPlan().getSpec());
+    }
+    
+    /**
+     * Plan a new series from the settings, with a fresh seed
+     * 
+     * @param count The number of questions
+     * @return The plan
+     */
+    private SeriesPlan newSeriesPlan(int count) {
+        int startYear = settings.getStartYear();
+        int endYear = settings.getEndYear();
+        CalendarSystem calendar = settings.getCalendar();
+        DateFilter filter = settings.getFilter();
+        long seed = random.nextLong();
         
-        SharedPreferences.Editor editor = preferences.edit();
-        editor.putBoolean(KEY_IN_SERIES_MODE, inSeriesMode);
-        editor.putInt(KEY_SERIES_COUNT, seriesCount);
-        editor.putInt(KEY_CURRENT_INDEX, currentSeriesIndex);
-        editor.putInt(KEY_CORRECT_COUNT, correctGuessCount);
-        editor.putLong(KEY_ELAPSED_TIME, elapsedTimeMillis);
-        editor.putBoolean(KEY_TIMER_RUNNING, timerRunning);
-        editor.apply();
+        // Drill filters that free practice can't use either are left out
+        if ((long) endYear - startYear + 1 <= DateIndex.MAX_YEARS) {
+            SeriesPlan plan = createSeriesPlan(new SeriesSpec(seed, count, startYear, endYear, calendar, filter));
+            if (plan != null) {
+                return plan;
+            }
+        }
+        return createSeriesPlan(new SeriesSpec(seed, count, startYear, endYear, calendar, DateFilter.NONE));
     }
     
     /**
-     * Restore the series mode state from SharedPreferences
+     * Prepare the questions of a series in the settings' range, reusing the anchor table and the
+     * drill index where they fit. An index that isn't ready is built here; for any range drills
+     * allow that takes a few milliseconds at most.
+     * 
+     * @param spec The series
+     * @return The plan, or null if no date matches the spec's drill filter
      */
-    private void restoreSeriesState() {
-        inSeriesMode = preferences.getBoolean(KEY_IN_SERIES_MODE, false);
+    private SeriesPlan createSeriesPlan(SeriesSpec spec) {
+        return createSeriesPlan(spec, anchorTable, filteredSampler != null ? filteredSampler.getIndex() : null);
+    }
+    
+    private static SeriesPlan createSeriesPlan(SeriesSpec spec, YearAnchorTable anchorTable, DateIndex index) {
+        try {
+            return SeriesPlan.create(spec, anchorTable, index);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Cannot plan series " + spec, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Told that a series' questions are ready
+     */
+    private interface PlanCallback {
+        /**
+         * @param plan The plan, or null if no date matches the spec's drill filter
+         */
+        void onPlanned(SeriesPlan plan);
+    }
+    
+    /**
+     * Prepare the questions of a series from elsewhere, a challenge code or a checkpoint, on the
+     * background thread. Such a spec may cover millions of years outside the settings' range,
+     * and building the anchor table and drill index for those would stall the screen.
+     * 
+     * @param spec The series
+     * @param callback Gets the plan on the main thread, unless the activity is gone by then
+     */
+    private void planSeries(SeriesSpec spec, PlanCallback callback) {
+        YearAnchorTable table = anchorTable;
+        DateIndex index = filteredSampler != null ? filteredSampler.getIndex() : null;
+        backgroundExecutor.execute(() -> {
+            SeriesPlan plan = createSeriesPlan(spec, table, index);
+            runOnUiThread(() -> {
+                if (!isDestroyed()) {
+                    callback.onPlanned(plan);
+                }
+            });
+        });
+    }
+    
+    /**
+     * Share the current series as a challenge code, so someone else can play the same questions
+     */
+    private void shareChallenge() {
+        if (!session.isInSeries()) {
+            Toast.makeText(this, R.string.challenge_no_series, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/plain");
+        intent.putExtra(Intent.EXTRA_TEXT,
+                getString(R.string.challenge_share_text, session.getSeriesPlan().getSpec().toCode()));
+        startActivity(Intent.createChooser(intent, getString(R.string.share_challenge)));
+    }
+    
+    /**
+     * Show how long the latest start of this screen took
+     */
+    private void showStartupReport() {
+        StartupTimer timer = StartupTimer.getLatest();
+        if (timer == null) {
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.startup_report)
+                .setMessage(timer.formatReport(this))
+                .setPositiveButton(android.R.string.ok, null)
+                .show();
+    }
+    
+    /**
+     * Ask for a challenge code and start its series
+     */
+    private void enterChallenge() {
+        if (sprint != null) {
+            Toast.makeText(this, R.string.sprint_running, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (session.isInSeries()) {
+            Toast.makeText(this, R.string.challenge_series_running, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        EditText input = new EditText(this);
+        input.setHint(R.string.challenge_code_hint);
+        input.setSingleLine(true);
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.enter_challenge)
+                .setView(input)
+                .setPositiveButton(android.R.string.ok, (dialog, which) -> {
+                    SeriesSpec spec = SeriesSpec.fromCode(input.getText().toString());
+                    if (spec == null || spec.getCount() > SettingsActivity.MAX_SERIES_COUNT) {
+                        Toast.makeText(this, R.string.invalid_challenge_code, Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    planSeries(spec, plan -> {
+                        if (plan == null) {
+                            Toast.makeText(this, R.string.invalid_challenge_code, Toast.LENGTH_SHORT).show();
+                        } else if (!session.isInSeries() && sprint == null) {
+                            startSeriesMode(plan);
+                        }
+                    });
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+    
+    /**
+     * Carry on from a snapshot saved by this process, e.g. before a rotation: the same date,
+     * series progress and sprint, without reading the disk
+     */
+    private void restoreSnapshot(SessionSnapshot snapshot) {
+        // A series' plan gives the date it was on from its index; until it is ready the date
+        // is shown without taking answers
+        SeriesCheckpoint checkpoint = snapshot.getSeriesCheckpoint();
+        if (checkpoint != null) {
+            if (snapshot.hasQuestion()) {
+                session.showQuestion(snapshot.getYear(), snapshot.getMonth(), snapshot.getDay());
+                displayFormattedDate();
+                dayButtons.setEnabled(false);
+            } else {
+                generateRandomDate();
+            }
+            buttonStartSeries.setEnabled(false);
+            restoreSeriesState(checkpoint);
+            return;
+        }
         
-        if (inSeriesMode) {
-            // Restore all series state
-            seriesCount = preferences.getInt(KEY_SERIES_COUNT, 10);
-            currentSeriesIndex = preferences.getInt(KEY_CURRENT_INDEX, 0);
-            correctGuessCount = preferences.getInt(KEY_CORRECT_COUNT, 0);
-            elapsedTimeMillis = preferences.getLong(KEY_ELAPSED_TIME, 0);
-            timerRunning = preferences.getBoolean(KEY_TIMER_RUNNING, false);
-            
-            // Initialize timer
-            timeWhenPaused = SystemClock.elapsedRealtime();
-            
-            // Generate the current date with progress indicator
-            generateRandomDate();
-            String dateText = textViewDate.getText().toString();
-            String progressText = getString(R.string.series_progress, currentSeriesIndex + 1, seriesCount);
-            textViewDate.setText(getString(R.string.date_with_progress, dateText, progressText));
-            textViewResult.setText("");
-            
-            // Disable series start button
+        sprint = snapshot.getSprint();
+        if (sprint != null) {
+            sprintCountdown.setSprint(sprint);
+            textViewCountdown.setVisibility(View.VISIBLE);
+            buttonNewDate.setEnabled(false);
             buttonStartSeries.setEnabled(false);
-            
-            // Enable day buttons and reset appearances
-            resetDayButtonAppearances();
-            setDayButtonsEnabled(true);
+        }
+        
+        // A sprint moves on from an answered date; free practice tries it again
+        if (snapshot.hasQuestion() && !(sprint != null && snapshot.isAnswered())) {
+            session.showQuestion(snapshot.getYear(), snapshot.getMonth(), snapshot.getDay());
+            displayFormattedDate();
+            keepQuestion = true;
+        } else {
+            generateRandomDate();
         }
     }
     
     /**
-     * Pause the series timer
+     * Restore the series mode state from a checkpoint, once its questions are planned
+     * 
+     * @param checkpoint The saved series, or null if none was running
      */
-    private void pauseTimer() {
-        if (timerRunning) {
-            updateElapsedTime();
-            timerRunning = false;
+    private void restoreSeriesState(SeriesCheckpoint checkpoint) {
+        if (checkpoint == null) {
+            return;
+        }
+        // A decoded spec is within SeriesSpec's year bounds, so planning it can't exhaust the
+        // memory, but it may take a while
+        if (checkpoint.getSpec() != null) {
+            planSeries(checkpoint.getSpec(), plan -> resumeSeries(checkpoint, plan));
+        } else {
+            resumeSeries(checkpoint, null);
         }
     }
     
     /**
-     * Resume the series timer
+     * Carry on with a saved series
+     * 
+     * @param checkpoint The saved series
+     * @param plan Its questions, or null to plan new ones for the rest of the series
      */
-    private void resumeTimer() {
-        if (!timerRunning) {
-            timeWhenPaused = SystemClock.elapsedRealtime();
-            timerRunning = true;
+    private void resumeSeries(SeriesCheckpoint checkpoint, SeriesPlan plan) {
+        if (session.isInSeries() || sprint != null) {
+            return; // Something else was started while the plan was being made
+        }
+        // Restore all series state; the timer runs from the new question. A checkpoint from
+        // before series had seeds gets new questions for the rest of the series.
+        if (plan == null) {
+            plan = newSeriesPlan(checkpoint.getSeriesCount());
         }
+        // Drop the feedback of a free practice answer given meanwhile
+        scheduler.cancel();
+        session.restoreSeries(checkpoint, plan);
+        // Times of questions answered before the activity was recreated are not kept
+        backgroundExecutor.execute(() -> thinkTimeCollector.reset());
+        inputLatency.clear();
+        
+        // Enable day buttons and reset appearances
+        dayButtons.reset();
+        
+        // Saved during the feedback for the last answer: go straight to the results
+        if (session.isSeriesComplete()) {
+            scheduler.schedule(TRANSITION_FINISH_SERIES, 0);
+            return;
+        }
+        
+        // Show the question the series was saved on, with progress indicator
+        generateRandomDate();
+        textViewResult.setText("");
+        
+        // Disable series start button
+        buttonStartSeries.setEnabled(false);
+        
+        // Prepare the following dates in the background
+        startPrefetching();
     }
     
     /**
-     * Update the elapsed time based on the current timer state
+     * Start a sprint: free practice questions, each asked once, until the time runs out
      */
-    private void updateElapsedTime() {
-        if (timerRunning) {
-            long currentTime = SystemClock.elapsedRealtime();
-            elapsedTimeMillis += (currentTime - timeWhenPaused);
-            timeWhenPaused = currentTime;
+    private void startSprint() {
+        if (session.isInSeries()) {
+            Toast.makeText(this, R.string.sprint_series_running, Toast.LENGTH_SHORT).show();
+            return;
         }
+        if (sprint != null) {
+            return;
+        }
+        // Drop the feedback of a free practice answer
+        scheduler.cancel();
+        
+        sprint = new Sprint(SPRINT_DURATION_NANOS, System.nanoTime());
+        sprintCountdown.setSprint(sprint);
+        textViewCountdown.setVisibility(View.VISIBLE);
+        buttonNewDate.setEnabled(false);
+        buttonStartSeries.setEnabled(false);
+        
+        generateRandomDate();
+        textViewResult.setText("");
+        dayButtons.reset();
+        sprintCountdown.start();
+    }
+    
+    /**
+     * End the sprint once its time is up, and show how many dates were done
+     */
+    private void finishSprint() {
+        Sprint finished = sprint;
+        sprint = null;
+        sprintCountdown.setSprint(null);
+        
+        // Drop the feedback of the last answer and go back to free practice
+        scheduler.cancel();
+        textViewCountdown.setVisibility(View.GONE);
+        buttonNewDate.setEnabled(true);
+        buttonStartSeries.setEnabled(checkpointStore != null);
+        dayButtons.reset();
+        textViewResult.setText("");
+        generateRandomDate();
+        
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(finished.getDurationNanos());
+        int answerCount = finished.getAnswerCount();
+        Intent intent = new Intent(this, SeriesResultsActivity.class);
+        intent.putExtra(SeriesResultsActivity.EXTRA_SPRINT, true);
+        intent.putExtra(SeriesResultsActivity.EXTRA_TOTAL_TIME, durationMillis);
+        intent.putExtra(SeriesResultsActivity.EXTRA_AVERAGE_TIME, answerCount > 0 ? durationMillis / answerCount : 0);
+        intent.putExtra(SeriesResultsActivity.EXTRA_CORRECT_COUNT, finished.getCorrectCount());
+        intent.putExtra(SeriesResultsActivity.EXTRA_TOTAL_COUNT, answerCount);
+        startActivity(intent);
     }
     
     /**
      * Finish series mode and show results
      */
     private void finishSeriesMode() {
-        // Make sure we have the final elapsed time
-        if (timerRunning) {
-            updateElapsedTime();
-        }
-        
-        long totalTime = elapsedTimeMillis;
-        long averageTime = totalTime / seriesCount;
+        // Stop the timer and go back to free practice
+        SeriesCheckpoint result = session.finishSeries();
+        long totalTime = result.getElapsedTimeMillis();
+        long averageTime = totalTime / result.getSeriesCount();
         
-        // Reset mode
-        inSeriesMode = false;
-        timerRunning = false;
+        prefetcher.stop();
         buttonStartSeries.setEnabled(true);
         
         // Make sure day buttons are enabled and reset appearances
-        resetDayButtonAppearances();
-        setDayButtonsEnabled(true);
+        dayButtons.reset();
         
         // Clear saved state
         saveSeriesState();
         
-        // Start results activity
-        Intent intent = new Intent(this, SeriesResultsActivity.class);
-        intent.putExtra(SeriesResultsActivity.EXTRA_TOTAL_TIME, totalTime);
-        intent.putExtra(SeriesResultsActivity.EXTRA_AVERAGE_TIME, averageTime);
-        intent.putExtra(SeriesResultsActivity.EXTRA_CORRECT_COUNT, correctGuessCount);
-        intent.putExtra(SeriesResultsActivity.EXTRA_TOTAL_COUNT, seriesCount);
-        startActivity(intent);
+        // Collect the remaining think times on the background thread, then show the results
+        final int correctCount = result.getCorrectCount();
+        final int totalCount = result.getSeriesCount();
+        final byte[] inputLatencyHistogram = inputLatency.toByteArray();
+        if (inputLatency.getCount() > 0) {
+            Log.i(TAG, "Input latency: median " + inputLatency.quantileNanos(0.5) / 1000
+                    + " us, 99% " + inputLatency.quantileNanos(0.99) / 1000 + " us, max "
+                    + inputLatency.getMaxNanos() / 1000 + " us");
+        }
+        backgroundExecutor.execute(() -> {
+            thinkTimeRecorder.drain(thinkTimeCollector);
+            long[] thinkTimes = thinkTimeCollector.toArray();
+            byte[] histogram = thinkTimeCollector.histogram.toByteArray();
+            
+            // Fold the series into the all-time statistics
+            LatencyHistogram lifetime = lifetimeLatencyStore.load();
+            lifetime.add(thinkTimeCollector.histogram);
+            lifetimeLatencyStore.save(lifetime);
+            byte[] lifetimeHistogram = lifetime.toByteArray();
+            
+            runOnUiThread(() -> {
+                if (isDestroyed()) {
+                    return;
+                }
+                // Start results activity
+                Intent intent = new Intent(this, SeriesResultsActivity.class);
+                intent.putExtra(SeriesResultsActivity.EXTRA_TOTAL_TIME, totalTime);
+                intent.putExtra(SeriesResultsActivity.EXTRA_AVERAGE_TIME, averageTime);
+                intent.putExtra(SeriesResultsActivity.EXTRA_CORRECT_COUNT, correctCount);
+                intent.putExtra(SeriesResultsActivity.EXTRA_TOTAL_COUNT, totalCount);
+                intent.putExtra(SeriesResultsActivity.EXTRA_THINK_TIMES, thinkTimes);
+                intent.putExtra(SeriesResultsActivity.EXTRA_HISTOGRAM, histogram);
+                intent.putExtra(SeriesResultsActivity.EXTRA_LIFETIME_HISTOGRAM, lifetimeHistogram);
+                intent.putExtra(SeriesResultsActivity.EXTRA_INPUT_LATENCY, inputLatencyHistogram);
+                startActivity(intent);
+            });
+        });
         
         // Generate a new date for regular mode
         generateRandomDate();
     }
+    
+    /**
+     * Runs the quiz session on the device's clocks
+     */
+    private static final class DeviceClock implements QuizSession.Clock {
+        @Override
+        public long elapsedNanos() {
+            return SystemClock.elapsedRealtimeNanos();
+        }
+        
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    }
+    
+    /**
+     * Writes drained answers to the answer log and weak-spot statistics, and collects the think
+     * times of the current series. Only used on the background thread.
+     */
+    private static final class ThinkTimeCollector implements ThinkTimeRecorder.Sink {
+        private final AnswerHistory answerHistory;
+        private final WeakSpotStore weakSpotStore;
+        private final long[] thinkNanos = new long[SettingsActivity.MAX_SERIES_COUNT];
+        private int count;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        private CalendarSystem calendar = CalendarSystem.GREGORIAN;
+        
+        ThinkTimeCollector(AnswerHistory answerHistory, WeakSpotStore weakSpotStore) {
+            this.answerHistory = answerHistory;
+            this.weakSpotStore = weakSpotStore;
+        }
+        
+        @Override
+        public void accept(int questionIndex, long thinkNanos, long date, int guessedDay, int actualDay,
+                           long sessionId, long timestampMillis) {
+            int year = EpochDay.year(date);
+            int month = EpochDay.month(date);
+            // Statistics first: when they are first loaded they catch up from the log
+            weakSpotStore.record(year, month, calendar, guessedDay, actualDay, thinkNanos);
+            answerHistory.append(timestampMillis, sessionId, thinkNanos, year, month,
+                    EpochDay.day(date), guessedDay, actualDay);
+            if (questionIndex < 0) {
+                return; // Free practice, not part of a series
+            }
+            if (count < this.thinkNanos.length) {
+                this.thinkNanos[count++] = thinkNanos;
+            }
+            histogram.record(thinkNanos);
+        }
+        
+        /**
+         * Set the calendar the following answers were checked in
+         */
+        void setCalendar(CalendarSystem calendar) {
+            this.calendar = calendar;
+        }
+        
+        void reset() {
+            count = 0;
+            histogram.clear();
+        }
+        
+        long[] toArray() {
+            long[] result = new long[count];
+            System.arraycopy(thinkNanos, 0, result, 0, count);
+            return result;
+        }
+    }
+    
+    /**
+     * Creates series questions on the prefetch thread from the series' plan and a fixed copy of
+     * the display settings
+     */
+    private static final class SeriesQuestionFactory implements QuestionPrefetcher.QuestionFactory {
+        private final Resources resources;
+        private final SeriesPlan plan;
+        private final YearAnchorTable anchorTable;
+        private final DateFormatter dateFormatter;
+        private final PrecomputedTextCompat.Params textParams;
+        // Only used on the prefetch thread
+        private final StringBuilder dateText = new StringBuilder(32);
+        
+        SeriesQuestionFactory(Resources resources, SeriesPlan plan, DateFormatter dateFormatter,
+                              PrecomputedTextCompat.Params textParams) {
+            this.resources = resources;
+            this.plan = plan;
+            this.anchorTable = plan.getAnchorTable();
+            this.dateFormatter = dateFormatter;
+            this.textParams = textParams;
+        }
+        
+        /**
+         * Check whether this factory makes the same questions as one built from the given inputs
+         */
+        boolean matches(SeriesPlan plan, DateFormatter dateFormatter) {
+            return this.plan == plan && this.dateFormatter == dateFormatter;
+        }
+        
+        @Override
+        public Question create(int index) {
+            // Any question of the plan can be made directly, without the ones before it
+            long date = plan.dateAt(index);
+            int year = EpochDay.year(date);
+            int month = EpochDay.month(date);
+            int day = EpochDay.day(date);
+            
+            dateText.setLength(0);
+            dateFormatter.format(year, month, day, dateText);
+            String progressText = resources.getString(R.string.series_progress, index + 1,
+                    plan.getSpec().getCount());
+            String displayText = resources.getString(R.string.date_with_progress, dateText, progressText);
+            
+            // Measure the text here rather than on the UI thread when it is shown
+            CharSequence measuredText = PrecomputedTextCompat.create(displayText, textParams);
+            
+            return new Question(index, year, month, day, anchorTable.dayOfWeek(year, month, day), measuredText);
+        }
+    }
 }
@@ -0,0 +1,266 @@
+package froggy.game.doomsdaytrainer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Looper;
+import android.os.Process;
+import android.os.StrictMode;
+import android.util.Log;
+
+import androidx.core.util.AtomicFile;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the series checkpoint to its own small binary file, writing behind the caller.
+ *
+ * {@link #save} only records the latest state in memory and schedules a write; every save
+ * within the coalescing window ends up in a single disk write of the newest state.
+ * {@link #flush()} skips the wait, e.g. when the activity stops. Writes go through an
+ * AtomicFile, so a crash mid-write leaves the previous checkpoint intact.
+ *
+ * Creating the store and the first {@link #load()} read the disk, so both belong on a background
+ * thread; on the main thread {@link #load()} is reported to StrictMode as a slow call. There is
+ * one store per process so that all activity instances share the writer.
+ */
+public final class SeriesCheckpointStore {
+
+    private static final String TAG = "SeriesCheckpointStore";
+    private static final String FILE_NAME = "series_checkpoint.bin";
+    private static final long COALESCE_DELAY_MILLIS = 1000;
+
+    // Keys the checkpoint used to be kept under in SharedPreferences, read once for migration
+    private static final String LEGACY_KEY_IN_SERIES_MODE = "in_series_mode";
+    private static final String LEGACY_KEY_SERIES_COUNT = "series_count_current";
+    private static final String LEGACY_KEY_CURRENT_INDEX = "current_series_index";
+    private static final String LEGACY_KEY_CORRECT_COUNT = "correct_guess_count";
+    private static final String LEGACY_KEY_ELAPSED_TIME = "elapsed_time";
+    private static final String LEGACY_KEY_TIMER_RUNNING = "timer_running";
+
+    private static SeriesCheckpointStore instance;
+
+    private final AtomicFile file;
+    private final SharedPreferences preferences;
+    private final ScheduledExecutorService writer;
+    private final Runnable writeTask = this::writePending;
+    private final byte[] writeBuffer = new byte[SeriesCheckpoint.MAX_ENCODED_SIZE]; // writer thread only
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private boolean loaded;
+    private boolean hasCheckpoint;
+    private boolean dirty;
+    private ScheduledFuture<?> scheduledWrite;
+    private int seriesCount;
+    private int currentIndex;
+    private int correctCount;
+    private long elapsedTimeMillis;
+    private boolean timerRunning;
+    private SeriesSpec spec;
+
+    private SeriesCheckpointStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        preferences = context.getSharedPreferences(SettingsActivity.PREFS_NAME, Context.MODE_PRIVATE);
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "checkpoint-writer"));
+    }
+
+    /**
+     * Get the process-wide store
+     *
+     * @param context Any context; the application context is kept
+     * @return The store
+     */
+    public static synchronized SeriesCheckpointStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new SeriesCheckpointStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Get the saved checkpoint. Reads the disk only the first time; after that the latest
+     * saved state is kept in memory.
+     *
+     * @return The checkpoint, or null if no series is in progress
+     */
+    public SeriesCheckpoint load() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            StrictMode.noteSlowCall("SeriesCheckpointStore.load");
+        }
+        synchronized (lock) {
+            if (!loaded) {
+                SeriesCheckpoint checkpoint = readFile();
+                if (checkpoint == null) {
+                    checkpoint = migrateLegacyPreferences();
+                }
+                if (checkpoint != null) {
+                    setPending(checkpoint.getSeriesCount(), checkpoint.getCurrentIndex(),
+                            checkpoint.getCorrectCount(), checkpoint.getElapsedTimeMillis(),
+                            checkpoint.isTimerRunning(), checkpoint.getSpec());
+                }
+                loaded = true;
+            }
+            if (!hasCheckpoint) {
+                return null;
+            }
+            return new SeriesCheckpoint(seriesCount, currentIndex, correctCount, elapsedTimeMillis, timerRunning,
+                    spec);
+        }
+    }
+
+    /**
+     * Save the state of the series in progress. Returns immediately; the write happens later.
+     * The spec is immutable, so keeping a reference to it is safe.
+     */
+    public void save(int seriesCount, int currentIndex, int correctCount, long elapsedTimeMillis,
+                     boolean timerRunning, SeriesSpec spec) {
+        synchronized (lock) {
+            loaded = true;
+            setPending(seriesCount, currentIndex, correctCount, elapsedTimeMillis, timerRunning, spec);
+            dirty = true;
+            scheduleWrite(COALESCE_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Forget the checkpoint, e.g. when the series is finished. Returns immediately.
+     */
+    public void clear() {
+        synchronized (lock) {
+            loaded = true;
+            hasCheckpoint = false;
+            dirty = true;
+            scheduleWrite(COALESCE_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Write any pending state now instead of waiting for the coalescing window to pass
+     */
+    public void flush() {
+        synchronized (lock) {
+            if (!dirty) {
+                return;
+            }
+            if (scheduledWrite != null && scheduledWrite.cancel(false)) {
+                scheduledWrite = null;
+            }
+            scheduleWrite(0);
+        }
+    }
+
+    private void setPending(int seriesCount, int currentIndex, int correctCount, long elapsedTimeMillis,
+                            boolean timerRunning, SeriesSpec spec) {
+        this.hasCheckpoint = true;
+        this.seriesCount = seriesCount;
+        this.currentIndex = currentIndex;
+        this.correctCount = correctCount;
+        this.elapsedTimeMillis = elapsedTimeMillis;
+        this.timerRunning = timerRunning;
+        this.spec = spec;
+    }
+
+    private void scheduleWrite(long delayMillis) {
+        if (scheduledWrite == null) {
+            scheduledWrite = writer.schedule(writeTask, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write the newest state. Runs on the writer thread.
+     */
+    private void writePending() {
+        boolean write;
+        int length = 0;
+        synchronized (lock) {
+            scheduledWrite = null;
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            write = hasCheckpoint;
+            if (write) {
+                length = SeriesCheckpoint.encode(writeBuffer, seriesCount, currentIndex, correctCount,
+                        elapsedTimeMillis, timerRunning, spec);
+            }
+        }
+
+        if (!write) {
+            file.delete();
+            return;
+        }
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            stream.write(writeBuffer, 0, length);
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save series checkpoint", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private SeriesCheckpoint readFile() {
+        byte[] data = new byte[SeriesCheckpoint.MAX_ENCODED_SIZE + 1]; // one extra to notice oversized files
+        int length = 0;
+        try (FileInputStream in = file.openRead()) {
+            int read;
+            while (length < data.length && (read = in.read(data, length, data.length - length)) > 0) {
+                length += read;
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read series checkpoint", e);
+            return null;
+        }
+        SeriesCheckpoint checkpoint = SeriesCheckpoint.decode(data, length);
+        if (checkpoint == null) {
+            Log.w(TAG, "Discarding corrupt series checkpoint");
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Take over a checkpoint saved by older versions in SharedPreferences, removing the old keys
+     */
+    private SeriesCheckpoint migrateLegacyPreferences() {
+        if (!preferences.contains(LEGACY_KEY_IN_SERIES_MODE)) {
+            return null;
+        }
+        SeriesCheckpoint checkpoint = null;
+        if (preferences.getBoolean(LEGACY_KEY_IN_SERIES_MODE, false)) {
+            checkpoint = new SeriesCheckpoint(
+                    preferences.getInt(LEGACY_KEY_SERIES_COUNT, SettingsActivity.DEFAULT_SERIES_COUNT),
+                    preferences.getInt(LEGACY_KEY_CURRENT_INDEX, 0),
+                    preferences.getInt(LEGACY_KEY_CORRECT_COUNT, 0),
+                    preferences.getLong(LEGACY_KEY_ELAPSED_TIME, 0),
+                    preferences.getBoolean(LEGACY_KEY_TIMER_RUNNING, false),
+                    null);
+            dirty = true;
+            scheduleWrite(0);
+        }
+        preferences.edit()
+                .remove(LEGACY_KEY_IN_SERIES_MODE)
+                .remove(LEGACY_KEY_SERIES_COUNT)
+                .remove(LEGACY_KEY_CURRENT_INDEX)
+                .remove(LEGACY_KEY_CORRECT_COUNT)
+                .remove(LEGACY_KEY_ELAPSED_TIME)
+                .remove(LEGACY_KEY_TIMER_RUNNING)
+                .apply();
+        return checkpoint;
+    }
+}
@@ -1,21 +1,38 @@
 package froggy.game.doomsdaytrainer;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.io.IOException;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 public class SeriesResultsActivity extends AppCompatActivity {
 
+    private static final String TAG = "SeriesResultsActivity";
+
+    // The results are of a timed sprint rather than a series (boolean)
+    public static final String EXTRA_SPRINT = "sprint";
     public static final String EXTRA_TOTAL_TIME = "total_time";
     public static final String EXTRA_AVERAGE_TIME = "average_time";
     public static final String EXTRA_CORRECT_COUNT = "correct_count";
     public static final String EXTRA_TOTAL_COUNT = "total_count";
+    // Think time of each answered question in nanoseconds (long[]), excluding the feedback delay
+    public static final String EXTRA_THINK_TIMES = "think_times";
+    // LatencyHistogram.toByteArray() of this series' and of all series' think times
+    public static final String EXTRA_HISTOGRAM = "histogram";
+    public static final String EXTRA_LIFETIME_HISTOGRAM = "lifetime_histogram";
+    // LatencyHistogram.toByteArray() of the time from each answer's input event to its commit
+    public static final String EXTRA_INPUT_LATENCY = "input_latency";
+    
+    // Upper bounds of the histogram rows in seconds; the last row is open-ended
+    private static final int[] HISTOGRAM_BOUNDS_SECONDS = {2, 4, 6, 10, 15, 30};
+    private static final int HISTOGRAM_BAR_WIDTH = 20;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -43,6 +60,56 @@ public class SeriesResultsActivity extends AppCompatActivity {
         textViewTotalTime.setText(getString(R.string.series_time_total, formattedTotalTime));
         textViewAverageTime.setText(getString(R.string.series_time_average, formattedAverageTime));
         textViewAccuracy.setText(getString(R.string.series_accuracy, correctCount, totalCount, accuracyPercentage));
+        
+        // A sprint is about how many dates fit into its time
+        if (getIntent().getBooleanExtra(EXTRA_SPRINT, false)) {
+            TextView textViewTitle = findViewById(R.id.textViewResultsTitle);
+            TextView textViewRate = findViewById(R.id.textViewRate);
+            textViewTitle.setText(R.string.sprint_results_title);
+            float perMinute = totalTimeMillis > 0 ? totalCount * 60_000f / totalTimeMillis : 0;
+            textViewRate.setText(getString(R.string.sprint_rate, perMinute));
+            textViewRate.setVisibility(View.VISIBLE);
+        }
+        
+        // Think time distribution, if the series recorded one
+        LatencyHistogram histogram = readHistogram(EXTRA_HISTOGRAM);
+        if (histogram != null && histogram.getCount() > 0) {
+            TextView textViewPercentiles = findViewById(R.id.textViewPercentiles);
+            TextView textViewExtremes = findViewById(R.id.textViewExtremes);
+            TextView textViewHistogram = findViewById(R.id.textViewHistogram);
+            
+            textViewPercentiles.setText(getString(R.string.series_time_percentiles,
+                    formatNanos(histogram.quantileNanos(0.5)),
+                    formatNanos(histogram.quantileNanos(0.9)),
+                    formatNanos(histogram.quantileNanos(0.99))));
+            textViewExtremes.setText(getString(R.string.series_time_extremes,
+                    formatNanos(histogram.getMinNanos()),
+                    formatNanos(histogram.getMaxNanos())));
+            textViewHistogram.setText(formatHistogram(histogram));
+            textViewPercentiles.setVisibility(View.VISIBLE);
+            textViewExtremes.setVisibility(View.VISIBLE);
+            textViewHistogram.setVisibility(View.VISIBLE);
+        }
+        
+        LatencyHistogram lifetime = readHistogram(EXTRA_LIFETIME_HISTOGRAM);
+        if (lifetime != null && lifetime.getCount() > 0) {
+            TextView textViewLifetime = findViewById(R.id.textViewLifetime);
+            textViewLifetime.setText(getString(R.string.series_time_lifetime,
+                    lifetime.getCount(),
+                    formatNanos(lifetime.quantileNanos(0.5)),
+                    formatNanos(lifetime.quantileNanos(0.9))));
+            textViewLifetime.setVisibility(View.VISIBLE);
+        }
+        
+        // Shows how little of the think times is the app's own reaction time
+        LatencyHistogram inputLatency = readHistogram(EXTRA_INPUT_LATENCY);
+        if (inputLatency != null && inputLatency.getCount() > 0) {
+            TextView textViewInputLatency = findViewById(R.id.textViewInputLatency);
+            textViewInputLatency.setText(getString(R.string.series_input_latency,
+                    inputLatency.quantileNanos(0.5) / 1e6,
+                    inputLatency.quantileNanos(0.99) / 1e6));
+            textViewInputLatency.setVisibility(View.VISIBLE);
+        }
 
         // Set finish button
         Button buttonFinish = findViewById(R.id.buttonFinish);
@@ -54,6 +121,72 @@ public class SeriesResultsActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Read a histogram passed as an Intent extra
+     * 
+     * @param extra The name of the extra
+     * @return The histogram, or null if it is missing or unreadable
+     */
+    private LatencyHistogram readHistogram(String extra) {
+        byte[] data = getIntent().getByteArrayExtra(extra);
+        if (data == null) {
+            return null;
+        }
+        try {
+            return LatencyHistogram.fromByteArray(data);
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring unreadable histogram " + extra, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Draw the histogram as text, one row per time range with a bar and a count
+     * 
+     * @param histogram The histogram to draw
+     * @return The rows, separated by newlines
+     */
+    private String formatHistogram(LatencyHistogram histogram) {
+        long[] counts = new long[HISTOGRAM_BOUNDS_SECONDS.length + 1];
+        long maxCount = 1;
+        long from = 0;
+        for (int i = 0; i < counts.length; i++) {
+            long to = i < HISTOGRAM_BOUNDS_SECONDS.length
+                    ? TimeUnit.SECONDS.toNanos(HISTOGRAM_BOUNDS_SECONDS[i]) : Long.MAX_VALUE;
+            counts[i] = histogram.countBetween(from, to);
+            maxCount = Math.max(maxCount, counts[i]);
+            from = to;
+        }
+        
+        StringBuilder text = new StringBuilder();
+        int lower = 0;
+        for (int i = 0; i < counts.length; i++) {
+            String label = i < HISTOGRAM_BOUNDS_SECONDS.length
+                    ? getString(R.string.series_histogram_range, lower, HISTOGRAM_BOUNDS_SECONDS[i])
+                    : getString(R.string.series_histogram_open, lower);
+            StringBuilder bar = new StringBuilder();
+            int width = (int) ((counts[i] * HISTOGRAM_BAR_WIDTH + maxCount - 1) / maxCount);
+            for (int j = 0; j < width; j++) {
+                bar.append('\u2588'); // full block
+            }
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(getString(R.string.series_histogram_row, label, bar, counts[i]));
+            if (i < HISTOGRAM_BOUNDS_SECONDS.length) {
+                lower = HISTOGRAM_BOUNDS_SECONDS[i];
+            }
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Format a time in nanoseconds like {@link #formatTime(long)}
+     */
+    private String formatNanos(long nanos) {
+        return formatTime(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
     /**
      * Format time in a human-readable format
      * @param timeMillis Time in milliseconds
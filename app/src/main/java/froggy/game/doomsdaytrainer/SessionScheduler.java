@@ -0,0 +1,123 @@
+package froggy.game.doomsdaytrainer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.SystemClock;
+
+/**
+ * Owns the timed transitions of a quiz session, e.g. from the feedback for an answer to the next
+ * question. At most one transition is pending at a time; scheduling another replaces it.
+ *
+ * The pending transition follows the activity's lifecycle: {@link #stop()} takes it off the
+ * main looper but remembers how much of its delay was left, {@link #start()} puts it back, and
+ * {@link #cancel()} forgets it. Nothing is left on the looper after stop or cancel, so no message
+ * keeps a destroyed activity alive or fires against a restarted session.
+ *
+ * A zero delay runs the transition immediately, without going through the looper.
+ * Main thread only.
+ */
+public final class SessionScheduler {
+
+    /**
+     * Carries out the transitions
+     */
+    public interface Listener {
+        /**
+         * @param transition The transition that is due, as passed to {@link #schedule}
+         */
+        void onTransition(int transition);
+    }
+
+    private static final int NONE = -1;
+
+    private final Listener listener;
+    private final Handler handler;
+
+    private int pending = NONE;
+    private long dueUptimeMillis;    // when the pending transition is due, while started
+    private long remainingMillis;    // the rest of its delay, while stopped
+    private boolean started = true;
+
+    /**
+     * @param listener Carries out the transitions, on the main thread
+     */
+    public SessionScheduler(Listener listener) {
+        this.listener = listener;
+        this.handler = new Handler(Looper.getMainLooper(), this::handleMessage);
+    }
+
+    /**
+     * Schedule a transition, replacing any pending one
+     *
+     * @param transition The transition, a non-negative constant of the caller's choosing
+     * @param delayMillis How long to wait; 0 runs it now
+     */
+    public void schedule(int transition, long delayMillis) {
+        cancel();
+        if (delayMillis <= 0 && started) {
+            listener.onTransition(transition);
+            return;
+        }
+        pending = transition;
+        if (started) {
+            dueUptimeMillis = SystemClock.uptimeMillis() + delayMillis;
+            handler.sendMessageAtTime(Message.obtain(handler, transition), dueUptimeMillis);
+        } else {
+            remainingMillis = Math.max(0, delayMillis);
+        }
+    }
+
+    /**
+     * Forget the pending transition, if any
+     */
+    public void cancel() {
+        pending = NONE;
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * @return true if a transition is waiting to run
+     */
+    public boolean isPending() {
+        return pending != NONE;
+    }
+
+    /**
+     * Hold the pending transition, e.g. when the activity pauses. Idempotent.
+     */
+    public void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        if (pending != NONE) {
+            remainingMillis = Math.max(0, dueUptimeMillis - SystemClock.uptimeMillis());
+            handler.removeCallbacksAndMessages(null);
+        }
+    }
+
+    /**
+     * Let the pending transition run after the rest of its delay, e.g. when the activity resumes.
+     * Idempotent.
+     */
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        if (pending != NONE) {
+            dueUptimeMillis = SystemClock.uptimeMillis() + remainingMillis;
+            handler.sendMessageAtTime(Message.obtain(handler, pending), dueUptimeMillis);
+        }
+    }
+
+    private boolean handleMessage(Message message) {
+        if (message.what != pending) {
+            return true; // Stale; can't normally happen as every change clears the looper
+        }
+        pending = NONE;
+        listener.onTransition(message.what);
+        return true;
+    }
+}
@@ -0,0 +1,166 @@
+package froggy.game.doomsdaytrainer;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+
+/**
+ * What MainActivity needs to carry on exactly where it was after being recreated, e.g. on
+ * rotation: the date on screen, the series progress and timer, and any running sprint. Saved in
+ * onSaveInstanceState, so restoring it takes no disk I/O.
+ *
+ * A snapshot only counts for the process that saved it. After the process died, the series is
+ * restored from the checkpoint on disk instead, which the checkpoint store keeps up to date.
+ */
+public final class SessionSnapshot implements Parcelable {
+
+    // Tells snapshots of this process from those restored into a new one after process death
+    private static final long PROCESS_TOKEN = SystemClock.elapsedRealtimeNanos();
+
+    private final long processToken;
+    private final boolean hasQuestion;
+    private final int year;
+    private final int month;
+    private final int day;
+    private final boolean answered;
+    private final byte[] seriesCheckpoint; // SeriesCheckpoint.encode(), null outside a series
+    private final long sprintDurationNanos; // 0 without a sprint
+    private final long sprintRemainingNanos;
+    private final int sprintAnswerCount;
+    private final int sprintCorrectCount;
+
+    /**
+     * Take a snapshot of a session, e.g. when the activity is about to be recreated
+     *
+     * @param session The session
+     * @param answered Whether the question on screen was answered and its feedback is still shown
+     * @param sprint The running sprint, paused, or null
+     * @param sprintNowNanos The current time on the sprint's clock
+     */
+    SessionSnapshot(QuizSession session, boolean answered, Sprint sprint, long sprintNowNanos) {
+        processToken = PROCESS_TOKEN;
+        hasQuestion = session.hasQuestion();
+        year = session.getYear();
+        month = session.getMonth();
+        day = session.getDay();
+        this.answered = answered;
+        SeriesCheckpoint checkpoint = session.checkpoint();
+        if (checkpoint != null) {
+            byte[] buffer = new byte[SeriesCheckpoint.MAX_ENCODED_SIZE];
+            int length = SeriesCheckpoint.encode(buffer, checkpoint.getSeriesCount(), checkpoint.getCurrentIndex(),
+                    checkpoint.getCorrectCount(), checkpoint.getElapsedTimeMillis(), checkpoint.isTimerRunning(),
+                    checkpoint.getSpec());
+            seriesCheckpoint = new byte[length];
+            System.arraycopy(buffer, 0, seriesCheckpoint, 0, length);
+        } else {
+            seriesCheckpoint = null;
+        }
+        if (sprint != null) {
+            sprintDurationNanos = sprint.getDurationNanos();
+            sprintRemainingNanos = sprint.remainingNanos(sprintNowNanos);
+            sprintAnswerCount = sprint.getAnswerCount();
+            sprintCorrectCount = sprint.getCorrectCount();
+        } else {
+            sprintDurationNanos = 0;
+            sprintRemainingNanos = 0;
+            sprintAnswerCount = 0;
+            sprintCorrectCount = 0;
+        }
+    }
+
+    private SessionSnapshot(Parcel in) {
+        processToken = in.readLong();
+        hasQuestion = in.readInt() != 0;
+        year = in.readInt();
+        month = in.readInt();
+        day = in.readInt();
+        answered = in.readInt() != 0;
+        seriesCheckpoint = in.createByteArray();
+        sprintDurationNanos = in.readLong();
+        sprintRemainingNanos = in.readLong();
+        sprintAnswerCount = in.readInt();
+        sprintCorrectCount = in.readInt();
+    }
+
+    @Override
+    public void writeToParcel(Parcel out, int flags) {
+        out.writeLong(processToken);
+        out.writeInt(hasQuestion ? 1 : 0);
+        out.writeInt(year);
+        out.writeInt(month);
+        out.writeInt(day);
+        out.writeInt(answered ? 1 : 0);
+        out.writeByteArray(seriesCheckpoint);
+        out.writeLong(sprintDurationNanos);
+        out.writeLong(sprintRemainingNanos);
+        out.writeInt(sprintAnswerCount);
+        out.writeInt(sprintCorrectCount);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<SessionSnapshot> CREATOR = new Creator<SessionSnapshot>() {
+        @Override
+        public SessionSnapshot createFromParcel(Parcel in) {
+            return new SessionSnapshot(in);
+        }
+
+        @Override
+        public SessionSnapshot[] newArray(int size) {
+            return new SessionSnapshot[size];
+        }
+    };
+
+    /**
+     * @return true if this snapshot was saved by the running process, false after process death
+     */
+    boolean isFromThisProcess() {
+        return processToken == PROCESS_TOKEN;
+    }
+
+    /**
+     * @return true if a date was on screen
+     */
+    boolean hasQuestion() {
+        return hasQuestion;
+    }
+
+    int getYear() {
+        return year;
+    }
+
+    int getMonth() {
+        return month;
+    }
+
+    int getDay() {
+        return day;
+    }
+
+    /**
+     * @return true if the date on screen was answered and its feedback was still shown
+     */
+    boolean isAnswered() {
+        return answered;
+    }
+
+    /**
+     * @return The series progress, or null outside a series or if the record is unreadable
+     */
+    SeriesCheckpoint getSeriesCheckpoint() {
+        return seriesCheckpoint != null ? SeriesCheckpoint.decode(seriesCheckpoint, seriesCheckpoint.length) : null;
+    }
+
+    /**
+     * @return The running sprint, paused, or null
+     */
+    Sprint getSprint() {
+        if (sprintDurationNanos <= 0) {
+            return null;
+        }
+        return Sprint.restore(sprintDurationNanos, sprintRemainingNanos, sprintAnswerCount, sprintCorrectCount);
+    }
+}
@@ -5,6 +5,7 @@ import android.os.Bundle;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
@@ -22,6 +23,16 @@ public class SettingsActivity extends AppCompatActivity {
     public static final String KEY_END_YEAR = "end_year";
     public static final String KEY_DATE_FORMAT = "date_format";
     public static final String KEY_SERIES_COUNT = "series_count";
+    public static final String KEY_FEEDBACK_DELAY = "feedback_delay"; // milliseconds, 0 for rapid fire
+    public static final String KEY_TOUCH_DOWN_ANSWERS = "touch_down_answers";
+    public static final String KEY_QUESTION_STRATEGY = "question_strategy";
+    public static final String KEY_CALENDAR_SYSTEM = "calendar_system";
+    public static final String KEY_CUTOVER_DATE = "cutover_date"; // first Gregorian date, yyyy-mm-dd
+    public static final String KEY_FILTER_MONTHS = "filter_months"; // month bit mask, 0 for all
+    public static final String KEY_FILTER_CENTURIES = "filter_centuries"; // e.g. "17,19", empty for all
+    public static final String KEY_FILTER_LEAP_YEARS = "filter_leap_years";
+    public static final String KEY_FILTER_WEEKENDS = "filter_weekends";
+    public static final String KEY_FILTER_ANCHOR_DAYS = "filter_anchor_days";
     
     // Constants for date formats
     public static final String FORMAT_MDY = "MM/dd/yyyy";
@@ -29,17 +40,41 @@ public class SettingsActivity extends AppCompatActivity {
     public static final String FORMAT_YMD = "yyyy-MM-dd";
     public static final String FORMAT_LONG = "MMMM d, yyyy";
     
+    // Constants for question strategies
+    public static final String STRATEGY_UNIFORM = "uniform";
+    public static final String STRATEGY_WEAK_SPOTS = "weak_spots";
+    
+    // Constants for calendar systems
+    public static final String CALENDAR_GREGORIAN = "gregorian";
+    public static final String CALENDAR_JULIAN = "julian";
+    public static final String CALENDAR_CUTOVER = "cutover";
+    
     // Default values
     public static final int DEFAULT_START_YEAR = 1900;
     public static final int DEFAULT_END_YEAR = 2099;
     public static final String DEFAULT_FORMAT = FORMAT_LONG;
     public static final int DEFAULT_SERIES_COUNT = 10;
     public static final int MAX_SERIES_COUNT = 100;
+    public static final int DEFAULT_FEEDBACK_DELAY = 1500;
+    public static final int MAX_FEEDBACK_DELAY = 10_000;
+    public static final String DEFAULT_STRATEGY = STRATEGY_UNIFORM;
+    public static final String DEFAULT_CALENDAR = CALENDAR_GREGORIAN;
+    public static final String DEFAULT_CUTOVER_DATE = "1582-10-15";
 
     private EditText editTextStartYear;
     private EditText editTextEndYear;
     private EditText editTextSeriesCount;
+    private EditText editTextFeedbackDelay;
+    private CheckBox checkBoxTouchDownAnswers;
     private RadioGroup radioGroupDateFormats;
+    private RadioGroup radioGroupQuestionStrategy;
+    private RadioGroup radioGroupCalendarSystem;
+    private EditText editTextCutoverDate;
+    private EditText editTextFilterMonths;
+    private EditText editTextFilterCenturies;
+    private CheckBox checkBoxFilterLeapYears;
+    private CheckBox checkBoxFilterWeekends;
+    private CheckBox checkBoxFilterAnchorDays;
     private Button buttonSave;
     
     private SharedPreferences preferences;
@@ -59,7 +94,17 @@ public class SettingsActivity extends AppCompatActivity {
         editTextStartYear = findViewById(R.id.editTextStartYear);
         editTextEndYear = findViewById(R.id.editTextEndYear);
         editTextSeriesCount = findViewById(R.id.editTextSeriesCount);
+        editTextFeedbackDelay = findViewById(R.id.editTextFeedbackDelay);
+        checkBoxTouchDownAnswers = findViewById(R.id.checkBoxTouchDownAnswers);
         radioGroupDateFormats = findViewById(R.id.radioGroupDateFormats);
+        radioGroupQuestionStrategy = findViewById(R.id.radioGroupQuestionStrategy);
+        radioGroupCalendarSystem = findViewById(R.id.radioGroupCalendarSystem);
+        editTextCutoverDate = findViewById(R.id.editTextCutoverDate);
+        editTextFilterMonths = findViewById(R.id.editTextFilterMonths);
+        editTextFilterCenturies = findViewById(R.id.editTextFilterCenturies);
+        checkBoxFilterLeapYears = findViewById(R.id.checkBoxFilterLeapYears);
+        checkBoxFilterWeekends = findViewById(R.id.checkBoxFilterWeekends);
+        checkBoxFilterAnchorDays = findViewById(R.id.checkBoxFilterAnchorDays);
         buttonSave = findViewById(R.id.buttonSaveSettings);
         
         // Load preferences
@@ -89,6 +134,8 @@ public class SettingsActivity extends AppCompatActivity {
         editTextStartYear.setText(String.valueOf(startYear));
         editTextEndYear.setText(String.valueOf(endYear));
         editTextSeriesCount.setText(String.valueOf(seriesCount));
+        editTextFeedbackDelay.setText(String.valueOf(preferences.getInt(KEY_FEEDBACK_DELAY, DEFAULT_FEEDBACK_DELAY)));
+        checkBoxTouchDownAnswers.setChecked(preferences.getBoolean(KEY_TOUCH_DOWN_ANSWERS, false));
         
         // Load date format preference
         String dateFormat = preferences.getString(KEY_DATE_FORMAT, DEFAULT_FORMAT);
@@ -113,6 +160,45 @@ public class SettingsActivity extends AppCompatActivity {
         
         RadioButton radioButton = findViewById(radioId);
         radioButton.setChecked(true);
+        
+        // Load question strategy preference
+        String strategy = preferences.getString(KEY_QUESTION_STRATEGY, DEFAULT_STRATEGY);
+        radioGroupQuestionStrategy.check(STRATEGY_WEAK_SPOTS.equals(strategy)
+                ? R.id.radioStrategyWeakSpots : R.id.radioStrategyUniform);
+        
+        // Load calendar system preference
+        String calendar = preferences.getString(KEY_CALENDAR_SYSTEM, DEFAULT_CALENDAR);
+        if (CALENDAR_JULIAN.equals(calendar)) {
+            radioGroupCalendarSystem.check(R.id.radioCalendarJulian);
+        } else if (CALENDAR_CUTOVER.equals(calendar)) {
+            radioGroupCalendarSystem.check(R.id.radioCalendarCutover);
+        } else {
+            radioGroupCalendarSystem.check(R.id.radioCalendarGregorian);
+        }
+        editTextCutoverDate.setText(preferences.getString(KEY_CUTOVER_DATE, DEFAULT_CUTOVER_DATE));
+        
+        // Load drill filters
+        DateFilter filter = readDateFilter(preferences);
+        StringBuilder months = new StringBuilder();
+        if (filter.getMonthMask() != DateFilter.ALL_MONTHS) {
+            for (int month = 1; month <= 12; month++) {
+                if (filter.allowsMonth(month)) {
+                    months.append(months.length() > 0 ? ", " : "").append(month);
+                }
+            }
+        }
+        editTextFilterMonths.setText(months);
+        StringBuilder centuries = new StringBuilder();
+        int[] filterCenturies = filter.getCenturies();
+        if (filterCenturies != null) {
+            for (int century : filterCenturies) {
+                centuries.append(centuries.length() > 0 ? ", " : "").append(century * 100);
+            }
+        }
+        editTextFilterCenturies.setText(centuries);
+        checkBoxFilterLeapYears.setChecked(filter.isLeapYearsOnly());
+        checkBoxFilterWeekends.setChecked(filter.isWeekendsOnly());
+        checkBoxFilterAnchorDays.setChecked(filter.isAnchorDaysOnly());
     }
 
     /**
@@ -124,6 +210,7 @@ public class SettingsActivity extends AppCompatActivity {
             int startYear = Integer.parseInt(editTextStartYear.getText().toString());
             int endYear = Integer.parseInt(editTextEndYear.getText().toString());
             int seriesCount = Integer.parseInt(editTextSeriesCount.getText().toString());
+            int feedbackDelay = Integer.parseInt(editTextFeedbackDelay.getText().toString());
             
             // Validate year range
             if (endYear <= startYear) {
@@ -137,6 +224,40 @@ public class SettingsActivity extends AppCompatActivity {
                 return;
             }
             
+            // Validate feedback delay
+            if (feedbackDelay < 0 || feedbackDelay > MAX_FEEDBACK_DELAY) {
+                Toast.makeText(this, getString(R.string.invalid_feedback_delay, MAX_FEEDBACK_DELAY),
+                        Toast.LENGTH_SHORT).show();
+                return;
+            }
+            
+            // Parse the drill filters; months are 1-12, centuries are entered as their first year
+            int monthMask = 0;
+            for (int month : parseNumbers(editTextFilterMonths.getText().toString())) {
+                if (month < 1 || month > 12) {
+                    Toast.makeText(this, R.string.invalid_filter_months, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                monthMask |= 1 << (month - 1);
+            }
+            int[] centuryYears = parseNumbers(editTextFilterCenturies.getText().toString());
+            if (centuryYears.length > SeriesSpec.MAX_CENTURIES) {
+                Toast.makeText(this, getString(R.string.invalid_filter_centuries, SeriesSpec.MAX_CENTURIES),
+                        Toast.LENGTH_SHORT).show();
+                return;
+            }
+            StringBuilder centuries = new StringBuilder();
+            for (int year : centuryYears) {
+                centuries.append(centuries.length() > 0 ? "," : "").append(Math.floorDiv(year, 100));
+            }
+            
+            // Validate the cutover date, even if it isn't selected, so it can't be saved broken
+            String cutoverDate = editTextCutoverDate.getText().toString().trim();
+            if (parseCutover(cutoverDate) == null) {
+                Toast.makeText(this, R.string.invalid_cutover_date, Toast.LENGTH_SHORT).show();
+                return;
+            }
+            
             // Get selected date format
             String dateFormat = getSelectedDateFormat();
             
@@ -146,8 +267,23 @@ public class SettingsActivity extends AppCompatActivity {
             editor.putInt(KEY_END_YEAR, endYear);
             editor.putString(KEY_DATE_FORMAT, dateFormat);
             editor.putInt(KEY_SERIES_COUNT, seriesCount);
+            editor.putInt(KEY_FEEDBACK_DELAY, feedbackDelay);
+            editor.putBoolean(KEY_TOUCH_DOWN_ANSWERS, checkBoxTouchDownAnswers.isChecked());
+            editor.putString(KEY_QUESTION_STRATEGY,
+                    radioGroupQuestionStrategy.getCheckedRadioButtonId() == R.id.radioStrategyWeakSpots
+                            ? STRATEGY_WEAK_SPOTS : STRATEGY_UNIFORM);
+            editor.putString(KEY_CALENDAR_SYSTEM, getSelectedCalendarSystem());
+            editor.putString(KEY_CUTOVER_DATE, cutoverDate);
+            editor.putInt(KEY_FILTER_MONTHS, monthMask);
+            editor.putString(KEY_FILTER_CENTURIES, centuries.toString());
+            editor.putBoolean(KEY_FILTER_LEAP_YEARS, checkBoxFilterLeapYears.isChecked());
+            editor.putBoolean(KEY_FILTER_WEEKENDS, checkBoxFilterWeekends.isChecked());
+            editor.putBoolean(KEY_FILTER_ANCHOR_DAYS, checkBoxFilterAnchorDays.isChecked());
             editor.apply();
             
+            // Swap in the new settings; only what depends on the changed ones is rebuilt
+            SettingsStore.getInstance(this).update();
+            
             // Close the activity
             finish();
             
@@ -156,6 +292,93 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Read the drill filters from the preferences
+     * 
+     * @param preferences The app's preferences
+     * @return The filter, {@link DateFilter#NONE} if no filter is set
+     */
+    public static DateFilter readDateFilter(SharedPreferences preferences) {
+        int[] centuries = parseNumbers(preferences.getString(KEY_FILTER_CENTURIES, ""));
+        return new DateFilter(
+                preferences.getInt(KEY_FILTER_MONTHS, 0),
+                centuries,
+                preferences.getBoolean(KEY_FILTER_LEAP_YEARS, false),
+                preferences.getBoolean(KEY_FILTER_WEEKENDS, false),
+                preferences.getBoolean(KEY_FILTER_ANCHOR_DAYS, false));
+    }
+    
+    /**
+     * Read the calendar system from the preferences
+     * 
+     * @param preferences The app's preferences
+     * @return The calendar, {@link CalendarSystem#GREGORIAN} if none is set or the cutover is invalid
+     */
+    public static CalendarSystem readCalendarSystem(SharedPreferences preferences) {
+        String calendar = preferences.getString(KEY_CALENDAR_SYSTEM, DEFAULT_CALENDAR);
+        if (CALENDAR_JULIAN.equals(calendar)) {
+            return CalendarSystem.JULIAN;
+        }
+        if (CALENDAR_CUTOVER.equals(calendar)) {
+            CalendarSystem cutover = parseCutover(preferences.getString(KEY_CUTOVER_DATE, DEFAULT_CUTOVER_DATE));
+            if (cutover != null) {
+                return cutover;
+            }
+        }
+        return CalendarSystem.GREGORIAN;
+    }
+    
+    /**
+     * Parse a cutover date written as yyyy-mm-dd
+     * 
+     * @return The calendar switching on that date, or null if the date is malformed or unusable
+     */
+    private static CalendarSystem parseCutover(String text) {
+        String[] parts = text.trim().split("-");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return CalendarSystem.cutover(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                    Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) { // includes NumberFormatException
+            return null;
+        }
+    }
+    
+    /**
+     * Parse a list of numbers separated by commas or spaces
+     * 
+     * @throws NumberFormatException if an entry is not a number
+     */
+    private static int[] parseNumbers(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = trimmed.split("[,\\s]+");
+        int[] numbers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            numbers[i] = Integer.parseInt(parts[i]);
+        }
+        return numbers;
+    }
+
+    /**
+     * Get the selected calendar system from radio buttons
+     */
+    private String getSelectedCalendarSystem() {
+        int selectedId = radioGroupCalendarSystem.getCheckedRadioButtonId();
+        
+        if (selectedId == R.id.radioCalendarJulian) {
+            return CALENDAR_JULIAN;
+        } else if (selectedId == R.id.radioCalendarCutover) {
+            return CALENDAR_CUTOVER;
+        } else {
+            return CALENDAR_GREGORIAN;
+        }
+    }
+    
     /**
      * Get the selected date format from radio buttons
      */
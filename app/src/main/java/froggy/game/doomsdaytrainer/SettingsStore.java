@@ -0,0 +1,144 @@
+package froggy.game.doomsdaytrainer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Looper;
+import android.os.Process;
+import android.os.StrictMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The current {@link TrainerSettings}, shared by all activities. The first snapshot is read on a
+ * background thread as soon as the store is created; after that, {@link #update} swaps in a new
+ * snapshot whenever the settings screen saves, and tells the listeners what changed.
+ *
+ * {@link #get()} only waits if the first read hasn't finished, but as that and creating the store
+ * may read the disk, both belong on a background thread; on the main thread {@link #get()} is
+ * reported to StrictMode as a slow call. {@link #peek()} never waits. Listeners are added, removed
+ * and called on the main thread.
+ */
+public final class SettingsStore {
+
+    /**
+     * Told about new settings
+     */
+    public interface Listener {
+        /**
+         * @param previous The settings before the change
+         * @param current The settings now in effect
+         */
+        void onSettingsChanged(TrainerSettings previous, TrainerSettings current);
+    }
+
+    private static SettingsStore instance;
+
+    private final SharedPreferences preferences;
+    private final Object lock = new Object();
+    private volatile TrainerSettings current; // null until the first read; written under lock
+    private final List<Listener> listeners = new ArrayList<>(); // main thread only
+
+    private SettingsStore(Context context) {
+        preferences = context.getSharedPreferences(SettingsActivity.PREFS_NAME, Context.MODE_PRIVATE);
+        new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            TrainerSettings settings = TrainerSettings.read(preferences);
+            synchronized (lock) {
+                // Unless the settings were saved meanwhile
+                if (current == null) {
+                    current = settings;
+                }
+                lock.notifyAll();
+            }
+        }, "settings-loader").start();
+    }
+
+    /**
+     * Get the process-wide store, starting to read the settings if it's new
+     *
+     * @param context Any context; the application context is kept
+     * @return The store
+     */
+    public static synchronized SettingsStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new SettingsStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Get the process-wide store if it already exists, without creating it
+     *
+     * @return The store, or null if none was created yet
+     */
+    public static synchronized SettingsStore peekInstance() {
+        return instance;
+    }
+
+    /**
+     * @return The current settings, or null if the first read hasn't finished
+     */
+    public TrainerSettings peek() {
+        return current;
+    }
+
+    /**
+     * Get the current settings, waiting for the first read if needed
+     *
+     * @return The current settings
+     */
+    public TrainerSettings get() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            StrictMode.noteSlowCall("SettingsStore.get");
+        }
+        return await();
+    }
+
+    private TrainerSettings await() {
+        TrainerSettings settings = current;
+        if (settings != null) {
+            return settings;
+        }
+        synchronized (lock) {
+            boolean interrupted = false;
+            while (current == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Re-read the settings after they were saved to the preferences, and tell the listeners
+     * if anything changed. Call on the main thread, where the settings screen has read them too.
+     */
+    public void update() {
+        TrainerSettings previous = await();
+        TrainerSettings settings = TrainerSettings.read(preferences);
+        if (settings.equals(previous)) {
+            return;
+        }
+        synchronized (lock) {
+            current = settings;
+        }
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onSettingsChanged(previous, settings);
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,99 @@
+package froggy.game.doomsdaytrainer;
+
+import android.view.Choreographer;
+import android.widget.TextView;
+
+/**
+ * Shows the time left in a {@link Sprint}, refreshed from Choreographer frame callbacks and
+ * ended on the first frame after the time runs out.
+ *
+ * Nothing is allocated or formatted per frame: the countdown is written into a preallocated char
+ * buffer, and the view is only given new text when the shown tenth of a second changes, which
+ * TextView wraps without copying. The view should not wrap its content in width, so new text only
+ * redraws it instead of laying out the screen again. Frames are only requested while the countdown
+ * is started, so an activity in the background costs nothing.
+ *
+ * Main thread only.
+ */
+final class SprintCountdown implements Choreographer.FrameCallback {
+
+    /**
+     * Told when the time is up
+     */
+    interface Listener {
+        void onSprintOver();
+    }
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final TextView view;
+    private final Listener listener;
+    // Two buffers, so the one the view still shows is never overwritten in place
+    private final char[][] buffers = new char[2][Sprint.MAX_TEXT_LENGTH];
+    private int buffer;
+    private long shownTenths = -1;
+    private Sprint sprint;
+    private boolean started;
+
+    /**
+     * @param view Shows the time left
+     * @param listener Told when the time is up
+     */
+    SprintCountdown(TextView view, Listener listener) {
+        this.view = view;
+        this.listener = listener;
+    }
+
+    /**
+     * Count down a sprint, from the next frame on
+     *
+     * @param sprint The sprint, or null to stop counting down
+     */
+    void setSprint(Sprint sprint) {
+        this.sprint = sprint;
+        shownTenths = -1;
+        if (sprint == null) {
+            stop();
+        }
+    }
+
+    /**
+     * Refresh the countdown every frame, e.g. when the activity resumes. Idempotent.
+     */
+    void start() {
+        if (!started && sprint != null) {
+            started = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Stop refreshing, e.g. when the activity pauses. Idempotent.
+     */
+    void stop() {
+        if (started) {
+            started = false;
+            choreographer.removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!started) {
+            return;
+        }
+        long remaining = sprint.remainingNanos(frameTimeNanos);
+        long tenths = Sprint.displayedTenths(remaining);
+        if (tenths != shownTenths) {
+            shownTenths = tenths;
+            buffer ^= 1;
+            char[] text = buffers[buffer];
+            view.setText(text, 0, Sprint.formatRemaining(remaining, text));
+        }
+        if (remaining == 0) {
+            started = false;
+            listener.onSprintOver();
+            return;
+        }
+        choreographer.postFrameCallback(this);
+    }
+}
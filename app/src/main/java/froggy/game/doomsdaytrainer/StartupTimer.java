@@ -0,0 +1,174 @@
+package froggy.game.doomsdaytrainer;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Times the start of an activity: its startup phases, the time to the first frame drawn, and the
+ * time until it is interactive, i.e. the first frame is drawn and the work deferred to the
+ * background is done. Phases are also trace sections, so they show up in system traces; reaching
+ * interactive is reported to the system with {@link Activity#reportFullyDrawn()}.
+ *
+ * The first activity in a process is a cold start, timed from the process start; any later one,
+ * e.g. after a rotation, is timed from its creation. The latest measurement is kept for the
+ * in-app report until its activity is destroyed; the activity itself is only weakly referenced,
+ * so the timer never keeps it alive.
+ *
+ * Main thread only.
+ */
+final class StartupTimer {
+
+    private static final String TAG = "StartupTimer";
+    private static final int MAX_PHASES = 8;
+
+    private static StartupTimer latest;
+    private static boolean coldStartTaken;
+
+    private final WeakReference<Activity> activity;
+    private final boolean cold;
+    private final long startUptimeMillis;
+    private final String[] phaseNames = new String[MAX_PHASES];
+    private final long[] phaseMillis = new long[MAX_PHASES];
+    private int phaseCount;
+    private long phaseStartUptimeMillis;
+    private long firstFrameMillis = -1;
+    private long interactiveMillis = -1;
+    private boolean deferredWorkDone;
+
+    /**
+     * Start timing an activity; call first thing in onCreate
+     *
+     * @param activity The activity being started
+     */
+    StartupTimer(Activity activity) {
+        this.activity = new WeakReference<>(activity);
+        cold = !coldStartTaken;
+        coldStartTaken = true;
+        if (cold) {
+            startUptimeMillis = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                    ? Process.getStartUptimeMillis() : TrainerApplication.getCreatedUptimeMillis();
+        } else {
+            startUptimeMillis = SystemClock.uptimeMillis();
+        }
+        latest = this;
+    }
+
+    /**
+     * @return The latest activity start timed, or null if there was none
+     */
+    static StartupTimer getLatest() {
+        return latest;
+    }
+
+    /**
+     * Drop the measurement from the report; call when the activity is destroyed
+     */
+    void release() {
+        if (latest == this) {
+            latest = null;
+        }
+    }
+
+    /**
+     * Start a phase; phases don't nest
+     *
+     * @param name The phase, also the name of its trace section
+     */
+    void beginPhase(String name) {
+        Trace.beginSection(name);
+        if (phaseCount < MAX_PHASES) {
+            phaseNames[phaseCount] = name;
+        }
+        phaseStartUptimeMillis = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * End the phase started last
+     */
+    void endPhase() {
+        if (phaseCount < MAX_PHASES) {
+            phaseMillis[phaseCount] = SystemClock.uptimeMillis() - phaseStartUptimeMillis;
+        }
+        phaseCount++;
+        Trace.endSection();
+    }
+
+    /**
+     * Wait for the first frame; call once the content view is set
+     */
+    void watchFirstFrame() {
+        View decor = activity.get().getWindow().getDecorView();
+        Handler handler = new Handler(Looper.getMainLooper());
+        decor.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            @Override
+            public void onDraw() {
+                if (firstFrameMillis >= 0) {
+                    return;
+                }
+                firstFrameMillis = 0; // taken; the real time is set once the frame is drawn
+                // Runs right after this traversal, i.e. once the frame has been drawn
+                handler.postAtFrontOfQueue(() -> {
+                    decor.getViewTreeObserver().removeOnDrawListener(this);
+                    firstFrameMillis = SystemClock.uptimeMillis() - startUptimeMillis;
+                    checkInteractive();
+                });
+            }
+        });
+    }
+
+    /**
+     * Note that the work deferred to the background is done
+     */
+    void deferredWorkDone() {
+        deferredWorkDone = true;
+        checkInteractive();
+    }
+
+    private void checkInteractive() {
+        if (interactiveMillis >= 0 || !deferredWorkDone || firstFrameMillis <= 0) {
+            return;
+        }
+        interactiveMillis = SystemClock.uptimeMillis() - startUptimeMillis;
+        Log.i(TAG, (cold ? "Cold" : "Warm") + " start: first frame " + firstFrameMillis
+                + " ms, interactive " + interactiveMillis + " ms");
+        Activity started = activity.get();
+        if (started != null && !started.isDestroyed()) {
+            started.reportFullyDrawn();
+        }
+    }
+
+    /**
+     * Describe the measurement for the in-app report
+     *
+     * @param context For the strings
+     * @return The times, one per line
+     */
+    String formatReport(Context context) {
+        StringBuilder report = new StringBuilder();
+        report.append(context.getString(cold ? R.string.startup_cold : R.string.startup_warm));
+        report.append('\n');
+        report.append(firstFrameMillis > 0
+                ? context.getString(R.string.startup_first_frame, firstFrameMillis)
+                : context.getString(R.string.startup_first_frame_pending));
+        report.append('\n');
+        report.append(interactiveMillis >= 0
+                ? context.getString(R.string.startup_interactive, interactiveMillis)
+                : context.getString(R.string.startup_interactive_pending));
+        for (int i = 0; i < Math.min(phaseCount, MAX_PHASES); i++) {
+            report.append('\n');
+            report.append(context.getString(R.string.startup_phase, phaseNames[i], phaseMillis[i]));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package froggy.game.doomsdaytrainer;
+
+import android.app.Application;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.os.Trace;
+
+/**
+ * Starts reading what the first screen needs, the settings and any saved series, on a background
+ * thread as soon as the process starts, so that they are usually in memory by the time MainActivity
+ * asks for them from its own background thread. Debug builds log any disk access on the main
+ * thread, and any main-thread use of the stores that may have to wait for the disk.
+ */
+public class TrainerApplication extends Application {
+
+    // For timing cold starts where the process start time isn't available (before API 24)
+    private static final long CREATED_UPTIME_MILLIS = SystemClock.uptimeMillis();
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.DEBUG) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .detectCustomSlowCalls()
+                    .penaltyLog()
+                    .build());
+        }
+
+        new Thread(() -> {
+            Trace.beginSection("warmUp");
+            SettingsStore.getInstance(this);
+            SeriesCheckpointStore.getInstance(this).load();
+            Trace.endSection();
+        }, "startup-warm-up").start();
+    }
+
+    /**
+     * @return When the application class was loaded, on the uptime clock
+     */
+    static long getCreatedUptimeMillis() {
+        return CREATED_UPTIME_MILLIS;
+    }
+}
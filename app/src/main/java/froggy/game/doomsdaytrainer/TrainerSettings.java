@@ -0,0 +1,151 @@
+package froggy.game.doomsdaytrainer;
+
+import android.content.SharedPreferences;
+
+/**
+ * The settings the trainer runs on, read from the preferences once per change rather than per
+ * question. Immutable, so a snapshot can be handed between threads and compared with the previous
+ * one to find out which caches need rebuilding.
+ */
+public final class TrainerSettings {
+
+    /**
+     * The settings of a fresh install, to start on until the saved ones have been read
+     */
+    public static final TrainerSettings DEFAULTS = new TrainerSettings(SettingsActivity.DEFAULT_START_YEAR,
+            SettingsActivity.DEFAULT_END_YEAR, SettingsActivity.DEFAULT_FORMAT, SettingsActivity.DEFAULT_SERIES_COUNT,
+            SettingsActivity.DEFAULT_FEEDBACK_DELAY, false, SettingsActivity.DEFAULT_STRATEGY,
+            CalendarSystem.GREGORIAN, DateFilter.NONE);
+
+    private final int startYear;
+    private final int endYear;
+    private final String dateFormat;
+    private final int seriesCount;
+    private final int feedbackDelayMillis;
+    private final boolean touchDownAnswers;
+    private final String questionStrategy;
+    private final CalendarSystem calendar;
+    private final DateFilter filter;
+
+    private TrainerSettings(int startYear, int endYear, String dateFormat, int seriesCount, int feedbackDelayMillis,
+                            boolean touchDownAnswers, String questionStrategy, CalendarSystem calendar,
+                            DateFilter filter) {
+        this.startYear = startYear;
+        this.endYear = endYear;
+        this.dateFormat = dateFormat;
+        this.seriesCount = seriesCount;
+        this.feedbackDelayMillis = feedbackDelayMillis;
+        this.touchDownAnswers = touchDownAnswers;
+        this.questionStrategy = questionStrategy;
+        this.calendar = calendar;
+        this.filter = filter;
+    }
+
+    /**
+     * Read the settings from the preferences, with the defaults for anything not set
+     *
+     * @param preferences The app's preferences
+     * @return The settings
+     */
+    public static TrainerSettings read(SharedPreferences preferences) {
+        return new TrainerSettings(
+                preferences.getInt(SettingsActivity.KEY_START_YEAR, SettingsActivity.DEFAULT_START_YEAR),
+                preferences.getInt(SettingsActivity.KEY_END_YEAR, SettingsActivity.DEFAULT_END_YEAR),
+                preferences.getString(SettingsActivity.KEY_DATE_FORMAT, SettingsActivity.DEFAULT_FORMAT),
+                preferences.getInt(SettingsActivity.KEY_SERIES_COUNT, SettingsActivity.DEFAULT_SERIES_COUNT),
+                preferences.getInt(SettingsActivity.KEY_FEEDBACK_DELAY, SettingsActivity.DEFAULT_FEEDBACK_DELAY),
+                preferences.getBoolean(SettingsActivity.KEY_TOUCH_DOWN_ANSWERS, false),
+                preferences.getString(SettingsActivity.KEY_QUESTION_STRATEGY, SettingsActivity.DEFAULT_STRATEGY),
+                SettingsActivity.readCalendarSystem(preferences),
+                SettingsActivity.readDateFilter(preferences));
+    }
+
+    public int getStartYear() {
+        return startYear;
+    }
+
+    public int getEndYear() {
+        return endYear;
+    }
+
+    /**
+     * @return The date format pattern, one of the SettingsActivity FORMAT constants
+     */
+    public String getDateFormat() {
+        return dateFormat;
+    }
+
+    public int getSeriesCount() {
+        return seriesCount;
+    }
+
+    /**
+     * @return How long the feedback for an answer is shown, 0 for rapid fire
+     */
+    public int getFeedbackDelayMillis() {
+        return feedbackDelayMillis;
+    }
+
+    /**
+     * @return true to commit an answer as soon as a day button is touched, false on click
+     */
+    public boolean isTouchDownAnswers() {
+        return touchDownAnswers;
+    }
+
+    /**
+     * @return The question strategy, one of the SettingsActivity STRATEGY constants
+     */
+    public String getQuestionStrategy() {
+        return questionStrategy;
+    }
+
+    public CalendarSystem getCalendar() {
+        return calendar;
+    }
+
+    public DateFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Check whether free practice would draw its questions the same way under other settings
+     */
+    public boolean sameQuestions(TrainerSettings other) {
+        return startYear == other.startYear
+                && endYear == other.endYear
+                && questionStrategy.equals(other.questionStrategy)
+                && calendar.equals(other.calendar)
+                && filter.equals(other.filter);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TrainerSettings)) {
+            return false;
+        }
+        TrainerSettings other = (TrainerSettings) o;
+        return sameQuestions(other)
+                && dateFormat.equals(other.dateFormat)
+                && seriesCount == other.seriesCount
+                && feedbackDelayMillis == other.feedbackDelayMillis
+                && touchDownAnswers == other.touchDownAnswers;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = startYear;
+        result = 31 * result + endYear;
+        result = 31 * result + dateFormat.hashCode();
+        result = 31 * result + seriesCount;
+        result = 31 * result + feedbackDelayMillis;
+        result = 31 * result + (touchDownAnswers ? 1 : 0);
+        result = 31 * result + questionStrategy.hashCode();
+        result = 31 * result + calendar.hashCode();
+        result = 31 * result + filter.hashCode();
+        return result;
+    }
+}
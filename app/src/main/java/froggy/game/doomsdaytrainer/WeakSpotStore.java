@@ -0,0 +1,137 @@
+package froggy.game.doomsdaytrainer;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * The process-wide weak-spot statistics, kept in memory and saved to a small file.
+ *
+ * Answers are counted as they come in and the file is only rewritten by {@link #save()}.
+ * Answers recorded after the last save are not lost if the app is killed: on loading, any
+ * answers in the answer log beyond those the file accounts for are counted again. The log doesn't
+ * keep the calendar, so those are counted in the calendar of the latest answer recorded.
+ *
+ * Does disk I/O, so only use it from a background thread.
+ */
+public final class WeakSpotStore {
+
+    private static final String TAG = "WeakSpotStore";
+    private static final String FILE_NAME = "weak_spots.bin";
+
+    private static WeakSpotStore instance;
+
+    private final AtomicFile file;
+    private final AnswerHistory answerHistory;
+    private WeakSpotStats stats; // Guarded by this; loaded on first use
+    private boolean dirty; // Guarded by this
+    private CalendarSystem calendar = CalendarSystem.GREGORIAN; // Of the latest answer; guarded by this
+
+    private WeakSpotStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        answerHistory = AnswerHistory.getInstance(context);
+    }
+
+    /**
+     * Get the process-wide store
+     *
+     * @param context Any context; the application context is kept
+     * @return The store
+     */
+    public static synchronized WeakSpotStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new WeakSpotStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Count one answer. Must be called before the answer is added to the answer log, or a
+     * first load would count it twice.
+     *
+     * @see WeakSpotStats#record
+     */
+    public synchronized void record(int year, int month, CalendarSystem calendar, int guessedDay, int actualDay,
+                                    long thinkNanos) {
+        this.calendar = calendar;
+        load().record(year, month, calendar, guessedDay, actualDay, thinkNanos);
+        dirty = true;
+    }
+
+    /**
+     * @return A copy of the current statistics
+     */
+    public synchronized WeakSpotStats snapshot() {
+        WeakSpotStats copy = new WeakSpotStats();
+        copy.add(load());
+        return copy;
+    }
+
+    /**
+     * Write the statistics to disk if anything was counted since the last save
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            stats.writeTo(out);
+            out.flush();
+            file.finishWrite(stream);
+            dirty = false;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save weak-spot statistics", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private WeakSpotStats load() {
+        if (stats != null) {
+            return stats;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            stats = WeakSpotStats.readFrom(in);
+        } catch (FileNotFoundException e) {
+            stats = new WeakSpotStats();
+        } catch (IOException e) {
+            Log.w(TAG, "Rebuilding unreadable weak-spot statistics", e);
+            stats = new WeakSpotStats();
+        }
+        catchUp();
+        return stats;
+    }
+
+    /**
+     * Count the answers that reached the answer log after the statistics were last saved
+     */
+    private void catchUp() {
+        synchronized (answerHistory) {
+            AnswerLog log = answerHistory.getLog();
+            if (log == null || stats.getTotalAttempts() >= log.size()) {
+                return;
+            }
+            AnswerLog.Entry entry = new AnswerLog.Entry();
+            for (long i = stats.getTotalAttempts(); i < log.size(); i++) {
+                log.read(i, entry);
+                stats.record(entry.year, entry.month, calendar, entry.guessedDay, entry.actualDay,
+                        entry.thinkNanos);
+            }
+            dirty = true;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package froggy.game.doomsdaytrainer;
+
+import android.os.Bundle;
+import android.os.Process;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.text.DateFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shows where the user makes mistakes, from the running weak-spot statistics
+ */
+public class WeakSpotsActivity extends AppCompatActivity {
+
+    // The 28-year cycle has too many positions to list; only the worst few are shown
+    private static final int CYCLE_ROWS = 5;
+
+    private TextView textViewWeakSpots;
+    private ExecutorService backgroundExecutor;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_weak_spots);
+        textViewWeakSpots = findViewById(R.id.textViewWeakSpots);
+
+        // Loading the statistics may have to read the answer log, so stay off the UI thread
+        WeakSpotStore store = WeakSpotStore.getInstance(this);
+        backgroundExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "weak-spots"));
+        backgroundExecutor.execute(() -> {
+            WeakSpotStats stats = store.snapshot();
+            String text = formatBreakdown(stats);
+            runOnUiThread(() -> {
+                if (!isDestroyed()) {
+                    textViewWeakSpots.setText(text);
+                }
+            });
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        backgroundExecutor.shutdown();
+    }
+
+    /**
+     * Lay out the breakdown as monospaced text
+     *
+     * @param stats The statistics to show
+     * @return The text
+     */
+    private String formatBreakdown(WeakSpotStats stats) {
+        if (stats.getTotalAttempts() == 0) {
+            return getString(R.string.weak_spots_empty);
+        }
+        DateFormatSymbols symbols = DateFormatSymbols.getInstance();
+        StringBuilder text = new StringBuilder();
+        text.append(getString(R.string.weak_spots_total, stats.getTotalAttempts())).append('\n');
+
+        text.append('\n').append(getString(R.string.weak_spots_by_month)).append('\n');
+        String[] months = symbols.getShortMonths();
+        for (int month = 1; month <= 12; month++) {
+            appendRow(text, months[month - 1], stats, WeakSpotStats.monthCategory(month));
+        }
+
+        text.append('\n').append(getString(R.string.weak_spots_by_century)).append('\n');
+        for (int position = 0; position < 4; position++) {
+            // Centuries 4 apart share an anchor day; label each row with a recent one
+            int century = 20 + position - (position >= 2 ? 4 : 0);
+            appendRow(text, getString(R.string.weak_spots_century_label, century),
+                    stats, WeakSpotStats.CENTURY_CATEGORIES + position);
+        }
+
+        text.append('\n').append(getString(R.string.weak_spots_leap)).append('\n');
+        appendRow(text, "", stats, WeakSpotStats.LEAP_JAN_FEB_CATEGORY);
+
+        text.append('\n').append(getString(R.string.weak_spots_by_cycle)).append('\n');
+        boolean[] shown = new boolean[28];
+        for (int row = 0; row < CYCLE_ROWS; row++) {
+            int worst = -1;
+            for (int position = 0; position < 28; position++) {
+                int category = WeakSpotStats.CYCLE_CATEGORIES + position;
+                if (!shown[position] && stats.getAttempts(category) > 0 && (worst < 0
+                        || stats.getErrorRate(category) > stats.getErrorRate(WeakSpotStats.CYCLE_CATEGORIES + worst))) {
+                    worst = position;
+                }
+            }
+            if (worst < 0) {
+                break;
+            }
+            shown[worst] = true;
+            appendRow(text, getString(R.string.weak_spots_cycle_label, worst),
+                    stats, WeakSpotStats.CYCLE_CATEGORIES + worst);
+        }
+
+        text.append('\n').append(getString(R.string.weak_spots_confusion)).append('\n');
+        String[] days = symbols.getShortWeekdays(); // indexed by WeekdayEngine constants
+        text.append("     ");
+        for (int guessed = WeekdayEngine.SUNDAY; guessed <= WeekdayEngine.SATURDAY; guessed++) {
+            text.append(String.format(Locale.getDefault(), "%5.3s", days[guessed]));
+        }
+        for (int actual = WeekdayEngine.SUNDAY; actual <= WeekdayEngine.SATURDAY; actual++) {
+            text.append('\n').append(String.format(Locale.getDefault(), "%-5.3s", days[actual]));
+            for (int guessed = WeekdayEngine.SUNDAY; guessed <= WeekdayEngine.SATURDAY; guessed++) {
+                text.append(String.format(Locale.getDefault(), "%5d", stats.getConfusion(actual, guessed)));
+            }
+        }
+        return text.toString();
+    }
+
+    private void appendRow(StringBuilder text, String label, WeakSpotStats stats, int category) {
+        long attempts = stats.getAttempts(category);
+        String meanTime = String.format(Locale.getDefault(), "%.1fs", stats.getMeanThinkNanos(category) / 1e9);
+        text.append(getString(R.string.weak_spots_row, label, stats.getErrors(category), attempts,
+                stats.getErrorRate(category) * 100, attempts == 0 ? "" : meanTime)).append('\n');
+    }
+}
@@ -0,0 +1,84 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.os.strictmode.Violation;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+/**
+ * Checks that a cold start of MainActivity shows its first date without touching the disk on the
+ * main thread. The plain Application doesn't warm the stores up, so the activity has to open
+ * them itself; reading the disk on the main thread, or asking a store for its settings or
+ * checkpoint there, is a StrictMode violation and fails the test.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class MainActivityStartupTest {
+
+    private static final long LOAD_TIMEOUT_MILLIS = 5000;
+
+    private final List<Violation> violations = new CopyOnWriteArrayList<>();
+    private StrictMode.ThreadPolicy oldPolicy;
+    private ActivityController<MainActivity> controller;
+
+    @Before
+    public void setUp() {
+        oldPolicy = StrictMode.getThreadPolicy();
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectCustomSlowCalls()
+                .penaltyListener(Runnable::run, violations::add)
+                .penaltyDeath()
+                .build());
+    }
+
+    @After
+    public void tearDown() {
+        if (controller != null) {
+            controller.pause().stop().destroy();
+        }
+        StrictMode.setThreadPolicy(oldPolicy);
+    }
+
+    @Test
+    public void showsFirstDateBeforeTheStoresAreRead() throws InterruptedException {
+        controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = controller.get();
+
+        // The first date doesn't wait for the background thread
+        View decor = activity.getWindow().getDecorView();
+        assertTrue("Window laid out", decor.isLaidOut() && decor.getWidth() > 0);
+        TextView date = activity.findViewById(R.id.textViewDate);
+        assertTrue("Date shown", date.isShown() && date.getText().length() > 0);
+
+        // Series can be started once the stores have been read in the background
+        Button startSeries = activity.findViewById(R.id.buttonStartSeries);
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MILLIS;
+        while (!startSeries.isEnabled() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        assertTrue("Stores read", startSeries.isEnabled());
+        assertTrue("Date still shown", date.getText().length() > 0);
+        assertEquals("Main thread violations", 0, violations.size());
+    }
+}
@@ -0,0 +1,63 @@
+package froggy.game.doomsdaytrainer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+
+import froggy.game.doomsdaytrainer.DateFormatter;
+
+/**
+ * Cost of turning the question date into the text shown to the user.
+ */
+@State(Scope.Thread)
+public class DateFormatBenchmark {
+
+    // Mirror SettingsActivity.FORMAT_MDY, FORMAT_DMY, FORMAT_YMD and FORMAT_LONG
+    @Param({"MM/dd/yyyy", "dd.MM.yyyy", "yyyy-MM-dd", "MMMM d, yyyy"})
+    public String pattern;
+
+    private SampleDates dates;
+    private GregorianCalendar calendar;
+    private DateFormatter formatter;
+    private StringBuilder text;
+
+    @Setup
+    public void setUp() {
+        dates = new SampleDates();
+        calendar = new GregorianCalendar();
+        calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+        formatter = DateFormatter.compile(pattern, Locale.getDefault());
+        text = new StringBuilder(32);
+    }
+
+    /**
+     * MainActivity.displayFormattedDate(): a new SimpleDateFormat for every question
+     */
+    @Benchmark
+    public String simpleDateFormat() {
+        int i = dates.next();
+        calendar.clear();
+        calendar.set(dates.years[i], dates.months[i] - 1, dates.days[i]);
+        SimpleDateFormat dateFormat = new SimpleDateFormat(pattern, Locale.getDefault());
+        dateFormat.setCalendar(calendar);
+        return dateFormat.format(calendar.getTime());
+    }
+
+    /**
+     * Compiled DateFormatter appending to a reused StringBuilder
+     */
+    @Benchmark
+    public StringBuilder dateFormatter() {
+        int i = dates.next();
+        text.setLength(0);
+        formatter.format(dates.years[i], dates.months[i], dates.days[i], text);
+        return text;
+    }
+}
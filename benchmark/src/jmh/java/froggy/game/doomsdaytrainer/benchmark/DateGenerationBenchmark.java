@@ -0,0 +1,85 @@
+package froggy.game.doomsdaytrainer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+import java.util.Random;
+
+import froggy.game.doomsdaytrainer.CalendarSystem;
+import froggy.game.doomsdaytrainer.DateFilter;
+import froggy.game.doomsdaytrainer.DateSampler;
+import froggy.game.doomsdaytrainer.SeriesPlan;
+import froggy.game.doomsdaytrainer.SeriesSpec;
+import froggy.game.doomsdaytrainer.WeekdayEngine;
+
+/**
+ * Cost of generating one random question date.
+ */
+@State(Scope.Thread)
+public class DateGenerationBenchmark {
+
+    private Random random;
+    private DateSampler sampler;
+    private DateSampler wideSampler;
+    private SeriesPlan seriesPlan;
+    private int seriesIndex;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        sampler = new DateSampler(new Random(42), SampleDates.START_YEAR, SampleDates.END_YEAR);
+        wideSampler = new DateSampler(new Random(42), -1_000_000, 1_000_000);
+        seriesPlan = SeriesPlan.create(new SeriesSpec(42, SeriesSpec.MAX_COUNT, SampleDates.START_YEAR,
+                SampleDates.END_YEAR, CalendarSystem.GREGORIAN, DateFilter.NONE), null, null);
+    }
+
+    /**
+     * The original MainActivity.generateRandomDate(): a fresh Calendar per question
+     */
+    @Benchmark
+    public Calendar calendar() {
+        Calendar date = Calendar.getInstance();
+        int year = SampleDates.START_YEAR + random.nextInt(SampleDates.END_YEAR - SampleDates.START_YEAR + 1);
+        int month = random.nextInt(12);
+        date.set(year, month, 1);
+        int maxDay = date.getActualMaximum(Calendar.DAY_OF_MONTH);
+        int day = 1 + random.nextInt(maxDay);
+        date.set(year, month, day);
+        return date;
+    }
+
+    /**
+     * Year, month and day as ints with WeekdayEngine providing the month length
+     */
+    @Benchmark
+    public int weekdayEngine() {
+        int year = SampleDates.START_YEAR + random.nextInt(SampleDates.END_YEAR - SampleDates.START_YEAR + 1);
+        int month = 1 + random.nextInt(12);
+        int day = 1 + random.nextInt(WeekdayEngine.daysInMonth(year, month));
+        return (year << 9) | (month << 5) | day;
+    }
+
+    /**
+     * Uniform epoch day converted back to a packed date
+     */
+    @Benchmark
+    public long dateSampler() {
+        return sampler.nextDate();
+    }
+
+    @Benchmark
+    public long dateSamplerWideRange() {
+        return wideSampler.nextDate();
+    }
+
+    /**
+     * Question k of a seeded series, computed from (seed, k) without any generator state
+     */
+    @Benchmark
+    public long seriesPlan() {
+        return seriesPlan.dateAt(seriesIndex++ & 0x7FFF);
+    }
+}
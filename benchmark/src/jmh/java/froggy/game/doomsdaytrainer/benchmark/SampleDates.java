@@ -0,0 +1,43 @@
+package froggy.game.doomsdaytrainer.benchmark;
+
+import java.util.Random;
+
+import froggy.game.doomsdaytrainer.WeekdayEngine;
+
+/**
+ * A fixed, seeded set of dates in the app's default range, cycled through by the
+ * benchmarks so that the JIT cannot constant-fold a single input.
+ */
+final class SampleDates {
+
+    // Mirror SettingsActivity.DEFAULT_START_YEAR / DEFAULT_END_YEAR (the app module is Android-only)
+    static final int START_YEAR = 1900;
+    static final int END_YEAR = 2099;
+
+    static final int SIZE = 1024; // power of two, see next()
+    private static final int MASK = SIZE - 1;
+
+    final int[] years = new int[SIZE];
+    final int[] months = new int[SIZE]; // 1-12
+    final int[] days = new int[SIZE];
+    private int index;
+
+    SampleDates() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            years[i] = START_YEAR + random.nextInt(END_YEAR - START_YEAR + 1);
+            months[i] = 1 + random.nextInt(12);
+            days[i] = 1 + random.nextInt(WeekdayEngine.daysInMonth(years[i], months[i]));
+        }
+    }
+
+    /**
+     * Advance to the next sample
+     *
+     * @return The index of the sample to use
+     */
+    int next() {
+        index = (index + 1) & MASK;
+        return index;
+    }
+}
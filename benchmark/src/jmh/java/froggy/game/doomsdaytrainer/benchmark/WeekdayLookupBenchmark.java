@@ -0,0 +1,51 @@
+package froggy.game.doomsdaytrainer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+
+import froggy.game.doomsdaytrainer.WeekdayEngine;
+import froggy.game.doomsdaytrainer.YearAnchorTable;
+
+/**
+ * Cost of answering "which weekday is this date", as done when checking a guess.
+ */
+@State(Scope.Thread)
+public class WeekdayLookupBenchmark {
+
+    private SampleDates dates;
+    private Calendar calendar;
+    private YearAnchorTable anchorTable;
+
+    @Setup
+    public void setUp() {
+        dates = new SampleDates();
+        calendar = Calendar.getInstance();
+        anchorTable = YearAnchorTable.build(SampleDates.START_YEAR, SampleDates.END_YEAR);
+    }
+
+    /**
+     * The original MainActivity.checkGuess(): Calendar.DAY_OF_WEEK after setting the date
+     */
+    @Benchmark
+    public int calendar() {
+        int i = dates.next();
+        calendar.set(dates.years[i], dates.months[i] - 1, dates.days[i]);
+        return calendar.get(Calendar.DAY_OF_WEEK);
+    }
+
+    @Benchmark
+    public int weekdayEngine() {
+        int i = dates.next();
+        return WeekdayEngine.dayOfWeek(dates.years[i], dates.months[i], dates.days[i]);
+    }
+
+    @Benchmark
+    public int yearAnchorTable() {
+        int i = dates.next();
+        return anchorTable.dayOfWeek(dates.years[i], dates.months[i], dates.days[i]);
+    }
+}
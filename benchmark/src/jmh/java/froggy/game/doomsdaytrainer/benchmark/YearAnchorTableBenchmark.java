@@ -0,0 +1,39 @@
+package froggy.game.doomsdaytrainer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import froggy.game.doomsdaytrainer.YearAnchorTable;
+
+/**
+ * Cost of (re)building the anchor table when the year range setting changes.
+ */
+@State(Scope.Thread)
+public class YearAnchorTableBenchmark {
+
+    @Param({"200", "10000", "1000000"})
+    public int years;
+
+    private YearAnchorTable table;
+
+    @Setup
+    public void setUp() {
+        table = YearAnchorTable.build(0, years - 1);
+    }
+
+    @Benchmark
+    public YearAnchorTable build() {
+        return YearAnchorTable.build(0, years - 1);
+    }
+
+    /**
+     * Widening the range by one century at the start reuses every existing anchor
+     */
+    @Benchmark
+    public YearAnchorTable widen() {
+        return table.withRange(-100, years - 1);
+    }
+}
@@ -0,0 +1,323 @@
+package froggy.game.doomsdaytrainer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Append-only history of every answer, kept in a memory-mapped file of fixed-width records.
+ *
+ * Each record takes {@link #RECORD_SIZE} bytes and ends with a check byte that is written
+ * last, so a record torn by a crash is recognised and dropped when the log is opened again.
+ * The file grows in segments of {@link #SEGMENT_RECORDS} records that are mapped as they are
+ * needed; reading the history goes through the page cache and needs no heap besides a small
+ * sparse index holding the timestamp and session of every {@link #INDEX_INTERVAL}th record.
+ *
+ * Records are expected to be appended in time order with non-decreasing session ids (e.g. the
+ * start time of the session), which is what lets the sparse index answer range queries.
+ *
+ * Not thread-safe; use it from one thread or synchronize externally.
+ */
+public final class AnswerLog implements Closeable {
+
+    /** Size of a record in bytes */
+    public static final int RECORD_SIZE = 32;
+    /** Number of records mapped at a time */
+    public static final int SEGMENT_RECORDS = 32768; // 1 MiB
+    /** Every this many records one is kept in the sparse index */
+    public static final int INDEX_INTERVAL = 256;
+
+    private static final int MAGIC = 0x44544C47; // "DTLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_COUNT_OFFSET = 8;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_SIZE;
+
+    // Record layout
+    private static final int TIMESTAMP_OFFSET = 0;
+    private static final int SESSION_OFFSET = 8;
+    private static final int THINK_OFFSET = 16;
+    private static final int YEAR_OFFSET = 24;
+    private static final int MONTH_OFFSET = 28;
+    private static final int DAY_OFFSET = 29;
+    private static final int ANSWER_OFFSET = 30; // guessed day in the low nibble, actual day in the high one
+    private static final int CHECK_OFFSET = 31;
+
+    /**
+     * A record read from the log. Reused between reads so that scanning allocates nothing.
+     */
+    public static final class Entry {
+        public long timestampMillis;
+        public long sessionId;
+        public long thinkNanos;
+        public int year;
+        public int month;
+        public int day;
+        public int guessedDay;
+        public int actualDay;
+
+        public boolean isCorrect() {
+            return guessedDay == actualDay;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[4];
+    private long count;
+
+    // Sparse index: timestamp and session of record i * INDEX_INTERVAL
+    private long[] indexTimestamps = new long[64];
+    private long[] indexSessions = new long[64];
+    private int indexSize;
+
+    private AnswerLog(RandomAccessFile file) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+    }
+
+    /**
+     * Open a log, creating it if needed, and recover from an interrupted append
+     *
+     * @param path The log file
+     * @return The open log
+     * @throws IOException if the file cannot be opened or is not an answer log
+     */
+    public static AnswerLog open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            boolean created = file.length() == 0;
+            AnswerLog log = new AnswerLog(file);
+            if (created) {
+                log.header.putInt(0, MAGIC);
+                log.header.putInt(4, VERSION);
+                log.header.putLong(HEADER_COUNT_OFFSET, 0);
+            } else if (log.header.getInt(0) != MAGIC || log.header.getInt(4) != VERSION) {
+                throw new IOException("Not an answer log: " + path);
+            }
+            log.recover();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Work out the number of complete records. The header count is updated after each record,
+     * so at most the record just before or just after it can be out of step with it.
+     */
+    private void recover() throws IOException {
+        long capacity = Math.max(0, (file.length() - HEADER_SIZE) / RECORD_SIZE);
+        long recovered = Math.min(Math.max(header.getLong(HEADER_COUNT_OFFSET), 0), capacity);
+        while (recovered > 0 && !isComplete(recovered - 1)) {
+            recovered--;
+        }
+        while (recovered < capacity && isComplete(recovered)) {
+            recovered++;
+        }
+        count = recovered;
+        header.putLong(HEADER_COUNT_OFFSET, count);
+
+        indexSize = 0;
+        for (long i = 0; i < count; i += INDEX_INTERVAL) {
+            MappedByteBuffer segment = segment(i);
+            int offset = recordOffset(i);
+            addToIndex(segment.getLong(offset + TIMESTAMP_OFFSET), segment.getLong(offset + SESSION_OFFSET));
+        }
+    }
+
+    /**
+     * @return The number of records in the log
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Add a record to the end of the log
+     *
+     * @param timestampMillis The wall clock time of the answer
+     * @param sessionId The session the answer belongs to
+     * @param thinkNanos The time taken to answer
+     * @param year The question's year
+     * @param month The question's month, 1-12
+     * @param day The question's day of the month
+     * @param guessedDay The answer given, as a WeekdayEngine constant
+     * @param actualDay The correct answer, as a WeekdayEngine constant
+     * @throws IOException if the log cannot grow
+     */
+    public void append(long timestampMillis, long sessionId, long thinkNanos, int year, int month, int day,
+                       int guessedDay, int actualDay) throws IOException {
+        MappedByteBuffer segment = segment(count);
+        int offset = recordOffset(count);
+        // Invalidate the slot first in case it holds the remains of a torn record
+        segment.put(offset + CHECK_OFFSET, (byte) 0);
+        segment.putLong(offset + TIMESTAMP_OFFSET, timestampMillis);
+        segment.putLong(offset + SESSION_OFFSET, sessionId);
+        segment.putLong(offset + THINK_OFFSET, thinkNanos);
+        segment.putInt(offset + YEAR_OFFSET, year);
+        segment.put(offset + MONTH_OFFSET, (byte) month);
+        segment.put(offset + DAY_OFFSET, (byte) day);
+        segment.put(offset + ANSWER_OFFSET, (byte) (guessedDay | actualDay << 4));
+        segment.put(offset + CHECK_OFFSET, checkByte(segment, offset));
+
+        if (count % INDEX_INTERVAL == 0) {
+            addToIndex(timestampMillis, sessionId);
+        }
+        count++;
+        header.putLong(HEADER_COUNT_OFFSET, count);
+    }
+
+    /**
+     * Read a record
+     *
+     * @param index The record's position, from 0 to {@link #size()} - 1
+     * @param entry Receives the record
+     */
+    public void read(long index, Entry entry) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+        }
+        MappedByteBuffer segment = segments[(int) (index / SEGMENT_RECORDS)];
+        int offset = recordOffset(index);
+        entry.timestampMillis = segment.getLong(offset + TIMESTAMP_OFFSET);
+        entry.sessionId = segment.getLong(offset + SESSION_OFFSET);
+        entry.thinkNanos = segment.getLong(offset + THINK_OFFSET);
+        entry.year = segment.getInt(offset + YEAR_OFFSET);
+        entry.month = segment.get(offset + MONTH_OFFSET);
+        entry.day = segment.get(offset + DAY_OFFSET);
+        int answer = segment.get(offset + ANSWER_OFFSET);
+        entry.guessedDay = answer & 0x0F;
+        entry.actualDay = (answer >> 4) & 0x0F;
+    }
+
+    /**
+     * Find the first record at or after a point in time, e.g. the start of a day
+     *
+     * @param timestampMillis The time to look for
+     * @return The record's position, or {@link #size()} if all records are earlier
+     */
+    public long firstIndexAtOrAfter(long timestampMillis) {
+        long index = blockStart(indexTimestamps, timestampMillis);
+        while (index < count && timestampAt(index) < timestampMillis) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Find the first record of a session or of any later one. The records of a session are
+     * those from {@code firstIndexOfSession(id)} up to {@code firstIndexOfSession(id + 1)}.
+     *
+     * @param sessionId The session to look for
+     * @return The record's position, or {@link #size()} if all records belong to earlier sessions
+     */
+    public long firstIndexOfSession(long sessionId) {
+        long index = blockStart(indexSessions, sessionId);
+        while (index < count && sessionAt(index) < sessionId) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Make sure all appended records have reached the disk, not just the page cache.
+     * Records already survive a crash of the app without this.
+     */
+    public void sync() {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Get the position of the first record in the last index block whose first key is below
+     * the one searched for; the record being searched for is at most one block further on.
+     */
+    private long blockStart(long[] keys, long key) {
+        int low = 0;
+        int high = indexSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return (long) Math.max(0, low - 1) * INDEX_INTERVAL;
+    }
+
+    private long timestampAt(long index) {
+        return segments[(int) (index / SEGMENT_RECORDS)].getLong(recordOffset(index) + TIMESTAMP_OFFSET);
+    }
+
+    private long sessionAt(long index) {
+        return segments[(int) (index / SEGMENT_RECORDS)].getLong(recordOffset(index) + SESSION_OFFSET);
+    }
+
+    private void addToIndex(long timestampMillis, long sessionId) {
+        if (indexSize == indexTimestamps.length) {
+            indexTimestamps = Arrays.copyOf(indexTimestamps, indexSize * 2);
+            indexSessions = Arrays.copyOf(indexSessions, indexSize * 2);
+        }
+        indexTimestamps[indexSize] = timestampMillis;
+        indexSessions[indexSize] = sessionId;
+        indexSize++;
+    }
+
+    /**
+     * Get the mapped segment holding a record, mapping it (and growing the file) if needed
+     */
+    private MappedByteBuffer segment(long index) throws IOException {
+        int number = (int) (index / SEGMENT_RECORDS);
+        if (number >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(segments.length * 2, number + 1));
+        }
+        MappedByteBuffer segment = segments[number];
+        if (segment == null) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + number * SEGMENT_BYTES, SEGMENT_BYTES);
+            segments[number] = segment;
+        }
+        return segment;
+    }
+
+    private static int recordOffset(long index) {
+        return (int) (index % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    private boolean isComplete(long index) throws IOException {
+        MappedByteBuffer segment = segment(index);
+        int offset = recordOffset(index);
+        return segment.get(offset + CHECK_OFFSET) == checkByte(segment, offset);
+    }
+
+    /**
+     * Fold the record's bytes into a check byte; the top bit is always set, so an unwritten
+     * (zero) check byte never matches
+     */
+    private static byte checkByte(MappedByteBuffer segment, int offset) {
+        int hash = 0x55;
+        for (int i = 0; i < CHECK_OFFSET; i++) {
+            hash = hash * 31 + segment.get(offset + i);
+        }
+        hash ^= hash >>> 16;
+        hash ^= hash >>> 8;
+        return (byte) (hash | 0x80);
+    }
+}
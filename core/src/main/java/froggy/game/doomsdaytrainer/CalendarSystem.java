@@ -0,0 +1,251 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * The calendar dates are asked in: proleptic Gregorian, proleptic Julian, or Julian up to a
+ * cutover date and Gregorian from then on, as when a country adopted the Gregorian calendar
+ * (e.g. 15 October 1582 followed 4 October 1582, dropping ten days).
+ *
+ * Days are numbered with the same epoch days as {@link EpochDay} in every system, so the days
+ * of a range stay consecutive across a cutover and drawing epoch days never lands on a dropped
+ * date. Dates are compared as packed longs, which orders them like the calendar does.
+ *
+ * These methods do a little more work than {@link WeekdayEngine}; per-question lookups go through
+ * a {@link YearAnchorTable} built for the calendar, which costs the same in every system.
+ * Immutable and thread-safe.
+ */
+public final class CalendarSystem {
+
+    /** The most days a cutover may drop, so every month and year keeps some of its days */
+    public static final int MAX_DROPPED_DAYS = 27;
+
+    /** The Gregorian calendar extended back indefinitely; the app's original behaviour */
+    public static final CalendarSystem GREGORIAN = new CalendarSystem(Long.MIN_VALUE, Long.MIN_VALUE, 1, 0);
+
+    /** The Julian calendar extended forward indefinitely */
+    public static final CalendarSystem JULIAN = new CalendarSystem(Long.MAX_VALUE, Long.MAX_VALUE, 1, 0);
+
+    // Julian day number of 1970-01-01
+    private static final long EPOCH_JULIAN_DAY_NUMBER = 2440588;
+
+    private final long cutoverDate;   // first Gregorian date, packed; MIN for Gregorian, MAX for Julian
+    private final long cutoverEpochDay;
+    // Years with dropped dates or with dates under both rules; an empty range without a cutover
+    private final int firstTransitionYear;
+    private final int lastTransitionYear;
+
+    private CalendarSystem(long cutoverDate, long cutoverEpochDay, int firstTransitionYear, int lastTransitionYear) {
+        this.cutoverDate = cutoverDate;
+        this.cutoverEpochDay = cutoverEpochDay;
+        this.firstTransitionYear = firstTransitionYear;
+        this.lastTransitionYear = lastTransitionYear;
+    }
+
+    /**
+     * Get the calendar that switches from Julian to Gregorian on a given date
+     *
+     * @param year The year of the first Gregorian date
+     * @param month The month of the first Gregorian date (1-12)
+     * @param day The day of the first Gregorian date
+     * @return The calendar
+     * @throws IllegalArgumentException if the date doesn't exist, or the switch would repeat days
+     *                                  or drop more than {@link #MAX_DROPPED_DAYS}
+     */
+    public static CalendarSystem cutover(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > WeekdayEngine.daysInMonth(year, month)) {
+            throw new IllegalArgumentException("No such date: " + year + "-" + month + "-" + day);
+        }
+        long epochDay = EpochDay.of(year, month, day);
+        long dropped = julianEpochDay(year, month, day) - epochDay;
+        if (dropped < 0 || dropped > MAX_DROPPED_DAYS) {
+            throw new IllegalArgumentException("A cutover on " + year + "-" + month + "-" + day
+                    + " would drop " + dropped + " days");
+        }
+        // The first dropped date is the Julian date of the cutover day
+        int firstYear = EpochDay.year(julianDate(epochDay));
+        return new CalendarSystem(EpochDay.pack(year, month, day), epochDay, firstYear, year);
+    }
+
+    public boolean isGregorian() {
+        return cutoverDate == Long.MIN_VALUE;
+    }
+
+    public boolean isJulian() {
+        return cutoverDate == Long.MAX_VALUE;
+    }
+
+    /**
+     * @return The first Gregorian date, packed as by {@link EpochDay#pack(int, int, int)};
+     *         only meaningful if the calendar is neither purely Gregorian nor purely Julian
+     */
+    public long getCutoverDate() {
+        return cutoverDate;
+    }
+
+    /**
+     * Convert a date to its epoch day
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @param day The day of the month
+     * @return Days since 1970-01-01 (Gregorian), the same numbering in every calendar
+     */
+    public long epochDay(int year, int month, int day) {
+        if (EpochDay.pack(year, month, day) >= cutoverDate) {
+            return EpochDay.of(year, month, day);
+        }
+        return julianEpochDay(year, month, day);
+    }
+
+    /**
+     * Convert an epoch day to a date in this calendar
+     *
+     * @param epochDay Days since 1970-01-01 (Gregorian)
+     * @return The date packed as by {@link EpochDay#pack(int, int, int)}
+     */
+    public long toDate(long epochDay) {
+        if (epochDay >= cutoverEpochDay) {
+            return EpochDay.toDate(epochDay);
+        }
+        return julianDate(epochDay);
+    }
+
+    /**
+     * Check whether a date exists, i.e. is a valid date not dropped by the cutover
+     */
+    public boolean exists(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return false;
+        }
+        return EpochDay.pack(year, month, day) >= cutoverDate || julianEpochDay(year, month, day) < cutoverEpochDay;
+    }
+
+    /**
+     * Check whether a year is a leap year, by the rule in force at the end of its February
+     *
+     * @param year The year
+     * @return true if the year's February has 29 days
+     */
+    public boolean isLeapYear(int year) {
+        if (EpochDay.pack(year, 2, 29) >= cutoverDate) {
+            return WeekdayEngine.isLeapYear(year);
+        }
+        return (year & 3) == 0;
+    }
+
+    /**
+     * Get the length of a month. In the cutover's month some of those days may not exist;
+     * see {@link #exists(int, int, int)}.
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @return The last day of the month
+     */
+    public int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return isLeapYear(year) ? 29 : 28;
+        }
+        return WeekdayEngine.daysInMonth(year, month);
+    }
+
+    /**
+     * Get the day of the week of a date
+     *
+     * @return The weekday as a WeekdayEngine constant (SUNDAY ... SATURDAY)
+     */
+    public int dayOfWeek(int year, int month, int day) {
+        return EpochDay.dayOfWeek(epochDay(year, month, day));
+    }
+
+    /**
+     * Get the doomsday of a year: the weekday of the last day of February
+     *
+     * @param year The year
+     * @return The doomsday as 0 = Sunday ... 6 = Saturday
+     */
+    public int doomsday(int year) {
+        return dayOfWeek(year, 2, daysInMonth(year, 2)) - 1;
+    }
+
+    /**
+     * Check whether a year has dropped dates or dates under both rules; the doomsday
+     * method doesn't apply to such a year as a whole
+     */
+    public boolean isTransitionYear(int year) {
+        return year >= firstTransitionYear && year <= lastTransitionYear;
+    }
+
+    /**
+     * @return The epoch day of the first date of a year that exists
+     */
+    public long firstDayOfYear(int year) {
+        if (EpochDay.pack(year, 1, 1) >= cutoverDate) {
+            return EpochDay.of(year, 1, 1);
+        }
+        // If 1 January was dropped, the year starts with the cutover
+        return Math.min(julianEpochDay(year, 1, 1), cutoverEpochDay);
+    }
+
+    /**
+     * @return The epoch day of the last date of a year that exists
+     */
+    public long lastDayOfYear(int year) {
+        if (EpochDay.pack(year, 12, 31) >= cutoverDate) {
+            return EpochDay.of(year, 12, 31);
+        }
+        // If 31 December was dropped, the year ends the day before the cutover
+        return Math.min(julianEpochDay(year, 12, 31), cutoverEpochDay - 1);
+    }
+
+    /**
+     * Convert a Julian date to its epoch day, via the Julian day number
+     */
+    static long julianEpochDay(int year, int month, int day) {
+        int a = month <= 2 ? 1 : 0;
+        long y = (long) year + 4800 - a;
+        int m = month + 12 * a - 3;
+        long julianDayNumber = day + (153 * m + 2) / 5 + 365 * y + Math.floorDiv(y, 4) - 32083;
+        return julianDayNumber - EPOCH_JULIAN_DAY_NUMBER;
+    }
+
+    /**
+     * Convert an epoch day to a packed Julian date
+     */
+    static long julianDate(long epochDay) {
+        long c = epochDay + EPOCH_JULIAN_DAY_NUMBER + 32082;
+        long d = Math.floorDiv(4 * c + 3, 1461);
+        int e = (int) (c - Math.floorDiv(1461 * d, 4));
+        int m = (5 * e + 2) / 153;
+        int day = e - (153 * m + 2) / 5 + 1;
+        int month = m + 3 - 12 * (m / 10);
+        long year = d - 4800 + m / 10;
+        return EpochDay.pack((int) year, month, day);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CalendarSystem)) {
+            return false;
+        }
+        return cutoverDate == ((CalendarSystem) o).cutoverDate;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cutoverDate);
+    }
+
+    @Override
+    public String toString() {
+        if (isGregorian()) {
+            return "Gregorian";
+        }
+        if (isJulian()) {
+            return "Julian";
+        }
+        return "Julian until " + EpochDay.year(cutoverDate) + "-" + EpochDay.month(cutoverDate) + "-"
+                + EpochDay.day(cutoverDate);
+    }
+}
@@ -0,0 +1,141 @@
+package froggy.game.doomsdaytrainer;
+
+import java.util.Arrays;
+
+/**
+ * Restricts drills to some kinds of dates, e.g. only January and February of leap years or
+ * only the 1700s. All restrictions apply together. Immutable.
+ */
+public final class DateFilter {
+
+    /** Month mask that allows every month; bit 0 is January */
+    public static final int ALL_MONTHS = (1 << 12) - 1;
+
+    /** The filter that allows every date */
+    public static final DateFilter NONE = new DateFilter(ALL_MONTHS, null, false, false, false);
+
+    private final int monthMask;
+    private final int[] centuries; // sorted; null for any century
+    private final boolean leapYearsOnly;
+    private final boolean weekendsOnly;
+    private final boolean anchorDaysOnly;
+
+    /**
+     * @param monthMask The allowed months, bit 0 for January; 0 is taken to mean all months
+     * @param centuries The allowed centuries as in floorDiv(year, 100), e.g. 17 for the 1700s;
+     *                  null or empty for any century
+     * @param leapYearsOnly Only allow dates in leap years
+     * @param weekendsOnly Only allow Saturdays and Sundays
+     * @param anchorDaysOnly Only allow dates that fall on their year's doomsday
+     */
+    public DateFilter(int monthMask, int[] centuries, boolean leapYearsOnly, boolean weekendsOnly,
+                      boolean anchorDaysOnly) {
+        monthMask &= ALL_MONTHS;
+        this.monthMask = monthMask == 0 ? ALL_MONTHS : monthMask;
+        if (centuries == null || centuries.length == 0) {
+            this.centuries = null;
+        } else {
+            this.centuries = centuries.clone();
+            Arrays.sort(this.centuries);
+        }
+        this.leapYearsOnly = leapYearsOnly;
+        this.weekendsOnly = weekendsOnly;
+        this.anchorDaysOnly = anchorDaysOnly;
+    }
+
+    /**
+     * @return true if this filter allows every date
+     */
+    public boolean isUnfiltered() {
+        return monthMask == ALL_MONTHS && centuries == null && !leapYearsOnly && !weekendsOnly && !anchorDaysOnly;
+    }
+
+    public boolean allowsMonth(int month) {
+        return (monthMask & 1 << (month - 1)) != 0;
+    }
+
+    /**
+     * Check the restrictions that depend only on the year
+     *
+     * @param year The year
+     * @param leapYear Whether the year is a leap year in the calendar in use
+     */
+    public boolean allowsYear(int year, boolean leapYear) {
+        if (leapYearsOnly && !leapYear) {
+            return false;
+        }
+        return centuries == null || Arrays.binarySearch(centuries, Math.floorDiv(year, 100)) >= 0;
+    }
+
+    /**
+     * Check the restrictions that depend on the day
+     *
+     * @param dayOfWeek The date's weekday, as a WeekdayEngine constant
+     * @param doomsday The weekday of the year's doomsday, as a WeekdayEngine constant
+     */
+    public boolean allowsDay(int dayOfWeek, int doomsday) {
+        if (weekendsOnly && dayOfWeek != WeekdayEngine.SATURDAY && dayOfWeek != WeekdayEngine.SUNDAY) {
+            return false;
+        }
+        return !anchorDaysOnly || dayOfWeek == doomsday;
+    }
+
+    /**
+     * Check a date against all restrictions
+     *
+     * @param calendar The calendar the date is in
+     */
+    public boolean matches(int year, int month, int day, CalendarSystem calendar) {
+        return allowsMonth(month) && allowsYear(year, calendar.isLeapYear(year))
+                && allowsDay(calendar.dayOfWeek(year, month, day), calendar.doomsday(year) + 1);
+    }
+
+    public int getMonthMask() {
+        return monthMask;
+    }
+
+    /**
+     * @return The allowed centuries, or null for any century
+     */
+    public int[] getCenturies() {
+        return centuries == null ? null : centuries.clone();
+    }
+
+    public boolean isLeapYearsOnly() {
+        return leapYearsOnly;
+    }
+
+    public boolean isWeekendsOnly() {
+        return weekendsOnly;
+    }
+
+    public boolean isAnchorDaysOnly() {
+        return anchorDaysOnly;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DateFilter)) {
+            return false;
+        }
+        DateFilter other = (DateFilter) o;
+        return monthMask == other.monthMask
+                && Arrays.equals(centuries, other.centuries)
+                && leapYearsOnly == other.leapYearsOnly
+                && weekendsOnly == other.weekendsOnly
+                && anchorDaysOnly == other.anchorDaysOnly;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = monthMask;
+        result = 31 * result + Arrays.hashCode(centuries);
+        result = 31 * result + (leapYearsOnly ? 1 : 0);
+        result = 31 * result + (weekendsOnly ? 1 : 0);
+        result = 31 * result + (anchorDaysOnly ? 1 : 0);
+        return result;
+    }
+}
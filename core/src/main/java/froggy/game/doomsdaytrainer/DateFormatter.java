@@ -0,0 +1,234 @@
+package froggy.game.doomsdaytrainer;
+
+import java.text.DateFormatSymbols;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * A date pattern compiled once for a locale, then applied to any number of dates without
+ * re-parsing the pattern or reloading locale data.
+ *
+ * Understands the subset of SimpleDateFormat used by the settings: {@code d}, {@code M}
+ * (numeric for one or two letters, short name for three, full name for four or more),
+ * {@code y} ({@code yy} is the two-digit year) and quoted literals. Months and day numbers
+ * use the same text and digits as SimpleDateFormat for the locale. Years before 1 are written
+ * with a minus sign in astronomical numbering (year 0 is 1 BC) instead of as an era.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class DateFormatter {
+
+    private static final int OP_LITERAL = 0;      // argument: index into literals
+    private static final int OP_DAY = 1;          // argument: minimum digits
+    private static final int OP_MONTH = 2;        // argument: minimum digits
+    private static final int OP_MONTH_SHORT = 3;
+    private static final int OP_MONTH_LONG = 4;
+    private static final int OP_YEAR = 5;         // argument: minimum digits
+    private static final int OP_YEAR_TWO_DIGITS = 6;
+
+    private final String pattern;
+    private final Locale locale;
+    private final int[] ops;        // op code and argument pairs
+    private final String[] literals;
+    private final String[] longMonths;
+    private final String[] shortMonths;
+    private final char zeroDigit;
+
+    private DateFormatter(String pattern, Locale locale, int[] ops, String[] literals) {
+        this.pattern = pattern;
+        this.locale = locale;
+        this.ops = ops;
+        this.literals = literals;
+        DateFormatSymbols symbols = DateFormatSymbols.getInstance(locale);
+        this.longMonths = symbols.getMonths();
+        this.shortMonths = symbols.getShortMonths();
+        this.zeroDigit = DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+    }
+
+    /**
+     * Compile a date pattern
+     *
+     * @param pattern The SimpleDateFormat-style pattern, e.g. SettingsActivity.FORMAT_LONG
+     * @param locale The locale to take month names and digits from
+     * @return The compiled formatter
+     * @throws IllegalArgumentException if the pattern uses an unsupported letter
+     */
+    public static DateFormatter compile(String pattern, Locale locale) {
+        int[] ops = new int[pattern.length() * 2];
+        String[] literals = new String[pattern.length()];
+        int opCount = 0;
+        int literalCount = 0;
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                // Quoted text; '' is a literal quote, inside or outside quotes
+                int end = i + 1;
+                if (end < pattern.length() && pattern.charAt(end) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                while (end < pattern.length()) {
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+                            literal.append('\'');
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(pattern.charAt(end));
+                    end++;
+                }
+                if (end >= pattern.length()) {
+                    throw new IllegalArgumentException("Unterminated quote in pattern: " + pattern);
+                }
+                i = end + 1;
+                continue;
+            }
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            int count = 1;
+            while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            if (literal.length() > 0) {
+                ops[opCount++] = OP_LITERAL;
+                ops[opCount++] = literalCount;
+                literals[literalCount++] = literal.toString();
+                literal.setLength(0);
+            }
+            switch (c) {
+                case 'd':
+                    ops[opCount++] = OP_DAY;
+                    ops[opCount++] = count;
+                    break;
+                case 'M':
+                    ops[opCount++] = count >= 4 ? OP_MONTH_LONG : count == 3 ? OP_MONTH_SHORT : OP_MONTH;
+                    ops[opCount++] = count;
+                    break;
+                case 'y':
+                    ops[opCount++] = count == 2 ? OP_YEAR_TWO_DIGITS : OP_YEAR;
+                    ops[opCount++] = count;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported letter '" + c + "' in pattern: " + pattern);
+            }
+            i += count;
+        }
+        if (literal.length() > 0) {
+            ops[opCount++] = OP_LITERAL;
+            ops[opCount++] = literalCount;
+            literals[literalCount++] = literal.toString();
+        }
+
+        int[] compiledOps = new int[opCount];
+        System.arraycopy(ops, 0, compiledOps, 0, opCount);
+        String[] compiledLiterals = new String[literalCount];
+        System.arraycopy(literals, 0, compiledLiterals, 0, literalCount);
+        return new DateFormatter(pattern, locale, compiledOps, compiledLiterals);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Check whether this formatter was compiled from a pattern and locale
+     *
+     * @param pattern The pattern
+     * @param locale The locale
+     * @return true if the formatter can be reused for them
+     */
+    public boolean matches(String pattern, Locale locale) {
+        return this.pattern.equals(pattern) && this.locale.equals(locale);
+    }
+
+    /**
+     * Append a formatted date. Allocates nothing once the builder has grown to fit.
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @param day The day of the month (1-31)
+     * @param out The builder to append to
+     */
+    public void format(int year, int month, int day, StringBuilder out) {
+        for (int i = 0; i < ops.length; i += 2) {
+            int argument = ops[i + 1];
+            switch (ops[i]) {
+                case OP_LITERAL:
+                    out.append(literals[argument]);
+                    break;
+                case OP_DAY:
+                    appendNumber(out, day, argument);
+                    break;
+                case OP_MONTH:
+                    appendNumber(out, month, argument);
+                    break;
+                case OP_MONTH_SHORT:
+                    out.append(shortMonths[month - 1]);
+                    break;
+                case OP_MONTH_LONG:
+                    out.append(longMonths[month - 1]);
+                    break;
+                case OP_YEAR:
+                    if (year < 0) {
+                        out.append('-');
+                        // -year overflows for Integer.MIN_VALUE, so print it as a long
+                        appendNumber(out, -(long) year, argument);
+                    } else {
+                        appendNumber(out, year, argument);
+                    }
+                    break;
+                case OP_YEAR_TWO_DIGITS:
+                    appendNumber(out, Math.floorMod(year, 100), 2);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Format a date into a new string
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @param day The day of the month (1-31)
+     * @return The formatted date
+     */
+    public String format(int year, int month, int day) {
+        StringBuilder out = new StringBuilder(32);
+        format(year, month, day, out);
+        return out.toString();
+    }
+
+    /**
+     * Append a non-negative number in the locale's digits, zero-padded to a minimum width
+     */
+    private void appendNumber(StringBuilder out, long value, int minDigits) {
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        for (int i = digits; i < minDigits; i++) {
+            out.append(zeroDigit);
+        }
+        long divisor = 1;
+        for (int i = 1; i < digits; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) (zeroDigit + (value / divisor) % 10));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * Bitset over every day of a year range marking the days a {@link DateFilter} allows, with
+ * rank and select directories so that the k-th allowed day can be found directly. Drawing k
+ * uniformly then draws a uniform allowed date, however rare the allowed dates are, without
+ * rejection sampling.
+ *
+ * Ranks are kept for every block of {@link #BLOCK_WORDS} words, and the block holding every
+ * {@link #SELECT_SAMPLE}th set bit is sampled; select jumps to the sampled block, narrows down
+ * to the right block with a binary search between two samples (usually zero or one steps) and
+ * finishes within a word. Together the directories add about 1/16 to the size of the bitset.
+ *
+ * Bits follow epoch days, so the dates dropped by a calendar cutover have no bit.
+ *
+ * Immutable and thread-safe once built. Building takes time linear in the number of days in the
+ * range, so do it off the UI thread.
+ */
+public final class DateIndex {
+
+    /** The widest range that can be indexed; about 18 million days */
+    public static final int MAX_YEARS = 50_000;
+
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCK_BITS = BLOCK_WORDS * 64;
+    private static final int SELECT_SAMPLE = 512;
+
+    private final int startYear;
+    private final int endYear;
+    private final DateFilter filter;
+    private final CalendarSystem calendar;
+    private final long firstDay; // epoch day of bit 0
+    private final long[] words;
+    private final int[] blockRanks;    // set bits before each block
+    private final int[] selectSamples; // block holding set bit i * SELECT_SAMPLE
+    private final int count;
+
+    private DateIndex(int startYear, int endYear, DateFilter filter, CalendarSystem calendar,
+                      long firstDay, long[] words) {
+        this.startYear = startYear;
+        this.endYear = endYear;
+        this.filter = filter;
+        this.calendar = calendar;
+        this.firstDay = firstDay;
+        this.words = words;
+
+        int blocks = (words.length + BLOCK_WORDS - 1) / BLOCK_WORDS;
+        blockRanks = new int[blocks + 1];
+        int total = 0;
+        for (int block = 0; block < blocks; block++) {
+            blockRanks[block] = total;
+            int end = Math.min(words.length, (block + 1) * BLOCK_WORDS);
+            for (int word = block * BLOCK_WORDS; word < end; word++) {
+                total += Long.bitCount(words[word]);
+            }
+        }
+        blockRanks[blocks] = total;
+        count = total;
+
+        selectSamples = new int[(total + SELECT_SAMPLE - 1) / SELECT_SAMPLE];
+        int block = 0;
+        for (int i = 0; i < selectSamples.length; i++) {
+            int rank = i * SELECT_SAMPLE;
+            while (blockRanks[block + 1] <= rank) {
+                block++;
+            }
+            selectSamples[i] = block;
+        }
+    }
+
+    /**
+     * Mark the allowed days of a range of the proleptic Gregorian calendar
+     *
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     * @param filter The dates to allow
+     * @return The index
+     * @throws IllegalArgumentException if the range is empty or wider than {@link #MAX_YEARS}
+     */
+    public static DateIndex build(int startYear, int endYear, DateFilter filter) {
+        return build(startYear, endYear, filter, CalendarSystem.GREGORIAN);
+    }
+
+    /**
+     * Mark the allowed days of a range
+     *
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     * @param filter The dates to allow
+     * @param calendar The calendar the dates are in
+     * @return The index
+     * @throws IllegalArgumentException if the range is empty or wider than {@link #MAX_YEARS}
+     */
+    public static DateIndex build(int startYear, int endYear, DateFilter filter, CalendarSystem calendar) {
+        if (endYear < startYear) {
+            throw new IllegalArgumentException("endYear < startYear: " + endYear + " < " + startYear);
+        }
+        if ((long) endYear - startYear + 1 > MAX_YEARS) {
+            throw new IllegalArgumentException("Range wider than " + MAX_YEARS + " years: " + startYear + " to " + endYear);
+        }
+        long firstDay = calendar.firstDayOfYear(startYear);
+        int dayCount = (int) (calendar.lastDayOfYear(endYear) - firstDay + 1);
+        long[] words = new long[(dayCount + 63) >>> 6];
+
+        int bit = 0;
+        for (int year = startYear; year <= endYear; year++) {
+            boolean yearAllowed = filter.allowsYear(year, calendar.isLeapYear(year));
+            int doomsday = calendar.doomsday(year) + 1;
+            if (calendar.isTransitionYear(year)) {
+                // Days dropped by the cutover take no bit
+                for (int month = 1; month <= 12; month++) {
+                    boolean monthAllowed = yearAllowed && filter.allowsMonth(month);
+                    for (int day = 1; day <= calendar.daysInMonth(year, month); day++) {
+                        if (calendar.exists(year, month, day)) {
+                            if (monthAllowed && filter.allowsDay(calendar.dayOfWeek(year, month, day), doomsday)) {
+                                words[bit >>> 6] |= 1L << bit;
+                            }
+                            bit++;
+                        }
+                    }
+                }
+                continue;
+            }
+            for (int month = 1; month <= 12; month++) {
+                int length = calendar.daysInMonth(year, month);
+                if (yearAllowed && filter.allowsMonth(month)) {
+                    int dayOfWeek = calendar.dayOfWeek(year, month, 1);
+                    for (int day = 0; day < length; day++) {
+                        if (filter.allowsDay(dayOfWeek, doomsday)) {
+                            words[(bit + day) >>> 6] |= 1L << (bit + day);
+                        }
+                        dayOfWeek = dayOfWeek == WeekdayEngine.SATURDAY ? WeekdayEngine.SUNDAY : dayOfWeek + 1;
+                    }
+                }
+                bit += length;
+            }
+        }
+        return new DateIndex(startYear, endYear, filter, calendar, firstDay, words);
+    }
+
+    public int getStartYear() {
+        return startYear;
+    }
+
+    public int getEndYear() {
+        return endYear;
+    }
+
+    public DateFilter getFilter() {
+        return filter;
+    }
+
+    public CalendarSystem getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * @return The number of allowed days in the range
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @param epochDay A day in the range
+     * @return true if the filter allows the day
+     */
+    public boolean contains(long epochDay) {
+        long bit = epochDay - firstDay;
+        if (bit < 0 || bit >= (long) words.length << 6) {
+            return false;
+        }
+        return (words[(int) (bit >>> 6)] & 1L << bit) != 0;
+    }
+
+    /**
+     * Count the allowed days before a day
+     *
+     * @param epochDay The day
+     * @return The number of allowed days in the range before it
+     */
+    public int rank(long epochDay) {
+        long bit = epochDay - firstDay;
+        if (bit <= 0) {
+            return 0;
+        }
+        if (bit >= (long) words.length << 6) {
+            return count;
+        }
+        int word = (int) (bit >>> 6);
+        int block = word / BLOCK_WORDS;
+        int rank = blockRanks[block];
+        for (int i = block * BLOCK_WORDS; i < word; i++) {
+            rank += Long.bitCount(words[i]);
+        }
+        return rank + Long.bitCount(words[word] & ((1L << bit) - 1));
+    }
+
+    /**
+     * Find an allowed day by its position among all allowed days
+     *
+     * @param k The position, from 0 to {@link #count()} - 1
+     * @return The epoch day
+     */
+    public long select(int k) {
+        if (k < 0 || k >= count) {
+            throw new IndexOutOfBoundsException("Day " + k + " of " + count);
+        }
+        // The block holding set bit k lies between the samples around it
+        int sample = k / SELECT_SAMPLE;
+        int low = selectSamples[sample];
+        int high = sample + 1 < selectSamples.length ? selectSamples[sample + 1] : blockRanks.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blockRanks[mid] <= k) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int remaining = k - blockRanks[low];
+        int word = low * BLOCK_WORDS;
+        int bits;
+        while ((bits = Long.bitCount(words[word])) <= remaining) {
+            remaining -= bits;
+            word++;
+        }
+        long value = words[word];
+        for (int i = 0; i < remaining; i++) {
+            value &= value - 1; // drop the lowest set bit
+        }
+        return firstDay + ((long) word << 6) + Long.numberOfTrailingZeros(value);
+    }
+
+    /**
+     * @return The approximate memory taken by the bitset and its directories
+     */
+    public long footprintBytes() {
+        return words.length * 8L + blockRanks.length * 4L + selectSamples.length * 4L;
+    }
+}
@@ -0,0 +1,124 @@
+package froggy.game.doomsdaytrainer;
+
+import java.util.Random;
+
+/**
+ * Draws dates uniformly from a range of whole years; the plain question strategy.
+ *
+ * Instead of picking a year, then a month, then a day (which favours the days of short
+ * months), a single epoch day is drawn from the range and converted back to a date, so every
+ * day in the range is equally likely. All arithmetic is on longs; any int year range works.
+ * Epoch days are consecutive across a calendar cutover, so the dropped dates are never drawn.
+ *
+ * Not thread-safe; give each thread its own sampler.
+ */
+public final class DateSampler implements QuestionStrategy {
+
+    private final Random random;
+    private final CalendarSystem calendar;
+    private int startYear;
+    private int endYear;
+    private long firstDay;  // epoch day of the first day of startYear
+    private long dayCount;  // number of days in the range
+
+    /**
+     * @param random The source of randomness
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     */
+    public DateSampler(Random random, int startYear, int endYear) {
+        this(random, startYear, endYear, CalendarSystem.GREGORIAN);
+    }
+
+    /**
+     * @param random The source of randomness
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     * @param calendar The calendar the dates are in
+     */
+    public DateSampler(Random random, int startYear, int endYear, CalendarSystem calendar) {
+        this.random = random;
+        this.calendar = calendar;
+        setRange(startYear, endYear);
+    }
+
+    /**
+     * Change the range dates are drawn from. Cheap if the range is unchanged.
+     *
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     */
+    @Override
+    public void setRange(int startYear, int endYear) {
+        if (endYear < startYear) {
+            throw new IllegalArgumentException("endYear < startYear: " + endYear + " < " + startYear);
+        }
+        if (dayCount != 0 && startYear == this.startYear && endYear == this.endYear) {
+            return;
+        }
+        this.startYear = startYear;
+        this.endYear = endYear;
+        this.firstDay = calendar.firstDayOfYear(startYear);
+        this.dayCount = calendar.lastDayOfYear(endYear) - firstDay + 1;
+    }
+
+    public int getStartYear() {
+        return startYear;
+    }
+
+    public int getEndYear() {
+        return endYear;
+    }
+
+    public CalendarSystem getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Draw a random day
+     *
+     * @return The epoch day, uniformly distributed over the range
+     */
+    public long nextEpochDay() {
+        return firstDay + nextLong(random, dayCount);
+    }
+
+    /**
+     * Draw a random date
+     *
+     * @return The date packed as by {@link EpochDay#pack(int, int, int)}
+     */
+    @Override
+    public long nextDate() {
+        return calendar.toDate(nextEpochDay());
+    }
+
+    /**
+     * Every date stays equally likely, whatever the answers
+     */
+    @Override
+    public void recordAnswer(int year, int month, boolean correct) {
+    }
+
+    @Override
+    public QuestionStrategy fork(Random random) {
+        return new DateSampler(random, startYear, endYear, calendar);
+    }
+
+    /**
+     * Uniform long in [0, bound). Random.nextLong(long) is not available on older Android.
+     */
+    static long nextLong(Random random, long bound) {
+        if (bound <= Integer.MAX_VALUE) {
+            return random.nextInt((int) bound);
+        }
+        // Same rejection scheme as Random.nextInt(int): retry draws from the incomplete last block
+        long bits;
+        long value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+}
@@ -0,0 +1,95 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * Conversion between proleptic Gregorian dates and epoch days (days since 1970-01-01).
+ *
+ * Uses Howard Hinnant's days_from_civil / civil_from_days algorithms on longs, so every
+ * int year (including zero and negative years) converts without overflow.
+ * A converted date is returned as a single packed long to avoid allocating a holder;
+ * use {@link #year(long)}, {@link #month(long)} and {@link #day(long)} to unpack it.
+ */
+public final class EpochDay {
+
+    // Packed date layout: year in the high bits, 4 bits month, 5 bits day
+    private static final int MONTH_SHIFT = 5;
+    private static final int YEAR_SHIFT = 9;
+
+    private static final long DAYS_PER_ERA = 146097; // 400 years
+    private static final long DAYS_0000_03_01_TO_EPOCH = 719468;
+
+    private EpochDay() {
+    }
+
+    /**
+     * Convert a date to its epoch day
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @param day The day of the month (1-31)
+     * @return Days since 1970-01-01 (negative before)
+     */
+    public static long of(int year, int month, int day) {
+        // Count years from March so the leap day is the last day of the year
+        long y = month <= 2 ? (long) year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        int monthFromMarch = month > 2 ? month - 3 : month + 9;
+        long dayOfYear = (153 * monthFromMarch + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_03_01_TO_EPOCH;
+    }
+
+    /**
+     * Convert an epoch day to a packed date
+     *
+     * @param epochDay Days since 1970-01-01
+     * @return The packed date
+     */
+    public static long toDate(long epochDay) {
+        long z = epochDay + DAYS_0000_03_01_TO_EPOCH;
+        long era = Math.floorDiv(z, DAYS_PER_ERA);
+        long dayOfEra = z - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int monthFromMarch = (int) ((5 * dayOfYear + 2) / 153);
+        int day = (int) (dayOfYear - (153 * monthFromMarch + 2) / 5 + 1);
+        int month = monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return pack((int) year, month, day);
+    }
+
+    /**
+     * Get the day of the week of an epoch day
+     *
+     * @param epochDay Days since 1970-01-01
+     * @return The weekday as a WeekdayEngine constant (SUNDAY ... SATURDAY)
+     */
+    public static int dayOfWeek(long epochDay) {
+        // 1970-01-01 was a Thursday
+        return (int) Math.floorMod(epochDay + 4, 7L) + 1;
+    }
+
+    /**
+     * Pack a date into a long
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @param day The day of the month (1-31)
+     * @return The packed date
+     */
+    public static long pack(int year, int month, int day) {
+        return ((long) year << YEAR_SHIFT) | ((long) month << MONTH_SHIFT) | day;
+    }
+
+    public static int year(long date) {
+        return (int) (date >> YEAR_SHIFT);
+    }
+
+    public static int month(long date) {
+        return (int) (date >>> MONTH_SHIFT) & 0xF;
+    }
+
+    public static int day(long date) {
+        return (int) date & 0x1F;
+    }
+}
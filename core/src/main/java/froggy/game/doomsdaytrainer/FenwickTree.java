@@ -0,0 +1,79 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * Binary indexed (Fenwick) tree of non-negative weights, for drawing an index with probability
+ * proportional to its weight. Changing a weight and finding the index for a drawn number both
+ * take O(log n).
+ *
+ * Not thread-safe.
+ */
+public final class FenwickTree {
+
+    private final long[] tree; // 1-based partial sums
+    private final int topBit;  // highest power of two not above the size
+
+    /**
+     * @param size The number of weights, all starting at 0
+     */
+    public FenwickTree(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size < 1: " + size);
+        }
+        tree = new long[size + 1];
+        topBit = Integer.highestOneBit(size);
+    }
+
+    public int size() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Change a weight
+     *
+     * @param index The weight's index, from 0
+     * @param delta The amount to add
+     */
+    public void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @param end The number of weights to add up
+     * @return The sum of the weights before index end
+     */
+    public long prefixSum(int end) {
+        long sum = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return The sum of all weights
+     */
+    public long total() {
+        return prefixSum(size());
+    }
+
+    /**
+     * Find the index a number in [0, total) falls on when the weights are laid end to end.
+     * Drawing the number uniformly draws the index with probability proportional to its weight.
+     *
+     * @param target The number
+     * @return The smallest index whose prefix sum including itself exceeds target
+     */
+    public int find(long target) {
+        int position = 0;
+        for (int step = topBit; step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return position; // 0-based index of the weight after the skipped ones
+    }
+}
@@ -0,0 +1,60 @@
+package froggy.game.doomsdaytrainer;
+
+import java.util.Random;
+
+/**
+ * Question strategy for filtered drills: draws dates uniformly from those a {@link DateIndex}
+ * allows, in constant time.
+ *
+ * The range is fixed by the index; a different range or filter needs a new index.
+ * Not thread-safe; give each thread its own sampler (they can share the index).
+ */
+public final class FilteredDateSampler implements QuestionStrategy {
+
+    private final Random random;
+    private final DateIndex index;
+
+    /**
+     * @param random The source of randomness
+     * @param index The allowed dates; must allow at least one
+     */
+    public FilteredDateSampler(Random random, DateIndex index) {
+        if (index.count() == 0) {
+            throw new IllegalArgumentException("The filter allows no dates in the range");
+        }
+        this.random = random;
+        this.index = index;
+    }
+
+    public DateIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the range isn't the one the index was built for
+     */
+    @Override
+    public void setRange(int startYear, int endYear) {
+        if (startYear != index.getStartYear() || endYear != index.getEndYear()) {
+            throw new IllegalArgumentException("Index covers " + index.getStartYear() + " to "
+                    + index.getEndYear() + ", not " + startYear + " to " + endYear);
+        }
+    }
+
+    @Override
+    public long nextDate() {
+        return index.getCalendar().toDate(index.select(random.nextInt(index.count())));
+    }
+
+    /**
+     * Every allowed date stays equally likely, whatever the answers
+     */
+    @Override
+    public void recordAnswer(int year, int month, boolean correct) {
+    }
+
+    @Override
+    public QuestionStrategy fork(Random random) {
+        return new FilteredDateSampler(random, index);
+    }
+}
@@ -0,0 +1,251 @@
+package froggy.game.doomsdaytrainer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fixed-size, mergeable histogram of think times, in the style of HdrHistogram.
+ *
+ * Times are counted in microsecond buckets that are exact below 64 microseconds and above that
+ * keep 6 significant bits, i.e. every bucket is at most 1/32 (~3%) wide relative to its values.
+ * Times from 0 up to 2^32 microseconds (about 71 minutes; longer times are clamped) fit in
+ * 896 buckets, so a histogram always takes about 7 KiB no matter how many times it has seen.
+ * Exact minimum, maximum and sum are kept alongside the buckets.
+ *
+ * Not thread-safe.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;  // 32
+    private static final int LINEAR_LIMIT = SUB_BUCKET_HALF << 1;     // values below are exact
+    private static final long MAX_MICROS = (1L << 32) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_MICROS) + 1;
+
+    private static final int MAGIC = 0x4C484731; // "LHG1"
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+    private long sumNanos;
+
+    private static int bucketIndex(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_HALF + (int) (micros >>> shift);
+    }
+
+    /**
+     * Get the largest time, in microseconds, counted in a bucket
+     */
+    private static long bucketUpperMicros(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long mantissa = index % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Count one think time
+     *
+     * @param nanos The time in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucketIndex(Math.min(nanos / 1000, MAX_MICROS))]++;
+        totalCount++;
+        sumNanos += nanos;
+        if (nanos < minNanos) {
+            minNanos = nanos;
+        }
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    /**
+     * Add all times counted by another histogram, e.g. to merge a series into lifetime statistics
+     *
+     * @param other The histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sumNanos += other.sumNanos;
+        minNanos = Math.min(minNanos, other.minNanos);
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+
+    /**
+     * Forget all counted times
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sumNanos = 0;
+        minNanos = Long.MAX_VALUE;
+        maxNanos = 0;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return The fastest time in nanoseconds, or 0 if empty
+     */
+    public long getMinNanos() {
+        return totalCount == 0 ? 0 : minNanos;
+    }
+
+    /**
+     * @return The slowest time in nanoseconds, or 0 if empty
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @return The average time in nanoseconds, or 0 if empty
+     */
+    public long getMeanNanos() {
+        return totalCount == 0 ? 0 : sumNanos / totalCount;
+    }
+
+    /**
+     * Get the time below which a given fraction of the counted times fall
+     *
+     * @param quantile The fraction, e.g. 0.5 for the median or 0.99 for the 99th percentile
+     * @return The time in nanoseconds (within the bucket precision), or 0 if empty
+     */
+    public long quantileNanos(double quantile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        if (quantile <= 0) {
+            return minNanos;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long nanos = bucketUpperMicros(i) * 1000 + 999;
+                return Math.max(minNanos, Math.min(nanos, maxNanos));
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * Count the times in a range, for drawing a coarse histogram
+     *
+     * @param fromNanos The start of the range (inclusive)
+     * @param toNanos The end of the range (exclusive)
+     * @return The number of counted times whose bucket starts in the range
+     */
+    public long countBetween(long fromNanos, long toNanos) {
+        int from = bucketIndex(Math.min(Math.max(fromNanos, 0) / 1000, MAX_MICROS));
+        int to = toNanos / 1000 > MAX_MICROS ? BUCKET_COUNT : bucketIndex(Math.max(toNanos, 0) / 1000);
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            count += counts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Write the histogram compactly; only non-empty buckets are stored
+     *
+     * @param out The output to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (long count : counts) {
+            if (count != 0) {
+                used++;
+            }
+        }
+        out.writeInt(MAGIC);
+        out.writeLong(totalCount);
+        out.writeLong(minNanos);
+        out.writeLong(maxNanos);
+        out.writeLong(sumNanos);
+        out.writeShort(used);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Read a histogram written by {@link #writeTo(DataOutput)}
+     *
+     * @param in The input to read from
+     * @return The histogram
+     * @throws IOException if reading fails or the data is not a histogram
+     */
+    public static LatencyHistogram readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a latency histogram");
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.totalCount = in.readLong();
+        histogram.minNanos = in.readLong();
+        histogram.maxNanos = in.readLong();
+        histogram.sumNanos = in.readLong();
+        int used = in.readUnsignedShort();
+        for (int i = 0; i < used; i++) {
+            int index = in.readUnsignedShort();
+            if (index >= BUCKET_COUNT) {
+                throw new IOException("Bad bucket index " + index);
+            }
+            histogram.counts[index] = in.readLong();
+        }
+        return histogram;
+    }
+
+    /**
+     * Serialize the histogram, e.g. to pass it in an Intent
+     *
+     * @return The serialized histogram
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not possible for an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize a histogram from {@link #toByteArray()}
+     *
+     * @param data The serialized histogram
+     * @return The histogram
+     * @throws IOException if the data is not a histogram
+     */
+    public static LatencyHistogram fromByteArray(byte[] data) throws IOException {
+        return readFrom(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+}
@@ -0,0 +1,55 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * One ready-to-show question: the date, its answer and the text to display.
+ */
+public final class Question {
+
+    private final int index;
+    private final int year;
+    private final int month;
+    private final int day;
+    private final int dayOfWeek;
+    private final CharSequence displayText;
+
+    /**
+     * @param index The position of the question in its series (0-based)
+     * @param year The year
+     * @param month The month (1-12)
+     * @param day The day of the month
+     * @param dayOfWeek The correct answer as a WeekdayEngine constant
+     * @param displayText The text to show for the question, e.g. the date and series progress
+     */
+    public Question(int index, int year, int month, int day, int dayOfWeek, CharSequence displayText) {
+        this.index = index;
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.dayOfWeek = dayOfWeek;
+        this.displayText = displayText;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public int getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public CharSequence getDisplayText() {
+        return displayText;
+    }
+}
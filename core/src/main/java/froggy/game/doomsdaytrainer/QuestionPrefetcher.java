@@ -0,0 +1,172 @@
+package froggy.game.doomsdaytrainer;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps the next few questions of a series ready, generating them on a background executor
+ * so that moving to the next question only has to take a finished value.
+ *
+ * {@link #poll(int)} never waits for the worker: if the wanted question isn't ready yet it
+ * returns null and the caller generates one itself. Restarting or stopping discards every
+ * queued question, including one that is being generated at that moment. If the factory throws
+ * or the executor rejects the work, the next poll tries again.
+ */
+public final class QuestionPrefetcher {
+
+    /**
+     * Creates the question at a given position of the series. Called on the executor's thread.
+     */
+    public interface QuestionFactory {
+        Question create(int index);
+    }
+
+    private final Executor executor;
+    private final int capacity;
+    private final Object lock = new Object();
+    private final Runnable refill = this::refill;
+
+    // All guarded by lock
+    private final ArrayDeque<Question> queue;
+    private QuestionFactory factory;
+    private int nextIndex;     // index of the next question to generate
+    private int endIndex;      // one past the last question of the series
+    private int generation;    // bumped on restart/stop to invalidate work in flight
+    private boolean refillScheduled;
+
+    /**
+     * @param executor The executor to generate questions on, ideally a single background thread
+     * @param capacity The number of questions to keep ready
+     */
+    public QuestionPrefetcher(Executor executor, int capacity) {
+        this.executor = executor;
+        this.capacity = capacity;
+        this.queue = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Discard any prefetched questions and start filling the queue for a series
+     *
+     * @param factory Creates the questions
+     * @param firstIndex The index of the first question to prefetch
+     * @param endIndex One past the index of the last question of the series
+     */
+    public void start(QuestionFactory factory, int firstIndex, int endIndex) {
+        synchronized (lock) {
+            generation++;
+            queue.clear();
+            this.factory = factory;
+            this.nextIndex = firstIndex;
+            this.endIndex = endIndex;
+        }
+        scheduleRefill();
+    }
+
+    /**
+     * Discard any prefetched questions and stop generating
+     */
+    public void stop() {
+        synchronized (lock) {
+            generation++;
+            queue.clear();
+            factory = null;
+        }
+    }
+
+    /**
+     * Take the next question if it is ready
+     *
+     * @param index The index of the wanted question
+     * @return The question, or null if it has not been generated yet
+     */
+    public Question poll(int index) {
+        Question question;
+        synchronized (lock) {
+            // Questions before the wanted one were skipped because they weren't ready in time
+            question = queue.peekFirst();
+            while (question != null && question.getIndex() < index) {
+                queue.pollFirst();
+                question = queue.peekFirst();
+            }
+            if (question == null || question.getIndex() != index) {
+                question = null;
+            } else {
+                queue.pollFirst();
+            }
+        }
+        scheduleRefill();
+        return question;
+    }
+
+    /**
+     * Get the factory the queue is currently being filled from
+     *
+     * @return The factory, or null when stopped
+     */
+    public QuestionFactory getFactory() {
+        synchronized (lock) {
+            return factory;
+        }
+    }
+
+    private void scheduleRefill() {
+        synchronized (lock) {
+            if (refillScheduled || factory == null) {
+                return;
+            }
+            refillScheduled = true;
+        }
+        boolean scheduled = false;
+        try {
+            executor.execute(refill);
+            scheduled = true;
+        } catch (RejectedExecutionException e) {
+            // Shut down; the caller generates its questions itself
+        } finally {
+            if (!scheduled) {
+                synchronized (lock) {
+                    refillScheduled = false;
+                }
+            }
+        }
+    }
+
+    private void refill() {
+        boolean finished = false;
+        try {
+            while (true) {
+                int expectedGeneration;
+                int index;
+                QuestionFactory currentFactory;
+                synchronized (lock) {
+                    // Cleared together with the check, so a poll() right after schedules again
+                    if (factory == null || queue.size() >= capacity || nextIndex >= endIndex) {
+                        refillScheduled = false;
+                        finished = true;
+                        return;
+                    }
+                    expectedGeneration = generation;
+                    index = nextIndex;
+                    currentFactory = factory;
+                }
+
+                // Generate outside the lock so poll() is never held up by the work
+                Question question = currentFactory.create(index);
+
+                synchronized (lock) {
+                    if (expectedGeneration == generation) {
+                        queue.addLast(question);
+                        nextIndex = index + 1;
+                    }
+                }
+            }
+        } finally {
+            if (!finished) {
+                synchronized (lock) {
+                    refillScheduled = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package froggy.game.doomsdaytrainer;
+
+import java.util.Random;
+
+/**
+ * Decides which date to ask next
+ */
+public interface QuestionStrategy {
+
+    /**
+     * Change the range dates are drawn from. Cheap if the range is unchanged.
+     *
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     */
+    void setRange(int startYear, int endYear);
+
+    /**
+     * Choose the next date
+     *
+     * @return The date packed as by {@link EpochDay#pack(int, int, int)}
+     */
+    long nextDate();
+
+    /**
+     * Learn from an answer, so that later dates can be chosen accordingly
+     *
+     * @param year The question's year
+     * @param month The question's month, 1-12
+     * @param correct Whether the answer was right
+     */
+    void recordAnswer(int year, int month, boolean correct);
+
+    /**
+     * Get a strategy to choose dates on another thread, e.g. for prefetching: either an
+     * independent copy or, if this strategy is thread-safe, this strategy itself
+     *
+     * @param random The source of randomness for a copy
+     * @return The strategy to use on the other thread
+     */
+    QuestionStrategy fork(Random random);
+}
@@ -0,0 +1,382 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * The quiz itself, without any UI: the current question, checking answers, series progress
+ * and timing. The activity drives it and renders its state; the simulator drives it with a
+ * virtual clock and a simulated answerer.
+ *
+ * Answers, with their think times, are handed to a {@link ThinkTimeRecorder} for a consumer
+ * thread to collect. The series timer and the think-time stopwatch both run on the session's
+ * {@link Clock}; the series timer stops while feedback is shown and while the session is paused.
+ *
+ * Free practice asks what the {@link QuestionStrategy} draws. A series asks the questions of its
+ * {@link SeriesPlan} instead, so it can be restored on the question it was saved on and replayed
+ * from a challenge code; it is checked against the plan's calendar, whatever the settings say.
+ *
+ * Not thread-safe; drive it from one thread. Nothing here allocates after construction, except
+ * {@link #finishSeries()} and {@link #checkpoint()}.
+ */
+public final class QuizSession {
+
+    /**
+     * Source of time for the session
+     */
+    public interface Clock {
+        /**
+         * @return A monotonic time in nanoseconds, e.g. {@code SystemClock.elapsedRealtimeNanos()}
+         */
+        long elapsedNanos();
+
+        /**
+         * @return The wall clock time in milliseconds, for the answer log
+         */
+        long currentTimeMillis();
+    }
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private final Clock clock;
+    private final ThinkTimeRecorder recorder;
+    private QuestionStrategy strategy;
+    private YearAnchorTable anchorTable;
+
+    // The question on screen
+    private boolean hasQuestion;
+    private int year;
+    private int month;
+    private int day;
+    private long questionShownNanos;
+
+    // The last answer
+    private int lastGuessedDay;
+    private int lastActualDay;
+
+    // Series state
+    private boolean inSeries;
+    private SeriesPlan plan;
+    private int seriesCount;
+    private int seriesIndex;
+    private int correctCount;
+    private long elapsedNanos;     // series time counted before timerStart
+    private long timerStart;
+    private boolean timerRunning;  // false while feedback is shown
+    private boolean paused;        // the timer only counts while running and not paused
+
+    private long sessionId;
+
+    /**
+     * @param clock The source of time
+     * @param recorder Receives every answer
+     * @param strategy Chooses the questions
+     * @param anchorTable Looks up the correct answers
+     */
+    public QuizSession(Clock clock, ThinkTimeRecorder recorder, QuestionStrategy strategy,
+                       YearAnchorTable anchorTable) {
+        this.clock = clock;
+        this.recorder = recorder;
+        this.strategy = strategy;
+        this.anchorTable = anchorTable;
+        this.sessionId = clock.currentTimeMillis();
+    }
+
+    public QuestionStrategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(QuestionStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public YearAnchorTable getAnchorTable() {
+        return anchorTable;
+    }
+
+    public void setAnchorTable(YearAnchorTable anchorTable) {
+        this.anchorTable = anchorTable;
+    }
+
+    /**
+     * Ask a new question: the series' current one, or in free practice one chosen by the strategy
+     *
+     * @return The question's date, packed as by {@link EpochDay#pack(int, int, int)}
+     */
+    public long nextQuestion() {
+        long date = inSeries ? plan.dateAt(seriesIndex) : strategy.nextDate();
+        showQuestion(EpochDay.year(date), EpochDay.month(date), EpochDay.day(date));
+        return date;
+    }
+
+    /**
+     * Ask a question prepared elsewhere, e.g. by the prefetcher
+     */
+    public void showQuestion(int year, int month, int day) {
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.hasQuestion = true;
+        long now = clock.elapsedNanos();
+        questionShownNanos = now;
+        recorder.startQuestion(now);
+        if (paused) {
+            recorder.pause(now);
+        }
+    }
+
+    /**
+     * Let the user try the same question again, timing the new attempt from now
+     */
+    public void retryQuestion() {
+        showQuestion(year, month, day);
+    }
+
+    /**
+     * Check an answer to the current question and record it. In a series this moves on to
+     * the next question's index and stops the series timer until {@link #continueSeries()}.
+     *
+     * @param guessedDay The answer given, as a WeekdayEngine constant
+     * @return true if the answer was right
+     */
+    public boolean answer(int guessedDay) {
+        return answer(guessedDay, clock.elapsedNanos());
+    }
+
+    /**
+     * Check an answer given at an earlier time, e.g. that of the input event, so the time the UI
+     * took to deliver it doesn't count as thinking
+     *
+     * @param guessedDay The answer given, as a WeekdayEngine constant
+     * @param answeredNanos When the answer was given, on the session's clock; limited to the time
+     *                      between showing the question (or starting the timer) and now
+     * @return true if the answer was right
+     */
+    public boolean answer(int guessedDay, long answeredNanos) {
+        long now = Math.max(Math.min(answeredNanos, clock.elapsedNanos()), questionShownNanos);
+        if (timerRunning && !paused) {
+            now = Math.max(now, timerStart);
+        }
+        int actualDay = (inSeries ? plan.getAnchorTable() : anchorTable).dayOfWeek(year, month, day);
+        boolean correct = guessedDay == actualDay;
+        lastGuessedDay = guessedDay;
+        lastActualDay = actualDay;
+
+        recorder.finishQuestion(inSeries ? seriesIndex : -1, EpochDay.pack(year, month, day),
+                guessedDay, actualDay, sessionId, clock.currentTimeMillis(), now);
+        strategy.recordAnswer(year, month, correct);
+
+        if (inSeries) {
+            stopTimer(now);
+            if (correct) {
+                correctCount++;
+            }
+            seriesIndex++;
+        }
+        return correct;
+    }
+
+    /**
+     * Start a series, ending free practice. The caller then asks the first question.
+     *
+     * @param plan The questions of the series
+     */
+    public void startSeries(SeriesPlan plan) {
+        inSeries = true;
+        this.plan = plan;
+        seriesCount = plan.getSpec().getCount();
+        seriesIndex = 0;
+        correctCount = 0;
+        elapsedNanos = 0;
+        timerRunning = false;
+        sessionId = clock.currentTimeMillis();
+        startTimer(clock.elapsedNanos());
+    }
+
+    /**
+     * Carry on with a series that was saved in a checkpoint. The caller then asks the
+     * current question, so the timer runs even if feedback was shown when the series was saved.
+     *
+     * @param checkpoint The saved series
+     * @param plan The series' questions: for the checkpoint's spec, or a new one with the same
+     *             count if the checkpoint has none
+     */
+    public void restoreSeries(SeriesCheckpoint checkpoint, SeriesPlan plan) {
+        inSeries = true;
+        this.plan = plan;
+        seriesCount = checkpoint.getSeriesCount();
+        seriesIndex = checkpoint.getCurrentIndex();
+        correctCount = checkpoint.getCorrectCount();
+        elapsedNanos = checkpoint.getElapsedTimeMillis() * NANOS_PER_MILLI;
+        timerRunning = false;
+        startTimer(clock.elapsedNanos());
+    }
+
+    /**
+     * Restart the series timer after the feedback for an answer, when the next question is shown
+     */
+    public void continueSeries() {
+        if (inSeries) {
+            startTimer(clock.elapsedNanos());
+        }
+    }
+
+    /**
+     * End the series and go back to free practice
+     *
+     * @return The final state of the series
+     */
+    public SeriesCheckpoint finishSeries() {
+        stopTimer(clock.elapsedNanos());
+        SeriesCheckpoint result = new SeriesCheckpoint(seriesCount, seriesIndex, correctCount,
+                elapsedNanos / NANOS_PER_MILLI, false, plan.getSpec());
+        inSeries = false;
+        plan = null;
+        sessionId = clock.currentTimeMillis();
+        return result;
+    }
+
+    /**
+     * Stop all clocks, e.g. when the app goes to the background
+     */
+    public void pause() {
+        if (paused) {
+            return;
+        }
+        long now = clock.elapsedNanos();
+        recorder.pause(now);
+        if (timerRunning) {
+            elapsedNanos += now - timerStart;
+        }
+        paused = true;
+    }
+
+    /**
+     * Restart the clocks stopped by {@link #pause()}
+     */
+    public void resume() {
+        if (!paused) {
+            return;
+        }
+        long now = clock.elapsedNanos();
+        paused = false;
+        recorder.resume(now);
+        timerStart = now;
+    }
+
+    private void startTimer(long now) {
+        if (!timerRunning) {
+            timerRunning = true;
+            timerStart = now; // Reset by resume() if paused
+        }
+    }
+
+    private void stopTimer(long now) {
+        if (timerRunning) {
+            if (!paused) {
+                elapsedNanos += now - timerStart;
+            }
+            timerRunning = false;
+        }
+    }
+
+    /**
+     * @return The state to save so the series can be restored, or null outside a series
+     */
+    public SeriesCheckpoint checkpoint() {
+        if (!inSeries) {
+            return null;
+        }
+        return new SeriesCheckpoint(seriesCount, seriesIndex, correctCount, getElapsedMillis(), timerRunning,
+                plan.getSpec());
+    }
+
+    public boolean hasQuestion() {
+        return hasQuestion;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * @return The answer given last, as a WeekdayEngine constant
+     */
+    public int getLastGuessedDay() {
+        return lastGuessedDay;
+    }
+
+    /**
+     * @return The correct answer to the question answered last, as a WeekdayEngine constant
+     */
+    public int getLastActualDay() {
+        return lastActualDay;
+    }
+
+    public boolean isInSeries() {
+        return inSeries;
+    }
+
+    /**
+     * @return true once every question of the series has been answered
+     */
+    public boolean isSeriesComplete() {
+        return inSeries && seriesIndex >= seriesCount;
+    }
+
+    /**
+     * @return The questions of the current series, or null outside a series
+     */
+    public SeriesPlan getSeriesPlan() {
+        return plan;
+    }
+
+    public int getSeriesCount() {
+        return seriesCount;
+    }
+
+    /**
+     * @return The index of the current question in the series, from 0
+     */
+    public int getSeriesIndex() {
+        return seriesIndex;
+    }
+
+    public int getCorrectCount() {
+        return correctCount;
+    }
+
+    /**
+     * @return true unless the series timer was stopped for feedback; pauses don't count
+     */
+    public boolean isTimerRunning() {
+        return timerRunning;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * @return The series time so far, excluding feedback and pauses
+     */
+    public long getElapsedMillis() {
+        long nanos = elapsedNanos;
+        if (timerRunning && !paused) {
+            nanos += clock.elapsedNanos() - timerStart;
+        }
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return The id of the current series or free practice session: the time it started
+     */
+    public long getSessionId() {
+        return sessionId;
+    }
+}
@@ -0,0 +1,133 @@
+package froggy.game.doomsdaytrainer;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * The progress of an unfinished series, as saved to disk so it survives the app being closed.
+ *
+ * Encoded as a small binary record with a CRC32, so a torn or corrupted file is detected
+ * instead of restoring garbage. Since version 2 the record ends with the series' {@link SeriesSpec},
+ * so a restored series asks the same questions; version 1 records, without it, are still read.
+ */
+public final class SeriesCheckpoint {
+
+    /** The largest possible size of an encoded checkpoint in bytes */
+    public static final int MAX_ENCODED_SIZE = 30 + SeriesSpec.MAX_ENCODED_SIZE;
+
+    private static final int MAGIC = 0x44545343; // "DTSC"
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_SPEC = 1;
+    private static final int HEADER_SIZE = 26;
+    private static final int CRC_SIZE = 4;
+
+    private final int seriesCount;
+    private final int currentIndex;
+    private final int correctCount;
+    private final long elapsedTimeMillis;
+    private final boolean timerRunning;
+    private final SeriesSpec spec;
+
+    public SeriesCheckpoint(int seriesCount, int currentIndex, int correctCount,
+                            long elapsedTimeMillis, boolean timerRunning, SeriesSpec spec) {
+        this.seriesCount = seriesCount;
+        this.currentIndex = currentIndex;
+        this.correctCount = correctCount;
+        this.elapsedTimeMillis = elapsedTimeMillis;
+        this.timerRunning = timerRunning;
+        this.spec = spec;
+    }
+
+    public int getSeriesCount() {
+        return seriesCount;
+    }
+
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    public int getCorrectCount() {
+        return correctCount;
+    }
+
+    public long getElapsedTimeMillis() {
+        return elapsedTimeMillis;
+    }
+
+    public boolean isTimerRunning() {
+        return timerRunning;
+    }
+
+    /**
+     * @return The series' questions, or null if the checkpoint was saved by a version of the app
+     *         that didn't record them
+     */
+    public SeriesSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Encode a checkpoint without creating one
+     *
+     * @param buffer Receives the record; must hold at least {@link #MAX_ENCODED_SIZE} bytes
+     * @param spec The series' questions, or null for a version 1 record without them
+     * @return The number of bytes written
+     */
+    public static int encode(byte[] buffer, int seriesCount, int currentIndex, int correctCount,
+                             long elapsedTimeMillis, boolean timerRunning, SeriesSpec spec) {
+        ByteBuffer out = ByteBuffer.wrap(buffer);
+        out.putInt(MAGIC);
+        out.put(spec != null ? VERSION : VERSION_WITHOUT_SPEC);
+        out.putInt(seriesCount);
+        out.putInt(currentIndex);
+        out.putInt(correctCount);
+        out.putLong(elapsedTimeMillis);
+        out.put((byte) (timerRunning ? 1 : 0));
+        if (spec != null) {
+            out.position(out.position() + spec.encode(buffer, out.position()));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer, 0, out.position());
+        out.putInt((int) crc.getValue());
+        return out.position();
+    }
+
+    /**
+     * Decode a checkpoint written by {@link #encode}
+     *
+     * @param data The record
+     * @param length The number of valid bytes in data
+     * @return The checkpoint, or null if the record is truncated, corrupt or of an unknown version
+     */
+    public static SeriesCheckpoint decode(byte[] data, int length) {
+        if (length < HEADER_SIZE + CRC_SIZE || length > MAX_ENCODED_SIZE) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(data, 0, length);
+        if (in.getInt() != MAGIC) {
+            return null;
+        }
+        byte version = in.get();
+        if (version == VERSION_WITHOUT_SPEC ? length != HEADER_SIZE + CRC_SIZE : version != VERSION) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length - CRC_SIZE);
+        if (in.getInt(length - CRC_SIZE) != (int) crc.getValue()) {
+            return null;
+        }
+        int seriesCount = in.getInt();
+        int currentIndex = in.getInt();
+        int correctCount = in.getInt();
+        long elapsedTimeMillis = in.getLong();
+        boolean timerRunning = in.get() != 0;
+        SeriesSpec spec = null;
+        if (version == VERSION) {
+            spec = SeriesSpec.decode(data, HEADER_SIZE, length - HEADER_SIZE - CRC_SIZE);
+            if (spec == null || spec.getCount() != seriesCount) {
+                return null;
+            }
+        }
+        return new SeriesCheckpoint(seriesCount, currentIndex, correctCount, elapsedTimeMillis, timerRunning, spec);
+    }
+}
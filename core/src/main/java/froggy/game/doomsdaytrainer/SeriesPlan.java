@@ -0,0 +1,107 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * The questions of a series, derived from its {@link SeriesSpec}: question k is a pure function
+ * of the seed and k, so any question can be computed directly, without replaying the ones before
+ * it. Restoring a series shows the same question it was saved on, and two devices given the same
+ * challenge code ask the same dates.
+ *
+ * Question k uses the k-th output of SplitMix64 from the seed, i.e. what the (k + 1)-th
+ * {@code nextLong()} of a {@code java.util.SplittableRandom} created with the seed would return,
+ * computed from a counter instead of by stepping a generator. The output picks an epoch day in
+ * the range, or a rank among the dates matching the filter via a {@link DateIndex}.
+ *
+ * Immutable and thread-safe, so the prefetcher can generate questions ahead of the session.
+ */
+public final class SeriesPlan {
+
+    // SplitMix64's increment: 2^64 / golden ratio, odd
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final SeriesSpec spec;
+    private final YearAnchorTable anchorTable;
+    private final DateIndex index;  // null when the spec is unfiltered
+    private final long firstDay;    // epoch day of the first day of the range
+    private final long dayCount;    // number of days in the range, or matching dates with an index
+
+    private SeriesPlan(SeriesSpec spec, YearAnchorTable anchorTable, DateIndex index) {
+        this.spec = spec;
+        this.anchorTable = anchorTable;
+        this.index = index;
+        CalendarSystem calendar = spec.getCalendar();
+        this.firstDay = calendar.firstDayOfYear(spec.getStartYear());
+        this.dayCount = index != null ? index.count()
+                : calendar.lastDayOfYear(spec.getEndYear()) - firstDay + 1;
+    }
+
+    /**
+     * Prepare the questions of a series. The anchor table and date index are reused if they fit
+     * the spec, and built otherwise.
+     *
+     * @param spec The series
+     * @param anchorTable A table to reuse, or null
+     * @param index An index to reuse, or null
+     * @return The plan
+     * @throws IllegalArgumentException if the spec is filtered over more than
+     *                                  {@link DateIndex#MAX_YEARS}, or no date matches its filter
+     */
+    public static SeriesPlan create(SeriesSpec spec, YearAnchorTable anchorTable, DateIndex index) {
+        CalendarSystem calendar = spec.getCalendar();
+        int startYear = spec.getStartYear();
+        int endYear = spec.getEndYear();
+        if (anchorTable != null && anchorTable.getCalendar().equals(calendar)) {
+            anchorTable = anchorTable.withRange(startYear, endYear);
+        } else {
+            anchorTable = YearAnchorTable.build(startYear, endYear, calendar);
+        }
+
+        DateFilter filter = spec.getFilter();
+        if (filter.isUnfiltered()) {
+            index = null;
+        } else {
+            if (index == null || index.getStartYear() != startYear || index.getEndYear() != endYear
+                    || !index.getFilter().equals(filter) || !index.getCalendar().equals(calendar)) {
+                index = DateIndex.build(startYear, endYear, filter, calendar);
+            }
+            if (index.count() == 0) {
+                throw new IllegalArgumentException("No date matches the filter");
+            }
+        }
+        return new SeriesPlan(spec, anchorTable, index);
+    }
+
+    public SeriesSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return A table for the spec's calendar covering its range, to check the answers with
+     */
+    public YearAnchorTable getAnchorTable() {
+        return anchorTable;
+    }
+
+    /**
+     * Get the date of a question
+     *
+     * @param k The index of the question in the series, from 0
+     * @return The date, packed as by {@link EpochDay#pack(int, int, int)}
+     */
+    public long dateAt(int k) {
+        // Modulo is within 2^-22 of uniform for any int year range (fewer than 2^41 days)
+        long offset = (mix(spec.getSeed() + (k + 1L) * GOLDEN_GAMMA) >>> 1) % dayCount;
+        if (index != null) {
+            return spec.getCalendar().toDate(index.select((int) offset));
+        }
+        return spec.getCalendar().toDate(firstDay + offset);
+    }
+
+    /**
+     * SplitMix64's finaliser (Stafford's variant 13), as in SplittableRandom
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,391 @@
+package froggy.game.doomsdaytrainer;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Everything that determines the questions of a series: a 64-bit seed, the number of questions,
+ * the year range, the calendar and the drill filter. Two series with equal specs ask the same
+ * dates in the same order; see {@link SeriesPlan}.
+ *
+ * A spec can be written as a short challenge code, so another trainee can play the same series.
+ * The code is a compact binary record (varints, so common settings take a byte or two each) with
+ * a 16-bit checksum, in Crockford's base 32 and grouped by fours: e.g. {@code 04ZK-3M1Q-...}.
+ * Immutable.
+ */
+public final class SeriesSpec {
+
+    /** The most centuries a spec's filter may list, which bounds the encoded size */
+    public static final int MAX_CENTURIES = 64;
+
+    /**
+     * The year range a spec may cover: what the settings' seven-character year fields can hold.
+     * Keeps a decoded code from asking for an anchor table of gigabytes.
+     */
+    public static final int MIN_YEAR = -999_999;
+    public static final int MAX_YEAR = 9_999_999;
+
+    /** The most questions a series may have */
+    public static final int MAX_COUNT = 0xFFFF;
+
+    /** The largest possible result of {@link #encode} */
+    public static final int MAX_ENCODED_SIZE = 1 + 8 + 3 + 5 + 5 + 1 + 5 + 2 + 2 + 1 + 1 + MAX_CENTURIES * 5;
+
+    private static final byte VERSION = 1;
+    private static final byte CALENDAR_GREGORIAN = 0;
+    private static final byte CALENDAR_JULIAN = 1;
+    private static final byte CALENDAR_CUTOVER = 2;
+    private static final int FLAG_LEAP_YEARS = 1;
+    private static final int FLAG_WEEKENDS = 2;
+    private static final int FLAG_ANCHOR_DAYS = 4;
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int CHECKSUM_SIZE = 2;
+
+    private final long seed;
+    private final int count;
+    private final int startYear;
+    private final int endYear;
+    private final CalendarSystem calendar;
+    private final DateFilter filter;
+
+    /**
+     * @param seed Determines the dates
+     * @param count The number of questions, 1 to {@link #MAX_COUNT}
+     * @param startYear The first year (inclusive), at least {@link #MIN_YEAR}
+     * @param endYear The last year (inclusive), at most {@link #MAX_YEAR}
+     * @param calendar The calendar the dates are in
+     * @param filter The dates to draw from; at most {@link #MAX_CENTURIES} centuries
+     */
+    public SeriesSpec(long seed, int count, int startYear, int endYear, CalendarSystem calendar, DateFilter filter) {
+        if (count < 1 || count > MAX_COUNT) {
+            throw new IllegalArgumentException("Invalid question count " + count);
+        }
+        if (endYear < startYear) {
+            throw new IllegalArgumentException("endYear < startYear: " + endYear + " < " + startYear);
+        }
+        if (startYear < MIN_YEAR || endYear > MAX_YEAR) {
+            throw new IllegalArgumentException("Years outside " + MIN_YEAR + " to " + MAX_YEAR + ": "
+                    + startYear + " to " + endYear);
+        }
+        int[] centuries = filter.getCenturies();
+        if (centuries != null && centuries.length > MAX_CENTURIES) {
+            throw new IllegalArgumentException("More than " + MAX_CENTURIES + " centuries");
+        }
+        this.seed = seed;
+        this.count = count;
+        this.startYear = startYear;
+        this.endYear = endYear;
+        this.calendar = calendar;
+        this.filter = filter;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getStartYear() {
+        return startYear;
+    }
+
+    public int getEndYear() {
+        return endYear;
+    }
+
+    public CalendarSystem getCalendar() {
+        return calendar;
+    }
+
+    public DateFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Write the spec as a binary record
+     *
+     * @param buffer Receives the record; must hold {@link #MAX_ENCODED_SIZE} bytes from offset
+     * @param offset Where to start writing
+     * @return The number of bytes written
+     */
+    public int encode(byte[] buffer, int offset) {
+        int position = offset;
+        buffer[position++] = VERSION;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (seed >>> shift);
+        }
+        position = putVarint(buffer, position, count);
+        position = putVarint(buffer, position, zigzag(startYear));
+        position = putVarint(buffer, position, (long) endYear - startYear);
+        if (calendar.isGregorian()) {
+            buffer[position++] = CALENDAR_GREGORIAN;
+        } else if (calendar.isJulian()) {
+            buffer[position++] = CALENDAR_JULIAN;
+        } else {
+            long cutover = calendar.getCutoverDate();
+            buffer[position++] = CALENDAR_CUTOVER;
+            position = putVarint(buffer, position, zigzag(EpochDay.year(cutover)));
+            buffer[position++] = (byte) EpochDay.month(cutover);
+            buffer[position++] = (byte) EpochDay.day(cutover);
+        }
+        // Stored inverted, so the usual "all months" takes one byte
+        position = putVarint(buffer, position, DateFilter.ALL_MONTHS & ~filter.getMonthMask());
+        buffer[position++] = (byte) ((filter.isLeapYearsOnly() ? FLAG_LEAP_YEARS : 0)
+                | (filter.isWeekendsOnly() ? FLAG_WEEKENDS : 0)
+                | (filter.isAnchorDaysOnly() ? FLAG_ANCHOR_DAYS : 0));
+        int[] centuries = filter.getCenturies();
+        position = putVarint(buffer, position, centuries == null ? 0 : centuries.length);
+        if (centuries != null) {
+            for (int century : centuries) {
+                position = putVarint(buffer, position, zigzag(century));
+            }
+        }
+        return position - offset;
+    }
+
+    /**
+     * Read a record written by {@link #encode}
+     *
+     * @param data The record
+     * @param offset Where the record starts
+     * @param length The number of bytes in the record
+     * @return The spec, or null if the record is malformed, of an unknown version or describes
+     *         an invalid series
+     */
+    public static SeriesSpec decode(byte[] data, int offset, int length) {
+        Reader in = new Reader(data, offset, offset + length);
+        try {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            long seed = 0;
+            for (int i = 0; i < 8; i++) {
+                seed = seed << 8 | (in.readByte() & 0xFF);
+            }
+            long count = in.readVarint();
+            long startYear = unzigzag(in.readVarint());
+            long endYear = startYear + in.readVarint();
+            CalendarSystem calendar;
+            switch (in.readByte()) {
+                case CALENDAR_GREGORIAN:
+                    calendar = CalendarSystem.GREGORIAN;
+                    break;
+                case CALENDAR_JULIAN:
+                    calendar = CalendarSystem.JULIAN;
+                    break;
+                case CALENDAR_CUTOVER:
+                    long year = unzigzag(in.readVarint());
+                    int month = in.readByte();
+                    int day = in.readByte();
+                    if (year != (int) year) {
+                        return null;
+                    }
+                    calendar = CalendarSystem.cutover((int) year, month, day);
+                    break;
+                default:
+                    return null;
+            }
+            int monthMask = DateFilter.ALL_MONTHS & ~(int) in.readVarint();
+            int flags = in.readByte();
+            long centuryCount = in.readVarint();
+            if (centuryCount > MAX_CENTURIES) {
+                return null;
+            }
+            int[] centuries = new int[(int) centuryCount];
+            for (int i = 0; i < centuries.length; i++) {
+                centuries[i] = (int) unzigzag(in.readVarint());
+            }
+            if (!in.atEnd() || count > MAX_COUNT || startYear != (int) startYear || endYear != (int) endYear) {
+                return null;
+            }
+            DateFilter filter = new DateFilter(monthMask, centuries, (flags & FLAG_LEAP_YEARS) != 0,
+                    (flags & FLAG_WEEKENDS) != 0, (flags & FLAG_ANCHOR_DAYS) != 0);
+            return new SeriesSpec(seed, (int) count, (int) startYear, (int) endYear, calendar, filter);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null; // Invalid values or a truncated record
+        }
+    }
+
+    /**
+     * @return The spec as a challenge code, e.g. to share
+     */
+    public String toCode() {
+        byte[] buffer = new byte[MAX_ENCODED_SIZE + CHECKSUM_SIZE];
+        int length = encode(buffer, 0);
+        int checksum = checksum(buffer, length);
+        buffer[length++] = (byte) (checksum >>> 8);
+        buffer[length++] = (byte) checksum;
+
+        StringBuilder code = new StringBuilder((length * 8 + 4) / 5 * 5 / 4);
+        int bits = 0;
+        int bitCount = 0;
+        int digits = 0;
+        for (int i = 0; i < length; i++) {
+            bits = bits << 8 | (buffer[i] & 0xFF);
+            bitCount += 8;
+            while (bitCount >= 5) {
+                bitCount -= 5;
+                digits = appendDigit(code, digits, (bits >>> bitCount) & 31);
+            }
+        }
+        if (bitCount > 0) {
+            appendDigit(code, digits, (bits << (5 - bitCount)) & 31);
+        }
+        return code.toString();
+    }
+
+    /**
+     * Read a challenge code. Case, dashes and spaces don't matter, and the letters I, L and O
+     * are read as the digits they look like.
+     *
+     * @param code The code
+     * @return The spec, or null if the code is mistyped or invalid
+     */
+    public static SeriesSpec fromCode(String code) {
+        byte[] buffer = new byte[code.length() * 5 / 8 + 1];
+        int length = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = Character.toUpperCase(code.charAt(i));
+            if (c == '-' || Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c == 'O') {
+                c = '0';
+            } else if (c == 'I' || c == 'L') {
+                c = '1';
+            }
+            int digit = ALPHABET.indexOf(c);
+            if (digit < 0) {
+                return null;
+            }
+            bits = bits << 5 | digit;
+            bitCount += 5;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                buffer[length++] = (byte) (bits >>> bitCount);
+            }
+        }
+        // The last digit's padding must be zero, so that each spec has exactly one code
+        if (bitCount >= 5 || (bits & ((1 << bitCount) - 1)) != 0) {
+            return null;
+        }
+        length -= CHECKSUM_SIZE;
+        if (length <= 0) {
+            return null;
+        }
+        int checksum = (buffer[length] & 0xFF) << 8 | (buffer[length + 1] & 0xFF);
+        if (checksum != checksum(buffer, length)) {
+            return null;
+        }
+        return decode(buffer, 0, length);
+    }
+
+    private static int appendDigit(StringBuilder code, int digits, int digit) {
+        if (digits > 0 && digits % 4 == 0) {
+            code.append('-');
+        }
+        code.append(ALPHABET.charAt(digit));
+        return digits + 1;
+    }
+
+    private static int checksum(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return (int) crc.getValue() & 0xFFFF;
+    }
+
+    private static int putVarint(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads bytes and varints from a record, throwing ArrayIndexOutOfBoundsException past its end
+     */
+    private static final class Reader {
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        Reader(byte[] data, int position, int end) {
+            this.data = data;
+            this.position = position;
+            this.end = end;
+        }
+
+        byte readByte() {
+            if (position >= end) {
+                throw new ArrayIndexOutOfBoundsException(position);
+            }
+            return data[position++];
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint too long");
+        }
+
+        boolean atEnd() {
+            return position == end;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeriesSpec)) {
+            return false;
+        }
+        SeriesSpec other = (SeriesSpec) o;
+        return seed == other.seed
+                && count == other.count
+                && startYear == other.startYear
+                && endYear == other.endYear
+                && calendar.equals(other.calendar)
+                && filter.equals(other.filter);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(seed);
+        result = 31 * result + count;
+        result = 31 * result + startYear;
+        result = 31 * result + endYear;
+        result = 31 * result + calendar.hashCode();
+        result = 31 * result + filter.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SeriesSpec{seed=" + Long.toHexString(seed) + ", count=" + count + ", years=" + startYear
+                + ".." + endYear + ", calendar=" + calendar + ", centuries="
+                + Arrays.toString(filter.getCenturies()) + "}";
+    }
+}
@@ -0,0 +1,153 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * A timed sprint: as many dates as possible before the time runs out. Counts the answers and
+ * keeps the countdown, which stops while the sprint is paused.
+ *
+ * Times are passed in by the caller, all on one monotonic clock in nanoseconds, e.g. the frame
+ * times of {@code Choreographer}. The countdown is rendered into a caller's char buffer, so a
+ * display refreshed every frame allocates nothing.
+ *
+ * Not thread-safe.
+ */
+public final class Sprint {
+
+    /** Enough for the longest text written by {@link #formatRemaining}, "999:59.9" */
+    public static final int MAX_TEXT_LENGTH = 8;
+
+    private static final long NANOS_PER_TENTH = 100_000_000L;
+
+    private final long durationNanos;
+    private long usedNanos;     // time counted before startNanos
+    private long startNanos;
+    private boolean paused;
+    private int answerCount;
+    private int correctCount;
+
+    /**
+     * Start a sprint
+     *
+     * @param durationNanos How long the sprint lasts
+     * @param nowNanos The current time
+     */
+    public Sprint(long durationNanos, long nowNanos) {
+        if (durationNanos <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        this.durationNanos = durationNanos;
+        this.startNanos = nowNanos;
+    }
+
+    /**
+     * Continue a saved sprint. It stays paused until {@link #resume(long)}.
+     *
+     * @param durationNanos The whole sprint's duration, as from {@link #getDurationNanos()}
+     * @param remainingNanos The time that was left
+     * @param answerCount The answers counted so far
+     * @param correctCount How many of them were right
+     * @return The sprint
+     */
+    public static Sprint restore(long durationNanos, long remainingNanos, int answerCount, int correctCount) {
+        Sprint sprint = new Sprint(durationNanos, 0);
+        sprint.usedNanos = durationNanos - Math.max(0, Math.min(remainingNanos, durationNanos));
+        sprint.paused = true;
+        sprint.answerCount = answerCount;
+        sprint.correctCount = correctCount;
+        return sprint;
+    }
+
+    /**
+     * Count an answer given before the time ran out
+     *
+     * @param correct Whether it was right
+     */
+    public void record(boolean correct) {
+        answerCount++;
+        if (correct) {
+            correctCount++;
+        }
+    }
+
+    /**
+     * Stop the countdown, e.g. when the app goes to the background
+     */
+    public void pause(long nowNanos) {
+        if (!paused) {
+            usedNanos += Math.max(0, nowNanos - startNanos);
+            paused = true;
+        }
+    }
+
+    /**
+     * Restart the countdown stopped by {@link #pause(long)}
+     */
+    public void resume(long nowNanos) {
+        if (paused) {
+            startNanos = nowNanos;
+            paused = false;
+        }
+    }
+
+    /**
+     * @return The time left, 0 once the sprint is over
+     */
+    public long remainingNanos(long nowNanos) {
+        long used = usedNanos + (paused ? 0 : Math.max(0, nowNanos - startNanos));
+        return Math.max(0, durationNanos - used);
+    }
+
+    public boolean isOver(long nowNanos) {
+        return remainingNanos(nowNanos) == 0;
+    }
+
+    /**
+     * Get the number of tenths of a second shown for a remaining time, rounded up so the
+     * countdown only shows zero once the sprint is over
+     */
+    public static long displayedTenths(long remainingNanos) {
+        return (remainingNanos + NANOS_PER_TENTH - 1) / NANOS_PER_TENTH;
+    }
+
+    /**
+     * Write a remaining time as m:ss.t, e.g. "0:59.3"
+     *
+     * @param remainingNanos The time left
+     * @param buffer Receives the text; at least {@link #MAX_TEXT_LENGTH} long
+     * @return The length of the text
+     */
+    public static int formatRemaining(long remainingNanos, char[] buffer) {
+        long tenths = Math.min(displayedTenths(remainingNanos), 999 * 600 + 599);
+        int minutes = (int) (tenths / 600);
+        int seconds = (int) (tenths / 10 % 60);
+        int length = 0;
+        if (minutes >= 100) {
+            buffer[length++] = (char) ('0' + minutes / 100);
+        }
+        if (minutes >= 10) {
+            buffer[length++] = (char) ('0' + minutes / 10 % 10);
+        }
+        buffer[length++] = (char) ('0' + minutes % 10);
+        buffer[length++] = ':';
+        buffer[length++] = (char) ('0' + seconds / 10);
+        buffer[length++] = (char) ('0' + seconds % 10);
+        buffer[length++] = '.';
+        buffer[length++] = (char) ('0' + tenths % 10);
+        return length;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public int getAnswerCount() {
+        return answerCount;
+    }
+
+    public int getCorrectCount() {
+        return correctCount;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+}
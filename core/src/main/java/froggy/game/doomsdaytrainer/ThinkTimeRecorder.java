@@ -0,0 +1,164 @@
+package froggy.game.doomsdaytrainer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long the user thinks about each question and hands the answers, with their
+ * think times, to a background consumer through a preallocated ring buffer.
+ *
+ * The stopwatch methods and {@link #finishQuestion} are called from one producer
+ * thread (the UI thread) and never allocate; {@link #drain(Sink)} is called from one consumer
+ * thread. Neither side takes a lock. Timestamps come from the caller in nanoseconds, e.g.
+ * {@code SystemClock.elapsedRealtimeNanos()}, which keeps this class free of Android
+ * dependencies.
+ */
+public final class ThinkTimeRecorder {
+
+    /**
+     * Receives drained answers
+     */
+    public interface Sink {
+        /**
+         * @param questionIndex The index of the question in its series, or -1 outside a series
+         * @param thinkNanos The time from showing the question to the answer, excluding pauses
+         * @param date The question's date, packed as by {@link EpochDay#pack(int, int, int)}
+         * @param guessedDay The answer given, as a WeekdayEngine constant
+         * @param actualDay The correct answer, as a WeekdayEngine constant
+         * @param sessionId The session (series or free practice) the answer belongs to
+         * @param timestampMillis The wall clock time of the answer
+         */
+        void accept(int questionIndex, long thinkNanos, long date, int guessedDay, int actualDay,
+                    long sessionId, long timestampMillis);
+    }
+
+    private final int mask;
+    private final int[] questionIndices;
+    private final long[] thinkNanos;
+    private final long[] dates;
+    private final byte[] guessedDays;
+    private final byte[] actualDays;
+    private final long[] sessionIds;
+    private final long[] timestamps;
+    // Counters of written and read records; slot = counter & mask.
+    // The producer publishes with lazySet after writing a slot, the consumer frees slots the same way.
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong read = new AtomicLong();
+    private long dropped; // producer only
+
+    // Stopwatch state, producer only
+    private boolean running;
+    private long startNanos;
+    private long accumulatedNanos;
+
+    /**
+     * @param capacity The number of answers that can wait for the consumer; rounded up to a power of two
+     */
+    public ThinkTimeRecorder(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.questionIndices = new int[size];
+        this.thinkNanos = new long[size];
+        this.dates = new long[size];
+        this.guessedDays = new byte[size];
+        this.actualDays = new byte[size];
+        this.sessionIds = new long[size];
+        this.timestamps = new long[size];
+    }
+
+    /**
+     * Start timing a question that has just been shown
+     *
+     * @param nowNanos The current time
+     */
+    public void startQuestion(long nowNanos) {
+        accumulatedNanos = 0;
+        startNanos = nowNanos;
+        running = true;
+    }
+
+    /**
+     * Stop the clock without finishing the question, e.g. when the app goes to the background
+     *
+     * @param nowNanos The current time
+     */
+    public void pause(long nowNanos) {
+        if (running) {
+            accumulatedNanos += nowNanos - startNanos;
+            running = false;
+        }
+    }
+
+    /**
+     * Continue timing a paused question
+     *
+     * @param nowNanos The current time
+     */
+    public void resume(long nowNanos) {
+        if (!running) {
+            startNanos = nowNanos;
+            running = true;
+        }
+    }
+
+    /**
+     * Stop timing the current question and queue the answer and its think time for the consumer
+     *
+     * @param questionIndex The index of the question in its series, or -1 outside a series
+     * @param date The question's date, packed as by {@link EpochDay#pack(int, int, int)}
+     * @param guessedDay The answer given
+     * @param actualDay The correct answer
+     * @param sessionId The session the answer belongs to
+     * @param timestampMillis The wall clock time of the answer
+     * @param nowNanos The current time on the stopwatch clock
+     * @return false if the buffer was full and the answer was dropped
+     */
+    public boolean finishQuestion(int questionIndex, long date, int guessedDay, int actualDay,
+                                  long sessionId, long timestampMillis, long nowNanos) {
+        pause(nowNanos);
+        long total = accumulatedNanos;
+        accumulatedNanos = 0;
+
+        long position = written.get();
+        if (position - read.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) position & mask;
+        questionIndices[slot] = questionIndex;
+        thinkNanos[slot] = total;
+        dates[slot] = date;
+        guessedDays[slot] = (byte) guessedDay;
+        actualDays[slot] = (byte) actualDay;
+        sessionIds[slot] = sessionId;
+        timestamps[slot] = timestampMillis;
+        written.lazySet(position + 1);
+        return true;
+    }
+
+    /**
+     * Get the number of answers dropped because the consumer fell behind. Producer thread only.
+     *
+     * @return The number of dropped answers
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Hand all queued answers to a sink. Consumer thread only.
+     *
+     * @param sink Receives the answers in the order they were recorded
+     * @return The number of answers drained
+     */
+    public int drain(Sink sink) {
+        long position = read.get();
+        long end = written.get();
+        for (long i = position; i < end; i++) {
+            int slot = (int) i & mask;
+            sink.accept(questionIndices[slot], thinkNanos[slot], dates[slot], guessedDays[slot],
+                    actualDays[slot], sessionIds[slot], timestamps[slot]);
+        }
+        read.lazySet(end);
+        return (int) (end - position);
+    }
+}
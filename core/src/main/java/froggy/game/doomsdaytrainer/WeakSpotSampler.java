@@ -0,0 +1,224 @@
+package froggy.game.doomsdaytrainer;
+
+import java.util.Random;
+
+/**
+ * Question strategy that asks more often about the kinds of dates the user gets wrong.
+ *
+ * Dates are grouped into categories by century (its position in the 400-year cycle, which
+ * fixes the anchor day) and month, plus one category for January and February of leap years,
+ * the classic edge case. Each category has a weakness score that jumps when an answer in it
+ * is wrong and decays with every right one, so mastered categories fade back to a base weight
+ * without disappearing. The weights live in a {@link FenwickTree}: drawing a category and
+ * updating a weight after an answer both take O(log n), and n is only 49. Within a category,
+ * the year is drawn uniformly from the years of the configured range that belong to it.
+ * Dates dropped by a calendar cutover are redrawn.
+ *
+ * Thread-safe, so the UI thread and the prefetch thread can share the same weights.
+ */
+public final class WeakSpotSampler implements QuestionStrategy {
+
+    private static final int CENTURY_POSITIONS = 4;
+    private static final int MONTHS = 12;
+    private static final int LEAP_EDGE = CENTURY_POSITIONS * MONTHS;
+    private static final int CATEGORY_COUNT = LEAP_EDGE + 1;
+
+    private static final int BASE_WEIGHT = 4;
+    private static final int MAX_SCORE = 64;
+    private static final int WRONG_STEP = 16;
+
+    private final Random random;
+    private final CalendarSystem calendar;
+    private final FenwickTree weights = new FenwickTree(CATEGORY_COUNT);
+    private final int[] scores = new int[CATEGORY_COUNT];
+    private final boolean[] available = new boolean[CATEGORY_COUNT];
+    private int startYear;
+    private int endYear;
+    private boolean hasRange;
+
+    /**
+     * @param random The source of randomness
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     */
+    public WeakSpotSampler(Random random, int startYear, int endYear) {
+        this(random, startYear, endYear, CalendarSystem.GREGORIAN);
+    }
+
+    /**
+     * @param random The source of randomness
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     * @param calendar The calendar the dates are in
+     */
+    public WeakSpotSampler(Random random, int startYear, int endYear, CalendarSystem calendar) {
+        this.random = random;
+        this.calendar = calendar;
+        setRange(startYear, endYear);
+    }
+
+    public CalendarSystem getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Start the weakness scores from long-term statistics instead of from scratch
+     *
+     * @param stats The statistics of all answers so far
+     */
+    public synchronized void seed(WeakSpotStats stats) {
+        for (int position = 0; position < CENTURY_POSITIONS; position++) {
+            double centuryRate = stats.getErrorRate(WeakSpotStats.CENTURY_CATEGORIES + position);
+            for (int month = 1; month <= MONTHS; month++) {
+                double monthRate = stats.getErrorRate(WeakSpotStats.monthCategory(month));
+                setScore(position * MONTHS + month - 1, (int) Math.round(MAX_SCORE * (centuryRate + monthRate) / 2));
+            }
+        }
+        setScore(LEAP_EDGE, (int) Math.round(MAX_SCORE * stats.getErrorRate(WeakSpotStats.LEAP_JAN_FEB_CATEGORY)));
+    }
+
+    @Override
+    public synchronized void setRange(int startYear, int endYear) {
+        if (endYear < startYear) {
+            throw new IllegalArgumentException("endYear < startYear: " + endYear + " < " + startYear);
+        }
+        if (hasRange && startYear == this.startYear && endYear == this.endYear) {
+            return;
+        }
+        this.startYear = startYear;
+        this.endYear = endYear;
+        this.hasRange = true;
+        // Categories without any year in the range get no weight
+        for (int position = 0; position < CENTURY_POSITIONS; position++) {
+            boolean hasYears = centuryYearIndex(position, endYear + 1L) > centuryYearIndex(position, startYear);
+            for (int month = 0; month < MONTHS; month++) {
+                setAvailable(position * MONTHS + month, hasYears);
+            }
+        }
+        setAvailable(LEAP_EDGE, hasLeapYear(startYear, endYear));
+    }
+
+    @Override
+    public synchronized long nextDate() {
+        int category = weights.find(DateSampler.nextLong(random, weights.total()));
+        if (category == LEAP_EDGE) {
+            return nextLeapEdgeDate();
+        }
+        int position = category / MONTHS;
+        int month = category % MONTHS + 1;
+        // Number the years of this century position consecutively and draw one of them
+        long first = centuryYearIndex(position, startYear);
+        long index = first + DateSampler.nextLong(random, centuryYearIndex(position, endYear + 1L) - first);
+        int year = (int) (Math.floorDiv(index, 100) * 400 + position * 100 + Math.floorMod(index, 100));
+        int day;
+        do {
+            day = 1 + random.nextInt(calendar.daysInMonth(year, month));
+        } while (calendar.isTransitionYear(year) && !calendar.exists(year, month, day));
+        return EpochDay.pack(year, month, day);
+    }
+
+    @Override
+    public synchronized void recordAnswer(int year, int month, boolean correct) {
+        int position = Math.floorMod(Math.floorDiv(year, 100), CENTURY_POSITIONS);
+        updateScore(position * MONTHS + month - 1, correct);
+        if (month <= 2 && calendar.isLeapYear(year)) {
+            updateScore(LEAP_EDGE, correct);
+        }
+    }
+
+    /**
+     * Shared between threads rather than copied, so prefetched questions follow the latest answers
+     */
+    @Override
+    public QuestionStrategy fork(Random random) {
+        return this;
+    }
+
+    private void updateScore(int category, boolean correct) {
+        int score = scores[category];
+        setScore(category, correct ? score - (score + 3) / 4 : Math.min(MAX_SCORE, score + WRONG_STEP));
+    }
+
+    private void setScore(int category, int score) {
+        int old = weight(category);
+        scores[category] = score;
+        weights.add(category, weight(category) - old);
+    }
+
+    private void setAvailable(int category, boolean available) {
+        int old = weight(category);
+        this.available[category] = available;
+        weights.add(category, weight(category) - old);
+    }
+
+    private int weight(int category) {
+        return available[category] ? BASE_WEIGHT + scores[category] : 0;
+    }
+
+    /**
+     * Draw a January or February date of a leap year in the range, by drawing years divisible
+     * by 4 and skipping the century years that aren't leap years (at least half are kept)
+     * and the dates dropped by a cutover
+     */
+    private long nextLeapEdgeDate() {
+        long first = -Math.floorDiv(-(long) startYear, 4);
+        long count = Math.floorDiv(endYear, 4) - first + 1;
+        while (true) {
+            int year = (int) ((first + DateSampler.nextLong(random, count)) * 4);
+            if (!calendar.isLeapYear(year)) {
+                continue;
+            }
+            int dayOfYear = 1 + random.nextInt(31 + 29);
+            int month = dayOfYear <= 31 ? 1 : 2;
+            int day = dayOfYear <= 31 ? dayOfYear : dayOfYear - 31;
+            if (!calendar.isTransitionYear(year) || calendar.exists(year, month, day)) {
+                return EpochDay.pack(year, month, day);
+            }
+        }
+    }
+
+    /**
+     * Check whether the calendar has a leap year in a range of years
+     */
+    private boolean hasLeapYear(int startYear, int endYear) {
+        if (calendar.isJulian()) {
+            return julianLeapYearsUpTo(endYear) > julianLeapYearsUpTo(startYear - 1L);
+        }
+        if (calendar.isGregorian()) {
+            return leapYearsUpTo(endYear) > leapYearsUpTo(startYear - 1L);
+        }
+        // Julian before the cutover year, Gregorian after it
+        int cutoverYear = EpochDay.year(calendar.getCutoverDate());
+        if (startYear <= cutoverYear && cutoverYear <= endYear && calendar.isLeapYear(cutoverYear)) {
+            return true;
+        }
+        long julianEnd = Math.min(endYear, cutoverYear - 1L);
+        long gregorianStart = Math.max(startYear, cutoverYear + 1L);
+        return (startYear <= julianEnd && julianLeapYearsUpTo(julianEnd) > julianLeapYearsUpTo(startYear - 1L))
+                || (gregorianStart <= endYear && leapYearsUpTo(endYear) > leapYearsUpTo(gregorianStart - 1));
+    }
+
+    /**
+     * Count the years before a given year whose century has a given position in the 400-year
+     * cycle, counting from year 0. Years of that position map one-to-one onto consecutive counts.
+     */
+    private static long centuryYearIndex(int position, long year) {
+        long cycles = Math.floorDiv(year, 400);
+        long yearOfCycle = Math.floorMod(year, 400);
+        return cycles * 100 + Math.min(100, Math.max(0, yearOfCycle - position * 100));
+    }
+
+    /**
+     * Count the leap years up to a given year, relative to year 0
+     */
+    private static long leapYearsUpTo(long year) {
+        return Math.floorDiv(year, 4) - Math.floorDiv(year, 100) + Math.floorDiv(year, 400);
+    }
+
+    /**
+     * Count the Julian leap years up to a given year, relative to year 0
+     */
+    private static long julianLeapYearsUpTo(long year) {
+        return Math.floorDiv(year, 4);
+    }
+}
@@ -0,0 +1,253 @@
+package froggy.game.doomsdaytrainer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Running totals of answers broken down by the parts of a date that the Doomsday rule depends on,
+ * so that weak spots can be shown without going back over the whole answer history.
+ *
+ * Every answer counts towards one category of each kind: its month, its century's position in
+ * the 400-year cycle (which fixes the century's anchor day), its year's position in the 28-year
+ * cycle, and, for January and February of years that are leap years in the calendar the question
+ * was asked in, the leap-year category. Each category
+ * keeps attempts, errors and summed think time in primitive arrays; a 7x7 matrix counts which
+ * weekday was guessed for which actual weekday. Recording an answer is O(1).
+ *
+ * Not thread-safe.
+ */
+public final class WeakSpotStats {
+
+    /** First of the 12 month categories, January first */
+    public static final int MONTH_CATEGORIES = 0;
+    /** First of the 4 century categories, indexed by the century's position in the 400-year cycle */
+    public static final int CENTURY_CATEGORIES = 12;
+    /** First of the 28 categories for the year's position in the 28-year calendar cycle */
+    public static final int CYCLE_CATEGORIES = 16;
+    /** January and February dates in leap years */
+    public static final int LEAP_JAN_FEB_CATEGORY = 44;
+    /** Number of categories */
+    public static final int CATEGORY_COUNT = 45;
+
+    private static final int DAYS = 7;
+    private static final int MAGIC = 0x57535331; // "WSS1"
+
+    private final long[] attempts = new long[CATEGORY_COUNT];
+    private final long[] errors = new long[CATEGORY_COUNT];
+    private final long[] thinkNanos = new long[CATEGORY_COUNT];
+    private final long[] confusion = new long[DAYS * DAYS]; // (actual - 1) * 7 + guessed - 1
+    private long totalAttempts;
+
+    /**
+     * @param month 1-12
+     * @return The month's category
+     */
+    public static int monthCategory(int month) {
+        return MONTH_CATEGORIES + month - 1;
+    }
+
+    /**
+     * @return The category of the year's century; 0 for centuries like 1600 and 2000
+     */
+    public static int centuryCategory(int year) {
+        return CENTURY_CATEGORIES + Math.floorMod(Math.floorDiv(year, 100), 4);
+    }
+
+    /**
+     * @return The category of the year's position in the 28-year cycle
+     */
+    public static int cycleCategory(int year) {
+        return CYCLE_CATEGORIES + Math.floorMod(year, 28);
+    }
+
+    /**
+     * Count one answer
+     *
+     * @param year The question's year
+     * @param month The question's month, 1-12
+     * @param calendar The calendar the question was asked in, which decides whether its year is
+     *                 a leap year
+     * @param guessedDay The answer given, as a WeekdayEngine constant
+     * @param actualDay The correct answer, as a WeekdayEngine constant
+     * @param thinkNanos The time taken to answer
+     */
+    public void record(int year, int month, CalendarSystem calendar, int guessedDay, int actualDay,
+                       long thinkNanos) {
+        int error = guessedDay == actualDay ? 0 : 1;
+        count(monthCategory(month), error, thinkNanos);
+        count(centuryCategory(year), error, thinkNanos);
+        count(cycleCategory(year), error, thinkNanos);
+        if (month <= 2 && calendar.isLeapYear(year)) {
+            count(LEAP_JAN_FEB_CATEGORY, error, thinkNanos);
+        }
+        confusion[(actualDay - 1) * DAYS + guessedDay - 1]++;
+        totalAttempts++;
+    }
+
+    private void count(int category, int error, long nanos) {
+        attempts[category]++;
+        errors[category] += error;
+        thinkNanos[category] += nanos;
+    }
+
+    /**
+     * Add all answers counted by another instance
+     *
+     * @param other The statistics to add
+     */
+    public void add(WeakSpotStats other) {
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            attempts[i] += other.attempts[i];
+            errors[i] += other.errors[i];
+            thinkNanos[i] += other.thinkNanos[i];
+        }
+        for (int i = 0; i < confusion.length; i++) {
+            confusion[i] += other.confusion[i];
+        }
+        totalAttempts += other.totalAttempts;
+    }
+
+    /**
+     * @return The number of answers counted
+     */
+    public long getTotalAttempts() {
+        return totalAttempts;
+    }
+
+    public long getAttempts(int category) {
+        return attempts[category];
+    }
+
+    public long getErrors(int category) {
+        return errors[category];
+    }
+
+    /**
+     * @return The fraction of wrong answers in a category, or 0 if it has none
+     */
+    public double getErrorRate(int category) {
+        return attempts[category] == 0 ? 0 : (double) errors[category] / attempts[category];
+    }
+
+    /**
+     * @return The average think time in a category in nanoseconds, or 0 if it has no answers
+     */
+    public long getMeanThinkNanos(int category) {
+        return attempts[category] == 0 ? 0 : thinkNanos[category] / attempts[category];
+    }
+
+    /**
+     * Get how often a weekday was guessed for another
+     *
+     * @param actualDay The correct answer, as a WeekdayEngine constant
+     * @param guessedDay The answer given, as a WeekdayEngine constant
+     * @return The number of such answers
+     */
+    public long getConfusion(int actualDay, int guessedDay) {
+        return confusion[(actualDay - 1) * DAYS + guessedDay - 1];
+    }
+
+    /**
+     * Write the statistics compactly; only categories and matrix cells with answers are stored
+     *
+     * @param out The output to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int usedCategories = 0;
+        for (long count : attempts) {
+            if (count != 0) {
+                usedCategories++;
+            }
+        }
+        int usedCells = 0;
+        for (long count : confusion) {
+            if (count != 0) {
+                usedCells++;
+            }
+        }
+        out.writeInt(MAGIC);
+        out.writeLong(totalAttempts);
+        out.writeByte(usedCategories);
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            if (attempts[i] != 0) {
+                out.writeByte(i);
+                out.writeLong(attempts[i]);
+                out.writeLong(errors[i]);
+                out.writeLong(thinkNanos[i]);
+            }
+        }
+        out.writeByte(usedCells);
+        for (int i = 0; i < confusion.length; i++) {
+            if (confusion[i] != 0) {
+                out.writeByte(i);
+                out.writeLong(confusion[i]);
+            }
+        }
+    }
+
+    /**
+     * Read statistics written by {@link #writeTo(DataOutput)}
+     *
+     * @param in The input to read from
+     * @return The statistics
+     * @throws IOException if reading fails or the data is not weak-spot statistics
+     */
+    public static WeakSpotStats readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not weak-spot statistics");
+        }
+        WeakSpotStats stats = new WeakSpotStats();
+        stats.totalAttempts = in.readLong();
+        int usedCategories = in.readUnsignedByte();
+        for (int i = 0; i < usedCategories; i++) {
+            int category = in.readUnsignedByte();
+            if (category >= CATEGORY_COUNT) {
+                throw new IOException("Bad category " + category);
+            }
+            stats.attempts[category] = in.readLong();
+            stats.errors[category] = in.readLong();
+            stats.thinkNanos[category] = in.readLong();
+        }
+        int usedCells = in.readUnsignedByte();
+        for (int i = 0; i < usedCells; i++) {
+            int cell = in.readUnsignedByte();
+            if (cell >= stats.confusion.length) {
+                throw new IOException("Bad confusion cell " + cell);
+            }
+            stats.confusion[cell] = in.readLong();
+        }
+        return stats;
+    }
+
+    /**
+     * Serialize the statistics
+     *
+     * @return The serialized statistics
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not possible for an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize statistics from {@link #toByteArray()}
+     *
+     * @param data The serialized statistics
+     * @return The statistics
+     * @throws IOException if the data is not weak-spot statistics
+     */
+    public static WeakSpotStats fromByteArray(byte[] data) throws IOException {
+        return readFrom(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+}
@@ -0,0 +1,100 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * Pure integer weekday arithmetic based on the Doomsday rule.
+ *
+ * All dates are in the proleptic Gregorian calendar, months are 1-based
+ * (1 = January) and weekdays use the same numbering as {@code java.util.Calendar}
+ * (1 = Sunday ... 7 = Saturday). None of the methods allocate.
+ */
+public final class WeekdayEngine {
+
+    public static final int SUNDAY = 1;
+    public static final int MONDAY = 2;
+    public static final int TUESDAY = 3;
+    public static final int WEDNESDAY = 4;
+    public static final int THURSDAY = 5;
+    public static final int FRIDAY = 6;
+    public static final int SATURDAY = 7;
+
+    // Day of the month that falls on the doomsday, indexed by month (1-12)
+    private static final int[] MONTH_DOOMSDAY_COMMON = {0, 3, 28, 14, 4, 9, 6, 11, 8, 5, 10, 7, 12};
+    private static final int[] MONTH_DOOMSDAY_LEAP = {0, 4, 29, 14, 4, 9, 6, 11, 8, 5, 10, 7, 12};
+
+    private static final int[] DAYS_IN_MONTH = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private WeekdayEngine() {
+    }
+
+    /**
+     * Check whether a year is a leap year
+     *
+     * @param year The year (may be zero or negative)
+     * @return true if the year has a February 29th
+     */
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Get the number of days in a month
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @return The number of days in the month
+     */
+    public static int daysInMonth(int year, int month) {
+        if (month == 2 && isLeapYear(year)) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month];
+    }
+
+    /**
+     * Get the anchor day of a century, i.e. the doomsday of its "00" year
+     *
+     * @param year Any year in the century
+     * @return The anchor as 0 = Sunday ... 6 = Saturday
+     */
+    public static int centuryAnchor(int year) {
+        int century = Math.floorDiv(year, 100);
+        return (2 + 5 * Math.floorMod(century, 4)) % 7;
+    }
+
+    /**
+     * Get the doomsday of a year using the "twelves" method
+     *
+     * @param year The year
+     * @return The doomsday as 0 = Sunday ... 6 = Saturday
+     */
+    public static int doomsday(int year) {
+        int y = Math.floorMod(year, 100);
+        int twelves = y / 12;
+        int remainder = y % 12;
+        return (centuryAnchor(year) + twelves + remainder + remainder / 4) % 7;
+    }
+
+    /**
+     * Get the day of the month that falls on the doomsday
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @return The day of the month
+     */
+    public static int monthDoomsday(int year, int month) {
+        return isLeapYear(year) ? MONTH_DOOMSDAY_LEAP[month] : MONTH_DOOMSDAY_COMMON[month];
+    }
+
+    /**
+     * Get the day of the week of a date
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @param day The day of the month (1-31)
+     * @return The weekday as a Calendar-style constant (SUNDAY ... SATURDAY)
+     */
+    public static int dayOfWeek(int year, int month, int day) {
+        // The offset from the month's doomsday is within -28..28, so adding 35 keeps it positive
+        return (doomsday(year) + day - monthDoomsday(year, month) + 35) % 7 + 1;
+    }
+}
@@ -0,0 +1,230 @@
+package froggy.game.doomsdaytrainer;
+
+/**
+ * Precomputed doomsday anchors for a range of years, so a weekday can be answered
+ * with two array loads instead of redoing the century/twelves arithmetic.
+ *
+ * Every year takes one nibble: bits 0-2 hold the year's doomsday (0 = Sunday ... 6 = Saturday)
+ * and bit 3 is set for leap years. Two years share a byte, the even year in the low nibble.
+ * Footprint of the nibble array (plus a 16 byte array header):
+ * <pre>
+ *   years          bytes
+ *   200            100      (default 1900-2099)
+ *   10,000         5,000
+ *   100,000        50,000
+ *   1,000,000      500,000  (~488 KiB)
+ * </pre>
+ *
+ * Tables can be built for any {@link CalendarSystem}; lookups cost the same in all of them.
+ * The years around a Julian/Gregorian cutover, which no single doomsday describes, are marked
+ * with the otherwise unused nibble 0xF and answered by the calendar directly.
+ *
+ * Tables are immutable and can be shared between threads. {@link #withRange(int, int)}
+ * reuses the anchors of the overlapping years and only computes the years that were added.
+ */
+public final class YearAnchorTable {
+
+    private static final int LEAP_BIT = 8;
+    private static final int DOOMSDAY_MASK = 7;
+    private static final int TRANSITION = 0xF; // doomsday 7 does not exist
+
+    // (7 - month doomsday) mod 7, indexed by (leap bit << 1) | month, so the nibble's
+    // leap bit selects the leap-year half of the table without a branch
+    private static final byte[] MONTH_OFFSETS = new byte[32];
+
+    static {
+        for (int month = 1; month <= 12; month++) {
+            MONTH_OFFSETS[month] = (byte) Math.floorMod(-WeekdayEngine.monthDoomsday(2001, month), 7);
+            MONTH_OFFSETS[(LEAP_BIT << 1) | month] = (byte) Math.floorMod(-WeekdayEngine.monthDoomsday(2000, month), 7);
+        }
+    }
+
+    private final CalendarSystem calendar;
+    private final int baseYear;  // always even, so two tables' bytes line up for copying
+    private final int startYear;
+    private final int endYear;
+    private final byte[] anchors;
+
+    private YearAnchorTable(int startYear, int endYear, CalendarSystem calendar, YearAnchorTable previous) {
+        if (endYear < startYear) {
+            throw new IllegalArgumentException("endYear < startYear: " + endYear + " < " + startYear);
+        }
+        this.calendar = calendar;
+        this.startYear = startYear;
+        this.endYear = endYear;
+        this.baseYear = startYear - Math.floorMod(startYear, 2);
+        this.anchors = new byte[(int) (((long) endYear - baseYear) / 2 + 1)];
+
+        int from = startYear;
+        int to = startYear - 1; // nothing reused
+        if (previous != null) {
+            from = Math.max(startYear, previous.startYear);
+            to = Math.min(endYear, previous.endYear);
+        }
+        if (from <= to) {
+            // Both bases are even, so a byte holds the same two years in either table. Edge
+            // bytes may bring along a nibble for a year outside the overlap; fill() overwrites it.
+            int first = (from - previous.baseYear) >> 1;
+            int last = (to - previous.baseYear) >> 1;
+            System.arraycopy(previous.anchors, first, anchors, (from - baseYear) >> 1, last - first + 1);
+            if (startYear < from) {
+                fill(startYear, from - 1);
+            }
+            if (to < endYear) {
+                fill(to + 1, endYear);
+            }
+        } else {
+            fill(startYear, endYear);
+        }
+    }
+
+    /**
+     * Build a table covering a range of years of the proleptic Gregorian calendar
+     *
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     * @return The new table
+     */
+    public static YearAnchorTable build(int startYear, int endYear) {
+        return build(startYear, endYear, CalendarSystem.GREGORIAN);
+    }
+
+    /**
+     * Build a table covering a range of years
+     *
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     * @param calendar The calendar the dates are in
+     * @return The new table
+     */
+    public static YearAnchorTable build(int startYear, int endYear, CalendarSystem calendar) {
+        return new YearAnchorTable(startYear, endYear, calendar, null);
+    }
+
+    /**
+     * Get a table covering another range of years, reusing this table's anchors where the
+     * ranges overlap
+     *
+     * @param startYear The first year (inclusive)
+     * @param endYear The last year (inclusive)
+     * @return This table if the range is unchanged, otherwise a new table
+     */
+    public YearAnchorTable withRange(int startYear, int endYear) {
+        if (startYear == this.startYear && endYear == this.endYear) {
+            return this;
+        }
+        return new YearAnchorTable(startYear, endYear, calendar, this);
+    }
+
+    /**
+     * Compute the anchors of a run of consecutive years, stepping each doomsday forward
+     * from the previous one instead of starting over from the century anchor
+     */
+    private void fill(int from, int to) {
+        int doomsday = calendar.doomsday(from);
+        for (int year = from; ; year++) {
+            boolean transition = calendar.isTransitionYear(year);
+            int nibble = transition ? TRANSITION : doomsday | (calendar.isLeapYear(year) ? LEAP_BIT : 0);
+            int index = (year - baseYear) >> 1;
+            if (((year - baseYear) & 1) == 0) {
+                anchors[index] = (byte) ((anchors[index] & 0xF0) | nibble);
+            } else {
+                anchors[index] = (byte) ((anchors[index] & 0x0F) | (nibble << 4));
+            }
+            if (year == to) {
+                break;
+            }
+            // The doomsday moves one weekday per year, two when the next year is a leap year;
+            // after a cutover it starts over
+            if (transition) {
+                doomsday = calendar.doomsday(year + 1);
+            } else {
+                doomsday = (doomsday + (calendar.isLeapYear(year + 1) ? 2 : 1)) % 7;
+            }
+        }
+    }
+
+    private int nibble(int year) {
+        int offset = year - baseYear;
+        return (anchors[offset >> 1] >> ((offset & 1) << 2)) & 0xF;
+    }
+
+    public int getStartYear() {
+        return startYear;
+    }
+
+    public int getEndYear() {
+        return endYear;
+    }
+
+    public CalendarSystem getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Check whether a year is inside the table
+     *
+     * @param year The year
+     * @return true if the year's anchor is precomputed
+     */
+    public boolean covers(int year) {
+        return year >= startYear && year <= endYear;
+    }
+
+    /**
+     * Get the doomsday of a year
+     *
+     * @param year The year
+     * @return The doomsday as 0 = Sunday ... 6 = Saturday
+     */
+    public int doomsday(int year) {
+        int nibble = covers(year) ? nibble(year) : TRANSITION;
+        if (nibble == TRANSITION) {
+            return calendar.doomsday(year);
+        }
+        return nibble & DOOMSDAY_MASK;
+    }
+
+    /**
+     * Check whether a year is a leap year
+     *
+     * @param year The year
+     * @return true if the year has a February 29th
+     */
+    public boolean isLeapYear(int year) {
+        int nibble = covers(year) ? nibble(year) : TRANSITION;
+        if (nibble == TRANSITION) {
+            return calendar.isLeapYear(year);
+        }
+        return (nibble & LEAP_BIT) != 0;
+    }
+
+    /**
+     * Get the day of the week of a date. Years outside the table fall back to the calendar.
+     *
+     * @param year The year
+     * @param month The month (1-12)
+     * @param day The day of the month (1-31)
+     * @return The weekday as a WeekdayEngine constant (SUNDAY ... SATURDAY)
+     */
+    public int dayOfWeek(int year, int month, int day) {
+        if (!covers(year)) {
+            return calendar.isGregorian() ? WeekdayEngine.dayOfWeek(year, month, day) : calendar.dayOfWeek(year, month, day);
+        }
+        int nibble = nibble(year);
+        if (nibble == TRANSITION) {
+            return calendar.dayOfWeek(year, month, day);
+        }
+        return ((nibble & DOOMSDAY_MASK) + day + MONTH_OFFSETS[((nibble & LEAP_BIT) << 1) | month]) % 7 + 1;
+    }
+
+    /**
+     * Get the memory used by the anchors
+     *
+     * @return The size of the anchor array in bytes, including its header
+     */
+    public long footprintBytes() {
+        // 16 byte array header, payload rounded up to 8 byte alignment
+        return 16 + ((anchors.length + 7L) & ~7L);
+    }
+}
@@ -0,0 +1,156 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AnswerLogTest {
+
+    // As in AnswerLog
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_COUNT_OFFSET = 8;
+
+    private File path;
+
+    @Before
+    public void setUp() throws IOException {
+        path = File.createTempFile("answers", ".log");
+        path.delete();
+    }
+
+    @After
+    public void tearDown() {
+        path.delete();
+    }
+
+    private static void append(AnswerLog log, int i) throws IOException {
+        log.append(1_000_000L + i * 10L, i / 100, i * 7L, 1900 + i % 200, i % 12 + 1, i % 28 + 1,
+                i % 7 + 1, (i + i / 7) % 7 + 1);
+    }
+
+    private static void assertRecord(AnswerLog log, int i) {
+        AnswerLog.Entry entry = new AnswerLog.Entry();
+        log.read(i, entry);
+        assertEquals(1_000_000L + i * 10L, entry.timestampMillis);
+        assertEquals(i / 100, entry.sessionId);
+        assertEquals(i * 7L, entry.thinkNanos);
+        assertEquals(1900 + i % 200, entry.year);
+        assertEquals(i % 12 + 1, entry.month);
+        assertEquals(i % 28 + 1, entry.day);
+        assertEquals(i % 7 + 1, entry.guessedDay);
+        assertEquals((i + i / 7) % 7 + 1, entry.actualDay);
+    }
+
+    private void writeAt(long position, long value, boolean asLong) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.seek(position);
+            if (asLong) {
+                file.writeLong(value);
+            } else {
+                file.writeByte((int) value);
+            }
+        }
+    }
+
+    @Test
+    public void keepsRecordsAcrossSegmentsAndReopening() throws IOException {
+        int count = AnswerLog.SEGMENT_RECORDS + 1000;
+        try (AnswerLog log = AnswerLog.open(path)) {
+            for (int i = 0; i < count; i++) {
+                append(log, i);
+            }
+            assertEquals(count, log.size());
+            log.sync();
+        }
+        try (AnswerLog log = AnswerLog.open(path)) {
+            assertEquals(count, log.size());
+            for (int i = 0; i < count; i += 97) {
+                assertRecord(log, i);
+            }
+            assertRecord(log, count - 1);
+        }
+    }
+
+    @Test
+    public void dropsATornRecord() throws IOException {
+        try (AnswerLog log = AnswerLog.open(path)) {
+            for (int i = 0; i < 10; i++) {
+                append(log, i);
+            }
+        }
+        // The check byte of the last record was never written
+        writeAt(HEADER_SIZE + 9 * AnswerLog.RECORD_SIZE + AnswerLog.RECORD_SIZE - 1, 0, false);
+
+        try (AnswerLog log = AnswerLog.open(path)) {
+            assertEquals(9, log.size());
+            append(log, 9);
+            assertRecord(log, 9);
+        }
+        try (AnswerLog log = AnswerLog.open(path)) {
+            assertEquals(10, log.size());
+        }
+    }
+
+    @Test
+    public void recoversFromAStaleHeaderCount() throws IOException {
+        try (AnswerLog log = AnswerLog.open(path)) {
+            for (int i = 0; i < 10; i++) {
+                append(log, i);
+            }
+        }
+        // The record reached the file but the count didn't
+        writeAt(HEADER_COUNT_OFFSET, 9, true);
+        try (AnswerLog log = AnswerLog.open(path)) {
+            assertEquals(10, log.size());
+        }
+        // The count was written for a record that didn't
+        writeAt(HEADER_COUNT_OFFSET, 11, true);
+        try (AnswerLog log = AnswerLog.open(path)) {
+            assertEquals(10, log.size());
+        }
+    }
+
+    @Test
+    public void findsTimesAndSessions() throws IOException {
+        int count = 5 * AnswerLog.INDEX_INTERVAL + 17;
+        try (AnswerLog log = AnswerLog.open(path)) {
+            for (int i = 0; i < count; i++) {
+                append(log, i);
+            }
+            for (int i = 0; i < count; i += 13) {
+                assertEquals(i, log.firstIndexAtOrAfter(1_000_000L + i * 10L));
+                assertEquals(i + 1, log.firstIndexAtOrAfter(1_000_000L + i * 10L + 1));
+            }
+            assertEquals(0, log.firstIndexAtOrAfter(0));
+            assertEquals(count, log.firstIndexAtOrAfter(Long.MAX_VALUE));
+
+            for (int session = 0; session <= count / 100; session++) {
+                assertEquals(session * 100, log.firstIndexOfSession(session));
+            }
+            assertEquals(count, log.firstIndexOfSession(count / 100 + 1));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(path)) {
+            out.write(new byte[HEADER_SIZE + 100]);
+        }
+        AnswerLog.open(path).close();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsReadsPastTheEnd() throws IOException {
+        try (AnswerLog log = AnswerLog.open(path)) {
+            append(log, 0);
+            log.read(1, new AnswerLog.Entry());
+        }
+    }
+}
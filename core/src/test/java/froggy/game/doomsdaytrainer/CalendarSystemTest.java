@@ -0,0 +1,146 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class CalendarSystemTest {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * A java.util calendar switching to Gregorian on the same day, or never / always
+     */
+    private static GregorianCalendar reference(CalendarSystem calendar) {
+        GregorianCalendar reference = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        if (calendar.isGregorian()) {
+            reference.setGregorianChange(new Date(Long.MIN_VALUE));
+        } else if (calendar.isJulian()) {
+            reference.setGregorianChange(new Date(Long.MAX_VALUE));
+        } else {
+            long cutover = calendar.getCutoverDate();
+            long cutoverDay = EpochDay.of(EpochDay.year(cutover), EpochDay.month(cutover), EpochDay.day(cutover));
+            reference.setGregorianChange(new Date(cutoverDay * MILLIS_PER_DAY));
+        }
+        reference.clear();
+        return reference;
+    }
+
+    /**
+     * Walk every day from year 1 to 2200 with GregorianCalendar and compare
+     */
+    private static void assertMatchesGregorianCalendar(CalendarSystem calendar) {
+        GregorianCalendar reference = reference(calendar);
+        reference.set(1, Calendar.JANUARY, 1);
+        long epochDay = Math.floorDiv(reference.getTimeInMillis(), MILLIS_PER_DAY);
+        assertEquals(epochDay, calendar.firstDayOfYear(1));
+
+        while (reference.get(Calendar.YEAR) <= 2200) {
+            int year = reference.get(Calendar.YEAR);
+            int month = reference.get(Calendar.MONTH) + 1;
+            int day = reference.get(Calendar.DAY_OF_MONTH);
+            String where = calendar + " " + year + "-" + month + "-" + day;
+
+            long date = calendar.toDate(epochDay);
+            assertEquals(where, year, EpochDay.year(date));
+            assertEquals(where, month, EpochDay.month(date));
+            assertEquals(where, day, EpochDay.day(date));
+            assertEquals(where, epochDay, calendar.epochDay(year, month, day));
+            assertEquals(where, reference.get(Calendar.DAY_OF_WEEK), calendar.dayOfWeek(year, month, day));
+            assertTrue(where, calendar.exists(year, month, day));
+            if (reference.get(Calendar.DAY_OF_YEAR) == 1) {
+                assertEquals(where, epochDay, calendar.firstDayOfYear(year));
+            }
+            if (reference.get(Calendar.DAY_OF_YEAR) == reference.getActualMaximum(Calendar.DAY_OF_YEAR)) {
+                assertEquals(where, epochDay, calendar.lastDayOfYear(year));
+            }
+            if (day == 1) {
+                // In the cutover's month the dropped days still count towards its length
+                int length = reference.getActualMaximum(Calendar.DAY_OF_MONTH);
+                if (calendar.isTransitionYear(year)) {
+                    assertTrue(where, calendar.daysInMonth(year, month) >= length);
+                } else {
+                    assertEquals(where, length, calendar.daysInMonth(year, month));
+                }
+            }
+
+            reference.add(Calendar.DAY_OF_MONTH, 1);
+            epochDay++;
+        }
+    }
+
+    @Test
+    public void gregorianMatchesGregorianCalendar() {
+        assertMatchesGregorianCalendar(CalendarSystem.GREGORIAN);
+    }
+
+    @Test
+    public void julianMatchesGregorianCalendar() {
+        assertMatchesGregorianCalendar(CalendarSystem.JULIAN);
+    }
+
+    @Test
+    public void cutoversMatchGregorianCalendar() {
+        assertMatchesGregorianCalendar(CalendarSystem.cutover(1582, 10, 15)); // Rome
+        assertMatchesGregorianCalendar(CalendarSystem.cutover(1752, 9, 14));  // Britain
+        assertMatchesGregorianCalendar(CalendarSystem.cutover(1918, 2, 14));  // Russia
+        assertMatchesGregorianCalendar(CalendarSystem.cutover(1700, 3, 1));   // Denmark, skipping 29 February
+    }
+
+    @Test
+    public void cutoverDropsTheSkippedDates() {
+        CalendarSystem rome = CalendarSystem.cutover(1582, 10, 15);
+        assertTrue(rome.exists(1582, 10, 4));
+        for (int day = 5; day <= 14; day++) {
+            assertFalse(rome.exists(1582, 10, day));
+        }
+        assertTrue(rome.exists(1582, 10, 15));
+        assertEquals(rome.epochDay(1582, 10, 4) + 1, rome.epochDay(1582, 10, 15));
+        assertTrue(rome.isTransitionYear(1582));
+        assertFalse(rome.isTransitionYear(1583));
+        assertEquals(355, rome.lastDayOfYear(1582) - rome.firstDayOfYear(1582) + 1);
+
+        // Britain's 1700 was still a Julian leap year, its 1800 a Gregorian common year
+        CalendarSystem britain = CalendarSystem.cutover(1752, 9, 14);
+        assertTrue(britain.isLeapYear(1700));
+        assertFalse(britain.isLeapYear(1800));
+    }
+
+    @Test
+    public void doomsdayIsTheWeekdayOfFebruarysLastDay() {
+        assertEquals(WeekdayEngine.TUESDAY - 1, CalendarSystem.GREGORIAN.doomsday(2000)); // 2000-02-29
+        assertEquals(WeekdayEngine.SATURDAY - 1, CalendarSystem.GREGORIAN.doomsday(1964));
+        // 1582-02-28 was still a Julian date, a Wednesday
+        assertEquals(WeekdayEngine.WEDNESDAY - 1, CalendarSystem.cutover(1582, 10, 15).doomsday(1582));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANonexistentCutoverDate() {
+        CalendarSystem.cutover(1582, 2, 29);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsACutoverThatRepeatsDays() {
+        // Before the 3rd century the Julian calendar is ahead, so switching would go back
+        CalendarSystem.cutover(100, 3, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsACutoverThatDropsTooManyDays() {
+        CalendarSystem.cutover(4200, 1, 1);
+    }
+
+    @Test
+    public void equalityFollowsTheCutover() {
+        assertEquals(CalendarSystem.cutover(1752, 9, 14), CalendarSystem.cutover(1752, 9, 14));
+        assertFalse(CalendarSystem.cutover(1752, 9, 14).equals(CalendarSystem.cutover(1582, 10, 15)));
+        assertFalse(CalendarSystem.GREGORIAN.equals(CalendarSystem.JULIAN));
+    }
+}
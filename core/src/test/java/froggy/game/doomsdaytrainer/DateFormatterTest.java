@@ -0,0 +1,103 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class DateFormatterTest {
+
+    private static final String[] PATTERNS = {
+            "MMMM d, yyyy", "d MMMM yyyy", "dd/MM/yyyy", "M/d/yy", "yyyy-MM-dd", "d MMM y", "'Day' d 'of' MMMM",
+            "d. MMMM yyyy", "''yy", "yyyyy"
+    };
+    private static final Locale[] LOCALES = {
+            Locale.US, Locale.UK, Locale.GERMANY, Locale.FRANCE, Locale.JAPAN, new Locale("ru", "RU")
+    };
+
+    /**
+     * Format as SimpleDateFormat does with the proleptic Gregorian calendar
+     */
+    private static String simpleFormat(String pattern, Locale locale, int year, int month, int day) {
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        GregorianCalendar calendar = new GregorianCalendar(utc, locale);
+        calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+        calendar.clear();
+        calendar.set(year, month - 1, day);
+        SimpleDateFormat format = new SimpleDateFormat(pattern, locale);
+        format.setCalendar(calendar);
+        return format.format(calendar.getTime());
+    }
+
+    @Test
+    public void matchesSimpleDateFormat() {
+        int[][] dates = {{2024, 2, 29}, {1999, 12, 31}, {1, 1, 1}, {1582, 10, 4}, {9999, 9, 9}, {2005, 5, 5}};
+        for (Locale locale : LOCALES) {
+            for (String pattern : PATTERNS) {
+                DateFormatter formatter = DateFormatter.compile(pattern, locale);
+                for (int[] date : dates) {
+                    assertEquals(pattern + " in " + locale,
+                            simpleFormat(pattern, locale, date[0], date[1], date[2]),
+                            formatter.format(date[0], date[1], date[2]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesSimpleDateFormatForEveryDayOfAYear() {
+        DateFormatter formatter = DateFormatter.compile("d MMM yyyy", Locale.US);
+        for (int month = 1; month <= 12; month++) {
+            GregorianCalendar calendar = new GregorianCalendar(2024, month - 1, 1);
+            int days = calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+            for (int day = 1; day <= days; day++) {
+                assertEquals(simpleFormat("d MMM yyyy", Locale.US, 2024, month, day),
+                        formatter.format(2024, month, day));
+            }
+        }
+    }
+
+    @Test
+    public void writesYearsBeforeOneAstronomically() {
+        DateFormatter formatter = DateFormatter.compile("yyyy-MM-dd", Locale.US);
+        assertEquals("0000-03-01", formatter.format(0, 3, 1));
+        assertEquals("-0044-03-15", formatter.format(-44, 3, 15));
+        assertEquals("-2147483648-01-01", formatter.format(Integer.MIN_VALUE, 1, 1));
+        assertEquals("2147483647-12-31", formatter.format(Integer.MAX_VALUE, 12, 31));
+        assertEquals("56", DateFormatter.compile("yy", Locale.US).format(-44, 1, 1));
+    }
+
+    @Test
+    public void appendsToABuilder() {
+        DateFormatter formatter = DateFormatter.compile("d/M", Locale.US);
+        StringBuilder out = new StringBuilder("On ");
+        formatter.format(2000, 7, 4, out);
+        assertEquals("On 4/7", out.toString());
+    }
+
+    @Test
+    public void matchesOnlyItsPatternAndLocale() {
+        DateFormatter formatter = DateFormatter.compile("d MMMM yyyy", Locale.UK);
+        assertTrue(formatter.matches("d MMMM yyyy", Locale.UK));
+        assertFalse(formatter.matches("d MMMM yyyy", Locale.US));
+        assertFalse(formatter.matches("d MMM yyyy", Locale.UK));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedLetters() {
+        DateFormatter.compile("EEEE, d MMMM yyyy", Locale.US);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnterminatedQuotes() {
+        DateFormatter.compile("d 'of MMMM", Locale.US);
+    }
+}
@@ -0,0 +1,91 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DateIndexTest {
+
+    private static final DateFilter[] FILTERS = {
+            DateFilter.NONE,
+            new DateFilter(0, null, false, true, false),                 // weekends
+            new DateFilter(0b11, null, true, false, false),              // Jan/Feb of leap years
+            new DateFilter(0, null, false, false, true),                 // anchor days
+            new DateFilter(1 << 9, new int[] {15, 17}, false, false, false), // Octobers of two centuries
+            new DateFilter(0, new int[] {3}, false, false, false)       // the 300s, outside some ranges
+    };
+    private static final CalendarSystem[] CALENDARS = {
+            CalendarSystem.GREGORIAN, CalendarSystem.JULIAN, CalendarSystem.cutover(1582, 10, 15)
+    };
+
+    private static boolean allows(DateFilter filter, CalendarSystem calendar, long epochDay) {
+        long date = calendar.toDate(epochDay);
+        int year = EpochDay.year(date);
+        int month = EpochDay.month(date);
+        int day = EpochDay.day(date);
+        return filter.allowsYear(year, calendar.isLeapYear(year)) && filter.allowsMonth(month)
+                && filter.allowsDay(calendar.dayOfWeek(year, month, day), calendar.doomsday(year) + 1);
+    }
+
+    @Test
+    public void marksExactlyTheAllowedDays() {
+        for (CalendarSystem calendar : CALENDARS) {
+            for (DateFilter filter : FILTERS) {
+                DateIndex index = DateIndex.build(1500, 1800, filter, calendar);
+                long first = calendar.firstDayOfYear(1500);
+                long last = calendar.lastDayOfYear(1800);
+                int rank = 0;
+                for (long epochDay = first; epochDay <= last; epochDay++) {
+                    assertEquals(rank, index.rank(epochDay));
+                    boolean allowed = allows(filter, calendar, epochDay);
+                    assertEquals(calendar + " " + epochDay, allowed, index.contains(epochDay));
+                    if (allowed) {
+                        rank++;
+                    }
+                }
+                assertEquals(rank, index.count());
+                assertEquals(rank, index.rank(last + 1000));
+                assertEquals(0, index.rank(first - 1000));
+            }
+        }
+    }
+
+    @Test
+    public void rankUndoesSelect() {
+        for (CalendarSystem calendar : CALENDARS) {
+            for (DateFilter filter : FILTERS) {
+                DateIndex index = DateIndex.build(-2000, 4000, filter, calendar);
+                long previous = Long.MIN_VALUE;
+                for (int i = 0; i < index.count(); i++) {
+                    long epochDay = index.select(i);
+                    assertEquals(i, index.rank(epochDay));
+                    assertTrue(index.contains(epochDay));
+                    assertTrue(epochDay > previous);
+                    previous = epochDay;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void leavesNoBitForDroppedDays() {
+        CalendarSystem calendar = CalendarSystem.cutover(1582, 10, 15);
+        DateIndex index = DateIndex.build(1582, 1582, DateFilter.NONE, calendar);
+        assertEquals(365 - 10, index.count());
+        long lastJulianDay = calendar.epochDay(1582, 10, 4);
+        assertEquals(lastJulianDay + 1, index.select(index.rank(lastJulianDay) + 1));
+        assertEquals(calendar.epochDay(1582, 10, 15), lastJulianDay + 1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsSelectingPastTheEnd() {
+        DateIndex index = DateIndex.build(2000, 2000, DateFilter.NONE);
+        index.select(index.count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooWideARange() {
+        DateIndex.build(0, DateIndex.MAX_YEARS, DateFilter.NONE);
+    }
+}
@@ -0,0 +1,68 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DateSamplerTest {
+
+    @Test
+    public void drawsEveryDayOfTheRange() {
+        // 2023-2024 has 731 days, including a leap day
+        DateSampler sampler = new DateSampler(new Random(1), 2023, 2024);
+        long first = EpochDay.of(2023, 1, 1);
+        boolean[] seen = new boolean[731];
+        for (int i = 0; i < 20_000; i++) {
+            long epochDay = sampler.nextEpochDay();
+            assertTrue(epochDay >= first && epochDay < first + seen.length);
+            seen[(int) (epochDay - first)] = true;
+        }
+        for (int i = 0; i < seen.length; i++) {
+            assertTrue("Day " + i + " drawn", seen[i]);
+        }
+    }
+
+    @Test
+    public void drawsDaysNotMonthsUniformly() {
+        // Picking the month first would give February as many questions as January
+        DateSampler sampler = new DateSampler(new Random(2), 2023, 2023);
+        int january = 0;
+        int february = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int month = EpochDay.month(sampler.nextDate());
+            if (month == 1) {
+                january++;
+            } else if (month == 2) {
+                february++;
+            }
+        }
+        assertEquals(31.0 / 28.0, (double) january / february, 0.05);
+    }
+
+    @Test
+    public void handlesRangesBeyondIntDays() {
+        DateSampler sampler = new DateSampler(new Random(3), -10_000_000, 10_000_000);
+        for (int i = 0; i < 1000; i++) {
+            int year = EpochDay.year(sampler.nextDate());
+            assertTrue(year >= -10_000_000 && year <= 10_000_000);
+        }
+    }
+
+    @Test
+    public void boundedLongStaysInRange() {
+        Random random = new Random(4);
+        long bound = 3L * Integer.MAX_VALUE;
+        for (int i = 0; i < 10_000; i++) {
+            long value = DateSampler.nextLong(random, bound);
+            assertTrue(value >= 0 && value < bound);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyRange() {
+        new DateSampler(new Random(), 2000, 1999);
+    }
+}
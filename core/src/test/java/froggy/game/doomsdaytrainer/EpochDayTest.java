@@ -0,0 +1,64 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class EpochDayTest {
+
+    @Test
+    public void matchesTheProlepticIsoCalendar() {
+        long first = LocalDate.of(-1200, 1, 1).toEpochDay();
+        long last = LocalDate.of(3200, 12, 31).toEpochDay();
+        for (long epochDay = first; epochDay <= last; epochDay++) {
+            LocalDate expected = LocalDate.ofEpochDay(epochDay);
+            int year = expected.getYear();
+            int month = expected.getMonthValue();
+            int day = expected.getDayOfMonth();
+
+            assertEquals(expected.toString(), epochDay, EpochDay.of(year, month, day));
+            long date = EpochDay.toDate(epochDay);
+            assertEquals(expected.toString(), year, EpochDay.year(date));
+            assertEquals(expected.toString(), month, EpochDay.month(date));
+            assertEquals(expected.toString(), day, EpochDay.day(date));
+        }
+    }
+
+    @Test
+    public void dayOfWeekMatchesTheIsoCalendar() {
+        for (long epochDay = -100_000; epochDay <= 100_000; epochDay += 7919) {
+            int isoDay = LocalDate.ofEpochDay(epochDay).getDayOfWeek().getValue(); // Monday is 1
+            assertEquals(isoDay % 7 + 1, EpochDay.dayOfWeek(epochDay));
+        }
+        assertEquals(WeekdayEngine.THURSDAY, EpochDay.dayOfWeek(0));
+        assertEquals(WeekdayEngine.WEDNESDAY, EpochDay.dayOfWeek(-1));
+    }
+
+    @Test
+    public void roundTripsTheWholeIntYearRange() {
+        int[] years = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, 0, 1, Integer.MAX_VALUE - 1, Integer.MAX_VALUE};
+        for (int year : years) {
+            for (int month = 1; month <= 12; month += 11) {
+                int day = month == 1 ? 1 : 31;
+                long date = EpochDay.toDate(EpochDay.of(year, month, day));
+                assertEquals(year, EpochDay.year(date));
+                assertEquals(month, EpochDay.month(date));
+                assertEquals(day, EpochDay.day(date));
+            }
+        }
+        assertEquals(1, EpochDay.of(Integer.MIN_VALUE, 1, 2) - EpochDay.of(Integer.MIN_VALUE, 1, 1));
+    }
+
+    @Test
+    public void packsNegativeYears() {
+        long date = EpochDay.pack(-44, 3, 15);
+        assertEquals(-44, EpochDay.year(date));
+        assertEquals(3, EpochDay.month(date));
+        assertEquals(15, EpochDay.day(date));
+        // Packed dates order like the dates they hold
+        assertEquals(-1, Long.signum(EpochDay.pack(-1, 12, 31) - EpochDay.pack(0, 1, 1)));
+        assertEquals(-1, Long.signum(EpochDay.pack(2000, 2, 29) - EpochDay.pack(2000, 3, 1)));
+    }
+}
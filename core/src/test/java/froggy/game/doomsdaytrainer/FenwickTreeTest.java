@@ -0,0 +1,62 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FenwickTreeTest {
+
+    @Test
+    public void matchesPlainSums() {
+        Random random = new Random(1);
+        for (int size : new int[] {1, 2, 7, 49, 64, 100}) {
+            FenwickTree tree = new FenwickTree(size);
+            long[] weights = new long[size];
+            for (int round = 0; round < 200; round++) {
+                int index = random.nextInt(size);
+                long delta = random.nextInt(50) - Math.min(weights[index], 20);
+                tree.add(index, delta);
+                weights[index] += delta;
+
+                long sum = 0;
+                for (int end = 0; end <= size; end++) {
+                    assertEquals(sum, tree.prefixSum(end));
+                    if (end < size) {
+                        sum += weights[end];
+                    }
+                }
+                assertEquals(sum, tree.total());
+            }
+        }
+    }
+
+    @Test
+    public void findsTheWeightEachNumberFallsOn() {
+        Random random = new Random(2);
+        for (int size : new int[] {1, 3, 49, 64}) {
+            FenwickTree tree = new FenwickTree(size);
+            long[] weights = new long[size];
+            for (int i = 0; i < size; i++) {
+                // Some weights stay 0 and must never be found
+                weights[i] = random.nextInt(3) == 0 ? 0 : random.nextInt(10) + 1;
+                tree.add(i, weights[i]);
+            }
+            int expected = 0;
+            long end = weights[0];
+            for (long target = 0; target < tree.total(); target++) {
+                while (target >= end) {
+                    expected++;
+                    end += weights[expected];
+                }
+                assertEquals(expected, tree.find(target));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyTree() {
+        new FenwickTree(0);
+    }
+}
@@ -0,0 +1,145 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private static final double[] QUANTILES = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+    /**
+     * Log-uniform times from 1 microsecond to about 17 minutes
+     */
+    private static long[] randomTimes(long seed, int count) {
+        Random random = new Random(seed);
+        long[] nanos = new long[count];
+        for (int i = 0; i < count; i++) {
+            nanos[i] = (long) Math.pow(10, 3 + random.nextDouble() * 9);
+        }
+        return nanos;
+    }
+
+    @Test
+    public void quantilesAreWithinTheBucketPrecision() {
+        long[] nanos = randomTimes(1, 100_000);
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long time : nanos) {
+            histogram.record(time);
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+
+        for (double quantile : QUANTILES) {
+            long exact = sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+            long estimate = histogram.quantileNanos(quantile);
+            // The bucket's upper end: at most 1/32 above, plus the microsecond rounding
+            assertTrue(quantile + ": " + estimate + " < " + exact, estimate >= exact);
+            assertTrue(quantile + ": " + estimate + " >> " + exact, estimate <= exact + exact / 32 + 1000);
+        }
+        assertEquals(sorted[0], histogram.getMinNanos());
+        assertEquals(sorted[sorted.length - 1], histogram.getMaxNanos());
+        assertEquals(sorted[sorted.length - 1], histogram.quantileNanos(1));
+        assertEquals(sorted[0], histogram.quantileNanos(0));
+    }
+
+    @Test
+    public void shortTimesAreExactToTheMicrosecond() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 63; micros++) {
+            histogram.record(micros * 1000L);
+        }
+        assertEquals(32_999, histogram.quantileNanos(0.5));
+        assertEquals(32_000, histogram.getMeanNanos());
+        assertEquals(10, histogram.countBetween(1000, 11_000));
+    }
+
+    @Test
+    public void emptyHistogramReportsZeros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMinNanos());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getMeanNanos());
+        assertEquals(0, histogram.quantileNanos(0.5));
+    }
+
+    @Test
+    public void clampsTimesBeyondTheLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long day = 86_400_000_000_000L;
+        histogram.record(day);
+        histogram.record(-5);
+        assertEquals(day, histogram.getMaxNanos());
+        assertEquals(0, histogram.getMinNanos());
+        // Quantiles stop at the last bucket, about 71 minutes
+        assertEquals(((1L << 32) - 1) * 1000 + 999, histogram.quantileNanos(1));
+        assertEquals(1, histogram.countBetween(1_000_000_000L, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void mergingMatchesRecordingTogether() {
+        long[] first = randomTimes(2, 5000);
+        long[] second = randomTimes(3, 7000);
+        LatencyHistogram merged = new LatencyHistogram();
+        LatencyHistogram other = new LatencyHistogram();
+        LatencyHistogram together = new LatencyHistogram();
+        for (long time : first) {
+            merged.record(time);
+            together.record(time);
+        }
+        for (long time : second) {
+            other.record(time);
+            together.record(time);
+        }
+        merged.add(other);
+
+        assertSameContents(together, merged);
+    }
+
+    @Test
+    public void survivesSerialization() throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long time : randomTimes(4, 10_000)) {
+            histogram.record(time);
+        }
+        assertSameContents(histogram, LatencyHistogram.fromByteArray(histogram.toByteArray()));
+
+        LatencyHistogram empty = LatencyHistogram.fromByteArray(new LatencyHistogram().toByteArray());
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.quantileNanos(0.5));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherData() throws IOException {
+        byte[] data = new LatencyHistogram().toByteArray();
+        data[0] ^= 1;
+        LatencyHistogram.fromByteArray(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedData() throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        byte[] data = histogram.toByteArray();
+        LatencyHistogram.fromByteArray(Arrays.copyOf(data, data.length - 1));
+    }
+
+    private static void assertSameContents(LatencyHistogram expected, LatencyHistogram actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMinNanos(), actual.getMinNanos());
+        assertEquals(expected.getMaxNanos(), actual.getMaxNanos());
+        assertEquals(expected.getMeanNanos(), actual.getMeanNanos());
+        for (double quantile : QUANTILES) {
+            assertEquals(expected.quantileNanos(quantile), actual.quantileNanos(quantile));
+        }
+        for (long from = 0; from < 1_000_000_000_000L; from = from * 3 + 1000) {
+            assertEquals(expected.countBetween(from, from * 3 + 1000), actual.countBetween(from, from * 3 + 1000));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+public class QuestionPrefetcherTest {
+
+    /**
+     * Runs tasks only when told to, or rejects them
+     */
+    private static final class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        boolean rejecting;
+
+        @Override
+        public void execute(Runnable task) {
+            if (rejecting) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private static Question question(int index) {
+        return new Question(index, 2000, 1, 1, WeekdayEngine.SATURDAY, "January 1, 2000");
+    }
+
+    @Test
+    public void fillsUpToCapacityInOrder() {
+        ManualExecutor executor = new ManualExecutor();
+        QuestionPrefetcher prefetcher = new QuestionPrefetcher(executor, 3);
+        prefetcher.start(QuestionPrefetcherTest::question, 0, 10);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        assertEquals(0, prefetcher.poll(0).getIndex());
+        assertEquals(1, prefetcher.poll(1).getIndex());
+        executor.runAll();
+        assertEquals(2, prefetcher.poll(2).getIndex());
+        assertEquals(3, prefetcher.poll(3).getIndex());
+        assertEquals(4, prefetcher.poll(4).getIndex());
+    }
+
+    @Test
+    public void skipsQuestionsThatWereNotReadyInTime() {
+        ManualExecutor executor = new ManualExecutor();
+        QuestionPrefetcher prefetcher = new QuestionPrefetcher(executor, 4);
+        prefetcher.start(QuestionPrefetcherTest::question, 0, 10);
+        executor.runAll();
+
+        assertEquals(2, prefetcher.poll(2).getIndex());
+        assertNull(prefetcher.poll(1));
+    }
+
+    @Test
+    public void stopDiscardsQuestionsInFlight() {
+        ManualExecutor executor = new ManualExecutor();
+        QuestionPrefetcher prefetcher = new QuestionPrefetcher(executor, 2);
+        prefetcher.start(index -> {
+            prefetcher.stop();
+            return question(index);
+        }, 0, 10);
+        executor.runAll();
+
+        assertNull(prefetcher.poll(0));
+        assertNull(prefetcher.getFactory());
+    }
+
+    @Test
+    public void refillsAgainAfterTheFactoryThrew() {
+        ManualExecutor executor = new ManualExecutor();
+        QuestionPrefetcher prefetcher = new QuestionPrefetcher(executor, 2);
+        boolean[] failing = {true};
+        prefetcher.start(index -> {
+            if (failing[0]) {
+                throw new IllegalStateException("Out of dates");
+            }
+            return question(index);
+        }, 0, 10);
+        try {
+            executor.runAll();
+        } catch (IllegalStateException expected) {
+            // Thrown on the executor's thread
+        }
+
+        failing[0] = false;
+        assertNull(prefetcher.poll(0));
+        executor.runAll();
+        assertNotNull(prefetcher.poll(1));
+    }
+
+    @Test
+    public void refillsAgainAfterTheExecutorRejected() {
+        ManualExecutor executor = new ManualExecutor();
+        executor.rejecting = true;
+        QuestionPrefetcher prefetcher = new QuestionPrefetcher(executor, 2);
+        prefetcher.start(QuestionPrefetcherTest::question, 0, 10);
+        assertNull(prefetcher.poll(0));
+
+        executor.rejecting = false;
+        assertNull(prefetcher.poll(0));
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertNotNull(prefetcher.poll(1));
+    }
+}
@@ -0,0 +1,114 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class SeriesPlanTest {
+
+    private static final DateFilter WEEKENDS_IN_MARCH =
+            new DateFilter(1 << 2, null, false, true, false);
+
+    @Test
+    public void matchesSplittableRandom() {
+        for (long seed : new long[] {0, 1, -1, 0x123456789ABCDEFL, Long.MIN_VALUE}) {
+            SplittableRandom random = new SplittableRandom(seed);
+            SeriesSpec spec = new SeriesSpec(seed, 100, 1600, 2400, CalendarSystem.GREGORIAN, DateFilter.NONE);
+            SeriesPlan plan = SeriesPlan.create(spec, null, null);
+            long firstDay = CalendarSystem.GREGORIAN.firstDayOfYear(1600);
+            long dayCount = CalendarSystem.GREGORIAN.lastDayOfYear(2400) - firstDay + 1;
+            for (int k = 0; k < 100; k++) {
+                long offset = (random.nextLong() >>> 1) % dayCount;
+                assertEquals("seed " + seed + ", question " + k,
+                        EpochDay.toDate(firstDay + offset), plan.dateAt(k));
+            }
+        }
+    }
+
+    @Test
+    public void sameSpecGivesSameDates() {
+        SeriesSpec spec = new SeriesSpec(42, 50, -500, 3000, CalendarSystem.cutover(1752, 9, 14), DateFilter.NONE);
+        SeriesPlan first = SeriesPlan.create(spec, null, null);
+        SeriesPlan second = SeriesPlan.create(SeriesSpec.fromCode(spec.toCode()), null, null);
+        // Asked backwards, so no question depends on the ones before it
+        for (int k = 49; k >= 0; k--) {
+            assertEquals(first.dateAt(k), second.dateAt(k));
+        }
+    }
+
+    @Test
+    public void differentSeedsGiveDifferentDates() {
+        SeriesPlan first = SeriesPlan.create(
+                new SeriesSpec(1, 20, 1900, 2100, CalendarSystem.GREGORIAN, DateFilter.NONE), null, null);
+        SeriesPlan second = SeriesPlan.create(
+                new SeriesSpec(2, 20, 1900, 2100, CalendarSystem.GREGORIAN, DateFilter.NONE), null, null);
+        int same = 0;
+        for (int k = 0; k < 20; k++) {
+            if (first.dateAt(k) == second.dateAt(k)) {
+                same++;
+            }
+        }
+        assertTrue(same < 2);
+    }
+
+    @Test
+    public void datesStayInRange() {
+        SeriesSpec spec = new SeriesSpec(7, 1000, 1999, 2000, CalendarSystem.JULIAN, DateFilter.NONE);
+        SeriesPlan plan = SeriesPlan.create(spec, null, null);
+        for (int k = 0; k < 1000; k++) {
+            long date = plan.dateAt(k);
+            int year = EpochDay.year(date);
+            assertTrue(year == 1999 || year == 2000);
+            assertTrue(CalendarSystem.JULIAN.exists(year, EpochDay.month(date), EpochDay.day(date)));
+        }
+    }
+
+    @Test
+    public void filteredDatesMatchTheFilter() {
+        SeriesSpec spec = new SeriesSpec(3, 500, 1500, 1800, CalendarSystem.cutover(1582, 10, 15), WEEKENDS_IN_MARCH);
+        SeriesPlan plan = SeriesPlan.create(spec, null, null);
+        for (int k = 0; k < 500; k++) {
+            long date = plan.dateAt(k);
+            int year = EpochDay.year(date);
+            assertTrue(year >= 1500 && year <= 1800);
+            assertEquals(3, EpochDay.month(date));
+            assertTrue(WEEKENDS_IN_MARCH.matches(year, 3, EpochDay.day(date), spec.getCalendar()));
+        }
+    }
+
+    @Test
+    public void reusedTablesGiveSameDates() {
+        SeriesSpec spec = new SeriesSpec(99, 100, 1900, 2000, CalendarSystem.GREGORIAN, WEEKENDS_IN_MARCH);
+        YearAnchorTable table = YearAnchorTable.build(1950, 2050, CalendarSystem.GREGORIAN);
+        DateIndex index = DateIndex.build(1900, 2000, WEEKENDS_IN_MARCH, CalendarSystem.GREGORIAN);
+        SeriesPlan fresh = SeriesPlan.create(spec, null, null);
+        SeriesPlan reused = SeriesPlan.create(spec, table, index);
+
+        assertTrue(reused.getAnchorTable().covers(1900) && reused.getAnchorTable().covers(2000));
+        for (int k = 0; k < 100; k++) {
+            assertEquals(fresh.dateAt(k), reused.dateAt(k));
+        }
+    }
+
+    @Test
+    public void tableForAnotherCalendarIsNotReused() {
+        SeriesSpec spec = new SeriesSpec(5, 10, 1700, 1800, CalendarSystem.JULIAN, DateFilter.NONE);
+        YearAnchorTable gregorian = YearAnchorTable.build(1700, 1800, CalendarSystem.GREGORIAN);
+        SeriesPlan plan = SeriesPlan.create(spec, gregorian, null);
+
+        assertNotEquals(gregorian, plan.getAnchorTable());
+        assertSame(CalendarSystem.JULIAN, plan.getAnchorTable().getCalendar());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsFilterNothingMatches() {
+        // No leap year from 1901 to 1903
+        DateFilter leapYears = new DateFilter(DateFilter.ALL_MONTHS, null, true, false, false);
+        SeriesPlan.create(new SeriesSpec(1, 10, 1901, 1903, CalendarSystem.GREGORIAN, leapYears), null, null);
+    }
+}
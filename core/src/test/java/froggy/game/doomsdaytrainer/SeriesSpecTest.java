@@ -0,0 +1,157 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SeriesSpecTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private static SeriesSpec[] specs() {
+        int[] manyCenturies = new int[SeriesSpec.MAX_CENTURIES];
+        for (int i = 0; i < manyCenturies.length; i++) {
+            manyCenturies[i] = i * 1000 - 9_999;
+        }
+        return new SeriesSpec[] {
+                new SeriesSpec(0, 1, 2000, 2000, CalendarSystem.GREGORIAN, DateFilter.NONE),
+                new SeriesSpec(-1, SeriesSpec.MAX_COUNT, SeriesSpec.MIN_YEAR, SeriesSpec.MAX_YEAR,
+                        CalendarSystem.JULIAN, DateFilter.NONE),
+                new SeriesSpec(Long.MIN_VALUE, 20, -44, 1600, CalendarSystem.cutover(1582, 10, 15),
+                        new DateFilter(1 << 1, new int[] {-1, 15}, true, false, false)),
+                new SeriesSpec(Long.MAX_VALUE, 50, 1700, 1800, CalendarSystem.cutover(1752, 9, 14),
+                        new DateFilter(DateFilter.ALL_MONTHS, null, false, true, true)),
+                new SeriesSpec(0x0123456789ABCDEFL, 10, SeriesSpec.MIN_YEAR, SeriesSpec.MAX_YEAR,
+                        CalendarSystem.cutover(1918, 2, 14), new DateFilter(0, manyCenturies, false, false, false)),
+        };
+    }
+
+    @Test
+    public void codesRoundTrip() {
+        for (SeriesSpec spec : specs()) {
+            assertEquals(spec, SeriesSpec.fromCode(spec.toCode()));
+        }
+    }
+
+    @Test
+    public void recordsRoundTrip() {
+        byte[] buffer = new byte[SeriesSpec.MAX_ENCODED_SIZE + 3];
+        for (SeriesSpec spec : specs()) {
+            int length = spec.encode(buffer, 3);
+            assertTrue(length <= SeriesSpec.MAX_ENCODED_SIZE);
+            assertEquals(spec, SeriesSpec.decode(buffer, 3, length));
+        }
+    }
+
+    @Test
+    public void codesAreGroupedInFours() {
+        String code = specs()[2].toCode();
+        String[] groups = code.split("-");
+        for (int i = 0; i < groups.length; i++) {
+            assertTrue(groups[i].length() == 4 || i == groups.length - 1 && groups[i].length() <= 4);
+            for (char c : groups[i].toCharArray()) {
+                assertTrue(ALPHABET.indexOf(c) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void readsCodesAsTheyMightBeTyped() {
+        SeriesSpec spec = specs()[3];
+        String code = spec.toCode();
+        String typed = " " + code.replace("-", "").toLowerCase().replace('0', 'o').replace('1', 'l') + "\n";
+        assertEquals(spec, SeriesSpec.fromCode(typed));
+        assertEquals(spec, SeriesSpec.fromCode(code.replace('1', 'I').replace("-", " - ")));
+    }
+
+    @Test
+    public void rejectsEverySingleMistypedDigit() {
+        for (SeriesSpec spec : specs()) {
+            char[] code = spec.toCode().toCharArray();
+            for (int i = 0; i < code.length; i++) {
+                char original = code[i];
+                if (original == '-') {
+                    continue;
+                }
+                for (int digit = 0; digit < ALPHABET.length(); digit++) {
+                    code[i] = ALPHABET.charAt(digit);
+                    if (code[i] != original) {
+                        assertNull(new String(code), SeriesSpec.fromCode(new String(code)));
+                    }
+                }
+                code[i] = original;
+            }
+        }
+    }
+
+    @Test
+    public void rejectsSwappedDigits() {
+        String code = specs()[2].toCode().replace("-", "");
+        for (int i = 0; i + 1 < code.length(); i++) {
+            if (code.charAt(i) != code.charAt(i + 1)) {
+                String swapped = code.substring(0, i) + code.charAt(i + 1) + code.charAt(i) + code.substring(i + 2);
+                assertNull(swapped, SeriesSpec.fromCode(swapped));
+            }
+        }
+    }
+
+    @Test
+    public void rejectsMalformedCodes() {
+        String code = specs()[2].toCode();
+        assertNull(SeriesSpec.fromCode(""));
+        assertNull(SeriesSpec.fromCode("----"));
+        assertNull(SeriesSpec.fromCode(code.substring(0, code.length() - 1)));
+        assertNull(SeriesSpec.fromCode(code.substring(0, 8)));
+        assertNull(SeriesSpec.fromCode(code + "0000"));
+        assertNull(SeriesSpec.fromCode(code.replace('-', 'U')));
+        assertNull(SeriesSpec.fromCode(code + "!"));
+    }
+
+    @Test
+    public void rejectsMalformedRecords() {
+        byte[] buffer = new byte[SeriesSpec.MAX_ENCODED_SIZE + 1];
+        int length = specs()[2].encode(buffer, 0);
+        for (int truncated = 0; truncated < length; truncated++) {
+            assertNull(SeriesSpec.decode(buffer, 0, truncated));
+        }
+        assertNull(SeriesSpec.decode(buffer, 0, length + 1));
+
+        byte[] otherVersion = Arrays.copyOf(buffer, length);
+        otherVersion[0]++;
+        assertNull(SeriesSpec.decode(otherVersion, 0, length));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptySeries() {
+        new SeriesSpec(1, 0, 2000, 2000, CalendarSystem.GREGORIAN, DateFilter.NONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyQuestions() {
+        new SeriesSpec(1, SeriesSpec.MAX_COUNT + 1, 2000, 2000, CalendarSystem.GREGORIAN, DateFilter.NONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBackwardsRange() {
+        new SeriesSpec(1, 10, 2001, 2000, CalendarSystem.GREGORIAN, DateFilter.NONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsYearsOutOfRange() {
+        new SeriesSpec(1, 10, SeriesSpec.MIN_YEAR - 1, 2000, CalendarSystem.GREGORIAN, DateFilter.NONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyCenturies() {
+        int[] centuries = new int[SeriesSpec.MAX_CENTURIES + 1];
+        for (int i = 0; i < centuries.length; i++) {
+            centuries[i] = i;
+        }
+        new SeriesSpec(1, 10, 0, 9999, CalendarSystem.GREGORIAN,
+                new DateFilter(0, centuries, false, false, false));
+    }
+}
@@ -0,0 +1,121 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the core part of answering a question allocates nothing once warmed up: checking
+ * the answer and handing it to the recorder, draining it, and formatting the next date into the
+ * reused buffer. The Android side of a tap (DayButtonController, SessionScheduler and posting the
+ * drain to the background handler) isn't covered; it needs a device or Robolectric to measure.
+ *
+ * The JIT compiler can allocate a few bytes on the measured thread now and then, e.g. when it
+ * swaps in compiled code, so the answers are measured in rounds and one round must allocate
+ * nothing. An allocation on the tap path shows up in every round.
+ */
+public class TapPathAllocationTest {
+
+    private static final int WARM_UP_ANSWERS = 20_000;
+    private static final int ROUND_ANSWERS = 4_000;
+    private static final int MAX_ROUNDS = 10; // with the warm-up, fewer answers than a series can have
+
+    private final ThinkTimeRecorder recorder = new ThinkTimeRecorder(128);
+    private final YearAnchorTable anchorTable = YearAnchorTable.build(1900, 2099);
+    private final DateFormatter formatter = DateFormatter.compile("MMMM d, yyyy", Locale.US);
+    private final StringBuilder dateText = new StringBuilder(32);
+    private final ThinkTimeRecorder.Sink sink = (questionIndex, thinkNanos, date, guessedDay, actualDay,
+                                                 sessionId, timestampMillis) -> { };
+    private final TestClock clock = new TestClock();
+    private QuizSession session;
+    private com.sun.management.ThreadMXBean threads;
+
+    @Before
+    public void setUp() {
+        session = new QuizSession(clock, recorder, new DateSampler(new Random(1), 1900, 2099), anchorTable);
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void freePracticeAnswersAllocateNothing() {
+        session.nextQuestion();
+        answerFreePractice(WARM_UP_ANSWERS);
+
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MAX_ROUNDS && allocated > 0; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            answerFreePractice(ROUND_ANSWERS);
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        assertEquals("Bytes allocated by " + ROUND_ANSWERS + " answers", 0, allocated);
+    }
+
+    @Test
+    public void seriesAnswersAllocateNothing() {
+        SeriesSpec spec = new SeriesSpec(42, SeriesSpec.MAX_COUNT, 1900, 2099, CalendarSystem.GREGORIAN,
+                DateFilter.NONE);
+        session.startSeries(SeriesPlan.create(spec, anchorTable, null));
+        session.nextQuestion();
+        answerSeries(WARM_UP_ANSWERS);
+
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MAX_ROUNDS && allocated > 0; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            answerSeries(ROUND_ANSWERS);
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        assertEquals("Bytes allocated by " + ROUND_ANSWERS + " answers", 0, allocated);
+    }
+
+    private void answerFreePractice(int answers) {
+        for (int i = 0; i < answers; i++) {
+            clock.advance();
+            session.answer(WeekdayEngine.SUNDAY + i % 7, clock.elapsedNanos() - 1_000_000);
+            recorder.drain(sink);
+            session.nextQuestion();
+            dateText.setLength(0);
+            formatter.format(session.getYear(), session.getMonth(), session.getDay(), dateText);
+        }
+    }
+
+    private void answerSeries(int answers) {
+        for (int i = 0; i < answers; i++) {
+            clock.advance();
+            session.answer(WeekdayEngine.SUNDAY + i % 7);
+            recorder.drain(sink);
+            session.nextQuestion();
+            session.continueSeries();
+            dateText.setLength(0);
+            formatter.format(session.getYear(), session.getMonth(), session.getDay(), dateText);
+        }
+    }
+
+    private static final class TestClock implements QuizSession.Clock {
+        private long nanos = 1_000_000_000L;
+
+        void advance() {
+            nanos += 3_000_000_000L;
+        }
+
+        @Override
+        public long elapsedNanos() {
+            return nanos;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return nanos / 1_000_000;
+        }
+    }
+}
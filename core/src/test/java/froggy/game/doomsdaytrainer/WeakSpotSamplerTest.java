@@ -0,0 +1,92 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WeakSpotSamplerTest {
+
+    private static final int DRAWS = 20_000;
+
+    private static double monthShare(WeakSpotSampler sampler, int month) {
+        int count = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            if (EpochDay.month(sampler.nextDate()) == month) {
+                count++;
+            }
+        }
+        return (double) count / DRAWS;
+    }
+
+    @Test
+    public void drawsExistingDatesInTheRange() {
+        CalendarSystem[] calendars = {
+                CalendarSystem.GREGORIAN, CalendarSystem.JULIAN, CalendarSystem.cutover(1582, 10, 15)
+        };
+        for (CalendarSystem calendar : calendars) {
+            WeakSpotSampler sampler = new WeakSpotSampler(new Random(1), 1550, 1650, calendar);
+            for (int i = 0; i < DRAWS; i++) {
+                long date = sampler.nextDate();
+                int year = EpochDay.year(date);
+                assertTrue(year >= 1550 && year <= 1650);
+                assertTrue(calendar.exists(year, EpochDay.month(date), EpochDay.day(date)));
+            }
+        }
+    }
+
+    @Test
+    public void asksMoreAboutWrongAnswersUntilTheyAreRight() {
+        WeakSpotSampler sampler = new WeakSpotSampler(new Random(2), 2000, 2099);
+        assertEquals(1 / 12.0, monthShare(sampler, 3), 0.03);
+
+        for (int i = 0; i < 10; i++) {
+            sampler.recordAnswer(2042, 3, false);
+        }
+        assertTrue(monthShare(sampler, 3) > 0.4);
+
+        for (int i = 0; i < 30; i++) {
+            sampler.recordAnswer(2042, 3, true);
+        }
+        assertEquals(1 / 12.0, monthShare(sampler, 3), 0.03);
+    }
+
+    @Test
+    public void leavesOutCategoriesWithoutYearsInTheRange() {
+        // No leap years and no other century: only the plain months of the 1900s. Drawing from
+        // an empty category would have no years to draw from.
+        WeakSpotSampler sampler = new WeakSpotSampler(new Random(3), 1901, 1903);
+        for (int i = 0; i < 30; i++) {
+            sampler.recordAnswer(2004, 1, false);
+        }
+        for (int i = 0; i < DRAWS; i++) {
+            long date = sampler.nextDate();
+            assertTrue(EpochDay.year(date) >= 1901 && EpochDay.year(date) <= 1903);
+        }
+    }
+
+    @Test
+    public void drawsLeapEdgeDatesInLeapYears() {
+        // Wrong answers about January of a leap year raise its edge category
+        WeakSpotSampler sampler = new WeakSpotSampler(new Random(4), 1800, 2100, CalendarSystem.JULIAN);
+        for (int i = 0; i < 10; i++) {
+            sampler.recordAnswer(1900, 1, false);
+        }
+        int leapDays = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            long date = sampler.nextDate();
+            if (EpochDay.month(date) == 2 && EpochDay.day(date) == 29) {
+                assertTrue(CalendarSystem.JULIAN.isLeapYear(EpochDay.year(date)));
+                leapDays++;
+            }
+        }
+        assertTrue(leapDays > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyRange() {
+        new WeakSpotSampler(new Random(), 2000, 1999);
+    }
+}
@@ -0,0 +1,63 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class WeakSpotStatsTest {
+
+    @Test
+    public void countsEachAnswerInOneCategoryOfEachKind() {
+        WeakSpotStats stats = new WeakSpotStats();
+        stats.record(2024, 2, CalendarSystem.GREGORIAN, WeekdayEngine.MONDAY, WeekdayEngine.THURSDAY, 3_000);
+
+        assertEquals(1, stats.getTotalAttempts());
+        assertEquals(1, stats.getErrors(WeakSpotStats.monthCategory(2)));
+        assertEquals(1, stats.getAttempts(WeakSpotStats.centuryCategory(2024)));
+        assertEquals(1, stats.getAttempts(WeakSpotStats.cycleCategory(2024)));
+        assertEquals(1, stats.getAttempts(WeakSpotStats.LEAP_JAN_FEB_CATEGORY));
+        assertEquals(1, stats.getConfusion(WeekdayEngine.THURSDAY, WeekdayEngine.MONDAY));
+        assertEquals(3_000, stats.getMeanThinkNanos(WeakSpotStats.monthCategory(2)));
+    }
+
+    @Test
+    public void leapCategoryFollowsTheCalendar() {
+        WeakSpotStats gregorian = new WeakSpotStats();
+        WeakSpotStats julian = new WeakSpotStats();
+        for (int year : new int[] {1700, 1800, 1900}) {
+            gregorian.record(year, 1, CalendarSystem.GREGORIAN, WeekdayEngine.MONDAY, WeekdayEngine.MONDAY, 1);
+            julian.record(year, 1, CalendarSystem.JULIAN, WeekdayEngine.MONDAY, WeekdayEngine.MONDAY, 1);
+        }
+
+        assertEquals(0, gregorian.getAttempts(WeakSpotStats.LEAP_JAN_FEB_CATEGORY));
+        assertEquals(3, julian.getAttempts(WeakSpotStats.LEAP_JAN_FEB_CATEGORY));
+    }
+
+    @Test
+    public void leapCategoryFollowsTheCutover() {
+        // Britain switched in 1752, so 1700 was still a Julian leap year there
+        CalendarSystem british = CalendarSystem.cutover(1752, 9, 14);
+        WeakSpotStats stats = new WeakSpotStats();
+        stats.record(1700, 2, british, WeekdayEngine.MONDAY, WeekdayEngine.MONDAY, 1);
+        stats.record(1800, 2, british, WeekdayEngine.MONDAY, WeekdayEngine.MONDAY, 1);
+
+        assertEquals(1, stats.getAttempts(WeakSpotStats.LEAP_JAN_FEB_CATEGORY));
+    }
+
+    @Test
+    public void survivesSerialization() throws IOException {
+        WeakSpotStats stats = new WeakSpotStats();
+        stats.record(1999, 12, CalendarSystem.GREGORIAN, WeekdayEngine.FRIDAY, WeekdayEngine.FRIDAY, 5);
+        stats.record(2000, 1, CalendarSystem.GREGORIAN, WeekdayEngine.FRIDAY, WeekdayEngine.SATURDAY, 7);
+
+        WeakSpotStats copy = WeakSpotStats.fromByteArray(stats.toByteArray());
+        assertEquals(2, copy.getTotalAttempts());
+        for (int category = 0; category < WeakSpotStats.CATEGORY_COUNT; category++) {
+            assertEquals(stats.getAttempts(category), copy.getAttempts(category));
+            assertEquals(stats.getErrors(category), copy.getErrors(category));
+        }
+        assertEquals(1, copy.getConfusion(WeekdayEngine.SATURDAY, WeekdayEngine.FRIDAY));
+    }
+}
@@ -0,0 +1,85 @@
+package froggy.game.doomsdaytrainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class YearAnchorTableTest {
+
+    private static final CalendarSystem[] CALENDARS = {
+            CalendarSystem.GREGORIAN, CalendarSystem.JULIAN, CalendarSystem.cutover(1582, 10, 15),
+            CalendarSystem.cutover(1700, 3, 1)
+    };
+
+    private static void assertMatchesCalendar(YearAnchorTable table, int startYear, int endYear) {
+        CalendarSystem calendar = table.getCalendar();
+        assertEquals(startYear, table.getStartYear());
+        assertEquals(endYear, table.getEndYear());
+        for (int year = startYear; year <= endYear; year++) {
+            String where = calendar + " " + year;
+            assertTrue(where, table.covers(year));
+            assertEquals(where, calendar.doomsday(year), table.doomsday(year));
+            assertEquals(where, calendar.isLeapYear(year), table.isLeapYear(year));
+            for (int month = 1; month <= 12; month++) {
+                for (int day = 1; day <= calendar.daysInMonth(year, month); day++) {
+                    if (calendar.exists(year, month, day)) {
+                        assertEquals(where, calendar.dayOfWeek(year, month, day), table.dayOfWeek(year, month, day));
+                    }
+                }
+            }
+        }
+        assertFalse(table.covers(startYear - 1));
+        assertFalse(table.covers(endYear + 1));
+    }
+
+    @Test
+    public void matchesTheCalendar() {
+        for (CalendarSystem calendar : CALENDARS) {
+            assertMatchesCalendar(YearAnchorTable.build(1201, 2400, calendar), 1201, 2400);
+            assertMatchesCalendar(YearAnchorTable.build(-401, 400, calendar), -401, 400);
+        }
+    }
+
+    @Test
+    public void rebuildsOnlyTheNewYearsIntoTheSameAnswers() {
+        // Growing, shrinking and moving the range, from odd and even years
+        int[][] ranges = {{1500, 1800}, {1499, 1801}, {1550, 1600}, {1601, 1999}, {1300, 1400}, {1399, 1700}};
+        for (CalendarSystem calendar : CALENDARS) {
+            YearAnchorTable table = YearAnchorTable.build(1581, 1750, calendar);
+            for (int[] range : ranges) {
+                table = table.withRange(range[0], range[1]);
+                assertSame(calendar, table.getCalendar());
+                assertMatchesCalendar(table, range[0], range[1]);
+            }
+        }
+    }
+
+    @Test
+    public void keepsTheTableForTheSameRange() {
+        YearAnchorTable table = YearAnchorTable.build(1900, 2099);
+        assertSame(table, table.withRange(1900, 2099));
+    }
+
+    @Test
+    public void answersYearsOutsideTheTable() {
+        for (CalendarSystem calendar : CALENDARS) {
+            YearAnchorTable table = YearAnchorTable.build(2000, 2001, calendar);
+            assertEquals(calendar.doomsday(1582), table.doomsday(1582));
+            assertEquals(calendar.isLeapYear(1700), table.isLeapYear(1700));
+            assertEquals(calendar.dayOfWeek(1066, 10, 14), table.dayOfWeek(1066, 10, 14));
+        }
+    }
+
+    @Test
+    public void takesHalfAByteAYear() {
+        assertEquals(16 + 104, YearAnchorTable.build(1900, 2099).footprintBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyRange() {
+        YearAnchorTable.build(2000, 1999);
+    }
+}
@@ -0,0 +1,336 @@
+package froggy.game.doomsdaytrainer.tools;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import froggy.game.doomsdaytrainer.CalendarSystem;
+import froggy.game.doomsdaytrainer.DateFilter;
+import froggy.game.doomsdaytrainer.DateSampler;
+import froggy.game.doomsdaytrainer.EpochDay;
+import froggy.game.doomsdaytrainer.LatencyHistogram;
+import froggy.game.doomsdaytrainer.QuestionStrategy;
+import froggy.game.doomsdaytrainer.QuizSession;
+import froggy.game.doomsdaytrainer.SeriesCheckpoint;
+import froggy.game.doomsdaytrainer.SeriesPlan;
+import froggy.game.doomsdaytrainer.SeriesSpec;
+import froggy.game.doomsdaytrainer.ThinkTimeRecorder;
+import froggy.game.doomsdaytrainer.WeakSpotSampler;
+import froggy.game.doomsdaytrainer.WeakSpotStats;
+import froggy.game.doomsdaytrainer.YearAnchorTable;
+
+/**
+ * Runs synthetic quiz sessions through {@link QuizSession} on a virtual clock, as fast as the
+ * CPU allows. Each session is a little free practice followed by a series, with pauses, feedback
+ * delays and simulated process deaths (the series is saved to a checkpoint, encoded, decoded and
+ * restored into a fresh session) thrown in at random.
+ *
+ * After every series the answers drained from the recorder are checked against the session: the
+ * series time must equal the sum of the think times, and the counts must agree. Any mismatch is
+ * reported and makes the exit status non-zero, as does a series question that isn't the one its
+ * seed determines (e.g. a different question after a restore).
+ *
+ * Usage: QuizSimulator [--sessions N] [--threads N] [--questions N] [--practice N]
+ * [--strategy uniform|weak_spots] [--accuracy P] [--leap-penalty P] [--start-year Y]
+ * [--end-year Y] [--seed S]
+ */
+public final class QuizSimulator {
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    private static final long FEEDBACK_MILLIS = 1500;
+    private static final double PAUSE_CHANCE = 0.01;
+    private static final double RESTART_CHANCE = 0.005;
+
+    private long sessions = 1_000_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int questions = 10;
+    private int practice = 2;
+    private String strategy = "uniform";
+    private double accuracy = 0.85;
+    private double leapPenalty = 0.3;
+    private int startYear = 1900;
+    private int endYear = 2099;
+    private long seed = 42;
+
+    public static void main(String[] args) throws Exception {
+        QuizSimulator simulator = new QuizSimulator();
+        try {
+            simulator.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        System.exit(simulator.run() ? 0 : 1);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--sessions": sessions = Long.parseLong(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--questions": questions = Integer.parseInt(value); break;
+                case "--practice": practice = Integer.parseInt(value); break;
+                case "--strategy": strategy = value; break;
+                case "--accuracy": accuracy = Double.parseDouble(value); break;
+                case "--leap-penalty": leapPenalty = Double.parseDouble(value); break;
+                case "--start-year": startYear = Integer.parseInt(value); break;
+                case "--end-year": endYear = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if (sessions < 1 || threads < 1 || questions < 1 || questions > SeriesSpec.MAX_COUNT || practice < 0 || endYear < startYear) {
+            throw new IllegalArgumentException("Invalid options");
+        }
+        if (!strategy.equals("uniform") && !strategy.equals("weak_spots")) {
+            throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+    }
+
+    /**
+     * Run the sessions and print a report
+     *
+     * @return true if every check passed
+     */
+    private boolean run() throws InterruptedException, ExecutionException, IOException {
+        YearAnchorTable anchorTable = YearAnchorTable.build(startYear, endYear);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long share = sessions / threads + (i < sessions % threads ? 1 : 0);
+            workers.add(new Worker(share, anchorTable, seeds.split()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Worker worker : workers) {
+            futures.add(executor.submit(worker::run));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long wallNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        // Merge the per-thread results, passing the statistics through their file formats
+        LatencyHistogram thinkTimes = new LatencyHistogram();
+        WeakSpotStats stats = new WeakSpotStats();
+        long answers = 0;
+        long restarts = 0;
+        long failures = 0;
+        String firstFailure = null;
+        for (Worker worker : workers) {
+            thinkTimes.add(LatencyHistogram.fromByteArray(worker.thinkTimes.toByteArray()));
+            stats.add(WeakSpotStats.fromByteArray(worker.stats.toByteArray()));
+            answers += worker.answers;
+            restarts += worker.restarts;
+            failures += worker.failures;
+            if (firstFailure == null) {
+                firstFailure = worker.firstFailure;
+            }
+        }
+        if (stats.getTotalAttempts() != answers) {
+            failures++;
+            firstFailure = "Statistics counted " + stats.getTotalAttempts() + " of " + answers + " answers";
+        }
+
+        double seconds = wallNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%d sessions (%d answers, %d restarts) on %d threads in %.2f s%n",
+                sessions, answers, restarts, threads, seconds);
+        System.out.printf(Locale.ROOT, "%.0f sessions/s, %.0f answers/s%n", sessions / seconds, answers / seconds);
+        long errors = 0;
+        for (int month = 1; month <= 12; month++) {
+            errors += stats.getErrors(WeakSpotStats.monthCategory(month));
+        }
+        System.out.printf(Locale.ROOT, "Strategy %s: accuracy %.3f, leap Jan/Feb share %.3f, error rate %.3f%n",
+                strategy, 1 - (double) errors / answers,
+                (double) stats.getAttempts(WeakSpotStats.LEAP_JAN_FEB_CATEGORY) / answers,
+                stats.getErrorRate(WeakSpotStats.LEAP_JAN_FEB_CATEGORY));
+        System.out.printf(Locale.ROOT, "Think time: median %d ms, p99 %d ms%n",
+                thinkTimes.quantileNanos(0.5) / NANOS_PER_MILLI, thinkTimes.quantileNanos(0.99) / NANOS_PER_MILLI);
+        if (failures > 0) {
+            System.out.println(failures + " check(s) failed, first: " + firstFailure);
+            return false;
+        }
+        System.out.println("All checks passed");
+        return true;
+    }
+
+    /**
+     * Runs its share of the sessions on one thread, with its own clock, recorder and statistics
+     */
+    private final class Worker implements ThinkTimeRecorder.Sink {
+        private final long sessionCount;
+        private final YearAnchorTable anchorTable;
+        private final SimulatedAnswerer answerer;
+        private final VirtualClock clock = new VirtualClock(1_700_000_000_000L);
+        private final ThinkTimeRecorder recorder = new ThinkTimeRecorder(questions + practice);
+        private final QuestionStrategy questionStrategy;
+        private final byte[] checkpointBuffer = new byte[SeriesCheckpoint.MAX_ENCODED_SIZE];
+        private final SplittableRandom seriesSeeds;
+        private QuizSession session;
+        private SeriesPlan plan;
+
+        final LatencyHistogram thinkTimes = new LatencyHistogram();
+        final WeakSpotStats stats = new WeakSpotStats();
+        long answers;
+        long restarts;
+        long failures;
+        String firstFailure;
+
+        // The drained answers of the current series
+        private int seriesAnswers;
+        private int seriesCorrect;
+        private long seriesThinkNanos;
+
+        Worker(long sessionCount, YearAnchorTable anchorTable, SplittableRandom random) {
+            this.sessionCount = sessionCount;
+            this.anchorTable = anchorTable;
+            this.answerer = new SimulatedAnswerer(random.split(), accuracy, leapPenalty, 2000, 6000);
+            this.seriesSeeds = random.split();
+            Random strategyRandom = new Random(random.nextLong());
+            this.questionStrategy = strategy.equals("weak_spots")
+                    ? new WeakSpotSampler(strategyRandom, startYear, endYear)
+                    : new DateSampler(strategyRandom, startYear, endYear);
+            this.session = new QuizSession(clock, recorder, questionStrategy, anchorTable);
+        }
+
+        void run() {
+            for (long i = 0; i < sessionCount; i++) {
+                runPractice();
+                runSeries();
+            }
+        }
+
+        private void runPractice() {
+            for (int i = 0; i < practice; i++) {
+                session.nextQuestion();
+                think();
+                session.answer(guess());
+                clock.advanceMillis(FEEDBACK_MILLIS);
+            }
+            recorder.drain(this);
+        }
+
+        private void runSeries() {
+            seriesAnswers = 0;
+            seriesCorrect = 0;
+            seriesThinkNanos = 0;
+            SeriesSpec spec = new SeriesSpec(seriesSeeds.nextLong(), questions, startYear, endYear,
+                    CalendarSystem.GREGORIAN, DateFilter.NONE);
+            plan = SeriesPlan.create(spec, anchorTable, null);
+            session.startSeries(plan);
+            while (!session.isSeriesComplete()) {
+                session.nextQuestion();
+                think();
+                session.answer(guess());
+                clock.advanceMillis(FEEDBACK_MILLIS);
+                if (answerer.chance(RESTART_CHANCE)) {
+                    restart();
+                }
+                session.continueSeries();
+            }
+            SeriesCheckpoint result = session.finishSeries();
+            recorder.drain(this);
+
+            if (recorder.getDroppedCount() != 0) {
+                fail("Recorder dropped " + recorder.getDroppedCount() + " answers");
+            } else if (seriesAnswers != result.getSeriesCount()) {
+                fail("Drained " + seriesAnswers + " answers for a series of " + result.getSeriesCount());
+            } else if (seriesCorrect != result.getCorrectCount()) {
+                fail("Session counted " + result.getCorrectCount() + " right answers, recorder " + seriesCorrect);
+            } else if (result.getElapsedTimeMillis() * NANOS_PER_MILLI != seriesThinkNanos) {
+                fail("Series took " + result.getElapsedTimeMillis() + " ms, think times add up to "
+                        + seriesThinkNanos / NANOS_PER_MILLI + " ms");
+            }
+        }
+
+        /**
+         * Let the think time pass, sometimes with the app going to the background halfway
+         */
+        private void think() {
+            long millis = answerer.thinkMillis();
+            if (answerer.chance(PAUSE_CHANCE)) {
+                long before = millis / 2;
+                clock.advanceMillis(before);
+                session.pause();
+                clock.advanceMillis(60_000);
+                session.resume();
+                millis -= before;
+            }
+            clock.advanceMillis(millis);
+        }
+
+        private int guess() {
+            int year = session.getYear();
+            int month = session.getMonth();
+            return answerer.answer(year, month, anchorTable.dayOfWeek(year, month, session.getDay()));
+        }
+
+        /**
+         * Save the series as the app does on every answer, then carry on in a new session from the
+         * decoded checkpoint, as after the process was killed
+         */
+        private void restart() {
+            SeriesCheckpoint checkpoint = session.checkpoint();
+            int length = SeriesCheckpoint.encode(checkpointBuffer, checkpoint.getSeriesCount(),
+                    checkpoint.getCurrentIndex(), checkpoint.getCorrectCount(),
+                    checkpoint.getElapsedTimeMillis(), checkpoint.isTimerRunning(), checkpoint.getSpec());
+            SeriesCheckpoint decoded = SeriesCheckpoint.decode(checkpointBuffer, length);
+            if (decoded == null || decoded.getCurrentIndex() != session.getSeriesIndex()
+                    || decoded.getCorrectCount() != session.getCorrectCount()
+                    || decoded.getElapsedTimeMillis() != session.getElapsedMillis()
+                    || !plan.getSpec().equals(decoded.getSpec())) {
+                fail("Checkpoint did not survive encoding");
+                return;
+            }
+            restarts++;
+            // A fresh plan from the decoded spec, as the app makes after process death
+            plan = SeriesPlan.create(decoded.getSpec(), anchorTable, null);
+            session = new QuizSession(clock, recorder, questionStrategy, anchorTable);
+            session.restoreSeries(decoded, plan);
+        }
+
+        @Override
+        public void accept(int questionIndex, long thinkNanos, long date, int guessedDay, int actualDay,
+                           long sessionId, long timestampMillis) {
+            answers++;
+            thinkTimes.record(thinkNanos);
+            stats.record(EpochDay.year(date), EpochDay.month(date), anchorTable.getCalendar(), guessedDay,
+                    actualDay, thinkNanos);
+            if (questionIndex < 0) {
+                return; // Free practice
+            }
+            if (questionIndex != seriesAnswers) {
+                fail("Answer for question " + questionIndex + " arrived as number " + seriesAnswers);
+            }
+            if (date != plan.dateAt(questionIndex)) {
+                fail("Question " + questionIndex + " of " + plan.getSpec() + " is not the seeded date");
+            }
+            seriesAnswers++;
+            if (guessedDay == actualDay) {
+                seriesCorrect++;
+            }
+            seriesThinkNanos += thinkNanos;
+        }
+
+        private void fail(String message) {
+            if (failures++ == 0) {
+                firstFailure = message;
+            }
+        }
+    }
+}
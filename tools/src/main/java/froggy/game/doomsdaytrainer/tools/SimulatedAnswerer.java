@@ -0,0 +1,68 @@
+package froggy.game.doomsdaytrainer.tools;
+
+import java.util.SplittableRandom;
+
+import froggy.game.doomsdaytrainer.WeekdayEngine;
+
+/**
+ * A synthetic user: answers correctly with a fixed probability, except for January and February
+ * of leap years, where it forgets the leap day more often. Think times are whole milliseconds so
+ * the session's timers can be checked exactly.
+ */
+final class SimulatedAnswerer {
+
+    private final SplittableRandom random;
+    private final double accuracy;
+    private final double leapAccuracy;
+    private final long minThinkMillis;
+    private final double meanExtraMillis;
+
+    /**
+     * @param random The source of randomness
+     * @param accuracy The chance of a right answer
+     * @param leapPenalty How much less likely a right answer is in January and February of leap years
+     * @param minThinkMillis The fastest possible answer
+     * @param meanThinkMillis The average think time; the time above the minimum is exponential
+     */
+    SimulatedAnswerer(SplittableRandom random, double accuracy, double leapPenalty,
+                      long minThinkMillis, long meanThinkMillis) {
+        this.random = random;
+        this.accuracy = accuracy;
+        this.leapAccuracy = Math.max(0, accuracy - leapPenalty);
+        this.minThinkMillis = minThinkMillis;
+        this.meanExtraMillis = Math.max(0, meanThinkMillis - minThinkMillis);
+    }
+
+    /**
+     * @return How long to think about the next question, in milliseconds
+     */
+    long thinkMillis() {
+        return minThinkMillis + (long) (-Math.log(1 - random.nextDouble()) * meanExtraMillis);
+    }
+
+    /**
+     * Answer a question
+     *
+     * @param year The question's year
+     * @param month The question's month, 1-12
+     * @param actualDay The right answer, as a WeekdayEngine constant
+     * @return The answer given, as a WeekdayEngine constant
+     */
+    int answer(int year, int month, int actualDay) {
+        double chance = month <= 2 && WeekdayEngine.isLeapYear(year) ? leapAccuracy : accuracy;
+        if (random.nextDouble() < chance) {
+            return actualDay;
+        }
+        // Any of the six wrong days
+        int wrong = WeekdayEngine.SUNDAY + random.nextInt(6);
+        return wrong >= actualDay ? wrong + 1 : wrong;
+    }
+
+    /**
+     * @param chance A probability
+     * @return true with that probability
+     */
+    boolean chance(double chance) {
+        return random.nextDouble() < chance;
+    }
+}
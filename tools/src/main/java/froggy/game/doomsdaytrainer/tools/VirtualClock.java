@@ -0,0 +1,41 @@
+package froggy.game.doomsdaytrainer.tools;
+
+import froggy.game.doomsdaytrainer.QuizSession;
+
+/**
+ * A clock that only moves when told to, so simulated sessions take no real time and their
+ * timings are exact.
+ */
+final class VirtualClock implements QuizSession.Clock {
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private final long startMillis;
+    private long nanos;
+
+    /**
+     * @param startMillis The wall clock time at which the clock starts
+     */
+    VirtualClock(long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Let time pass
+     *
+     * @param millis The time to add
+     */
+    void advanceMillis(long millis) {
+        nanos += millis * NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long elapsedNanos() {
+        return nanos;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return startMillis + nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,241 @@
+package froggy.game.doomsdaytrainer.tools;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import froggy.game.doomsdaytrainer.EpochDay;
+import froggy.game.doomsdaytrainer.WeekdayEngine;
+import froggy.game.doomsdaytrainer.YearAnchorTable;
+
+/**
+ * Checks the app's date logic ({@link WeekdayEngine}, {@link YearAnchorTable} and {@link EpochDay})
+ * against {@code java.time} for every day of a proleptic Gregorian year range, split into chunks
+ * across a ForkJoinPool.
+ *
+ * For each year java.time supplies the leap status, the month lengths and the epoch day and weekday
+ * of 1 January; the days in between follow by counting, and the count is checked against the next
+ * 1 January. Every day's weekday, epoch day and epoch day round trip is compared, as is every
+ * year's doomsday. The first mismatch of each chunk is printed and makes the exit status non-zero.
+ *
+ * Usage: WeekdayVerifier [--from Y] [--to Y] [--chunk YEARS] [--threads N]
+ */
+public final class WeekdayVerifier {
+
+    private int fromYear = -1_000_000;
+    private int toYear = 1_000_000;
+    private int chunkYears = 10_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public static void main(String[] args) {
+        WeekdayVerifier verifier = new WeekdayVerifier();
+        try {
+            verifier.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        System.exit(verifier.run() ? 0 : 1);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--from": fromYear = Integer.parseInt(value); break;
+                case "--to": toYear = Integer.parseInt(value); break;
+                case "--chunk": chunkYears = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        // java.time stops at +-999,999,999; leave room for the year after the range
+        if (toYear < fromYear || fromYear < -999_999_998 || toYear > 999_999_998 || chunkYears < 1 || threads < 1) {
+            throw new IllegalArgumentException("Invalid options");
+        }
+    }
+
+    /**
+     * Verify the range and print a report
+     *
+     * @return true if no mismatch was found
+     */
+    private boolean run() {
+        long chunks = ((long) toYear - fromYear) / chunkYears + 1;
+        System.out.printf(Locale.ROOT, "Verifying %d to %d in %d chunks on %d threads%n",
+                fromYear, toYear, chunks, threads);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        Result result = pool.invoke(new Sweep(fromYear, toYear, chunkYears));
+        long wallNanos = System.nanoTime() - start;
+        pool.shutdown();
+
+        double seconds = wallNanos / 1e9;
+        System.out.printf(Locale.ROOT, "Checked %d days in %.2f s: %.0f days/s%n",
+                result.days, seconds, result.days / seconds);
+        if (result.mismatches > 0) {
+            System.out.println(result.mismatches + " mismatch(es) in " + result.failedChunks + " chunk(s)");
+            return false;
+        }
+        System.out.println("No mismatches");
+        return true;
+    }
+
+    /**
+     * Counts of a finished sweep
+     */
+    private static final class Result {
+        final long days;
+        final long mismatches;
+        final long failedChunks;
+
+        Result(long days, long mismatches, long failedChunks) {
+            this.days = days;
+            this.mismatches = mismatches;
+            this.failedChunks = failedChunks;
+        }
+    }
+
+    /**
+     * Verifies a range of years, splitting it in halves down to one chunk
+     */
+    private static final class Sweep extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunkYears;
+
+        Sweep(int from, int to, int chunkYears) {
+            this.from = from;
+            this.to = to;
+            this.chunkYears = chunkYears;
+        }
+
+        @Override
+        protected Result compute() {
+            if ((long) to - from < chunkYears) {
+                return new Chunk(from, to).verify();
+            }
+            // Split on a chunk boundary so the chunks match the count printed up front
+            long chunks = ((long) to - from) / chunkYears + 1;
+            int middle = (int) (from + chunks / 2 * chunkYears);
+            Sweep low = new Sweep(from, middle - 1, chunkYears);
+            low.fork();
+            Result high = new Sweep(middle, to, chunkYears).compute();
+            Result first = low.join();
+            return new Result(first.days + high.days, first.mismatches + high.mismatches,
+                    first.failedChunks + high.failedChunks);
+        }
+    }
+
+    /**
+     * Verifies the years of one chunk and reports its first mismatch
+     */
+    private static final class Chunk {
+        private final int from;
+        private final int to;
+        private long mismatches;
+        private String firstMismatch;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        Result verify() {
+            YearAnchorTable table = YearAnchorTable.build(from, to);
+            long days = 0;
+            long epochDay = 0;
+            int dayOfWeek = 0;
+            for (int year = from; year <= to + 1; year++) {
+                LocalDate january = LocalDate.of(year, 1, 1);
+                long expectedEpochDay = january.toEpochDay();
+                int expectedDayOfWeek = calendarDay(january.getDayOfWeek());
+                if (year > from) {
+                    // The days counted through the previous year must land on java.time's 1 January
+                    check(epochDay == expectedEpochDay, year, 1, 1, "counted epoch day", epochDay, expectedEpochDay);
+                    check(dayOfWeek == expectedDayOfWeek, year, 1, 1, "counted weekday", dayOfWeek, expectedDayOfWeek);
+                }
+                if (year > to) {
+                    break;
+                }
+                epochDay = expectedEpochDay;
+                dayOfWeek = expectedDayOfWeek;
+
+                boolean leap = january.isLeapYear();
+                check(WeekdayEngine.isLeapYear(year) == leap, year, 1, 1, "WeekdayEngine leap",
+                        WeekdayEngine.isLeapYear(year) ? 1 : 0, leap ? 1 : 0);
+                check(table.isLeapYear(year) == leap, year, 1, 1, "YearAnchorTable leap",
+                        table.isLeapYear(year) ? 1 : 0, leap ? 1 : 0);
+                // The doomsday is the weekday of the last day of February, 0 = Sunday
+                int doomsday = calendarDay(LocalDate.of(year, 3, 1).minusDays(1).getDayOfWeek()) - 1;
+                check(WeekdayEngine.doomsday(year) == doomsday, year, 2, leap ? 29 : 28,
+                        "WeekdayEngine doomsday", WeekdayEngine.doomsday(year), doomsday);
+                check(table.doomsday(year) == doomsday, year, 2, leap ? 29 : 28,
+                        "YearAnchorTable doomsday", table.doomsday(year), doomsday);
+
+                for (int month = 1; month <= 12; month++) {
+                    int length = Month.of(month).length(leap);
+                    check(WeekdayEngine.daysInMonth(year, month) == length, year, month, 1,
+                            "month length", WeekdayEngine.daysInMonth(year, month), length);
+                    for (int day = 1; day <= length; day++) {
+                        verifyDay(table, year, month, day, epochDay, dayOfWeek);
+                        epochDay++;
+                        dayOfWeek = dayOfWeek == WeekdayEngine.SATURDAY ? WeekdayEngine.SUNDAY : dayOfWeek + 1;
+                    }
+                    days += length;
+                }
+            }
+            if (firstMismatch != null) {
+                System.out.printf(Locale.ROOT, "Chunk %d to %d: %d mismatch(es), first: %s%n",
+                        from, to, mismatches, firstMismatch);
+            }
+            return new Result(days, mismatches, firstMismatch != null ? 1 : 0);
+        }
+
+        private void verifyDay(YearAnchorTable table, int year, int month, int day, long epochDay, int dayOfWeek) {
+            int engineDay = WeekdayEngine.dayOfWeek(year, month, day);
+            int tableDay = table.dayOfWeek(year, month, day);
+            long appEpochDay = EpochDay.of(year, month, day);
+            int epochWeekday = EpochDay.dayOfWeek(epochDay);
+            long date = EpochDay.toDate(epochDay);
+            if (engineDay == dayOfWeek && tableDay == dayOfWeek && appEpochDay == epochDay
+                    && epochWeekday == dayOfWeek && date == EpochDay.pack(year, month, day)) {
+                return; // The common case, without building any messages
+            }
+            check(engineDay == dayOfWeek, year, month, day, "WeekdayEngine weekday", engineDay, dayOfWeek);
+            check(tableDay == dayOfWeek, year, month, day, "YearAnchorTable weekday", tableDay, dayOfWeek);
+            check(appEpochDay == epochDay, year, month, day, "EpochDay.of", appEpochDay, epochDay);
+            check(epochWeekday == dayOfWeek, year, month, day, "EpochDay weekday", epochWeekday, dayOfWeek);
+            check(date == EpochDay.pack(year, month, day), year, month, day, "EpochDay.toDate",
+                    EpochDay.year(date) * 10000L + EpochDay.month(date) * 100 + EpochDay.day(date),
+                    year * 10000L + month * 100 + day);
+        }
+
+        private void check(boolean ok, int year, int month, int day, String what, long actual, long expected) {
+            if (ok) {
+                return;
+            }
+            if (mismatches++ == 0) {
+                firstMismatch = String.format(Locale.ROOT, "%d-%02d-%02d %s: got %d, java.time says %d",
+                        year, month, day, what, actual, expected);
+            }
+        }
+
+        /**
+         * @return The WeekdayEngine constant for a java.time day, e.g. SUNDAY = 1
+         */
+        private static int calendarDay(DayOfWeek day) {
+            return day.getValue() % 7 + 1;
+        }
+    }
+}